@@ -0,0 +1,3 @@
+#!/bin/sh
+# Let the db-replica service stream the write-ahead log of this database
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,108 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of checkout pricing: subtotal, product-specific and general discounts.
+ *
+ * <p>Half of the discounts are product-specific, each applying to every other product of
+ * the catalog, and half are general.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutPricingBenchmark {
+
+  private static final int CATALOG_SIZE = 50;
+
+  @Param({"1", "10", "100"})
+  private int cartSize;
+
+  @Param({"0", "2", "8"})
+  private int discountCount;
+
+  private CheckoutService checkoutService;
+  private List<Product> products;
+  private List<Long> productIds;
+  private List<Discount> discounts;
+  private Money originalSubtotal;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    products = new ArrayList<>(CATALOG_SIZE);
+    for (long id = 1; id <= CATALOG_SIZE; id++) {
+      products.add(new Product(id, "Product " + id, Money.ofCents(100 + random.nextInt(10_000)),
+          100));
+    }
+    productIds = new ArrayList<>(cartSize);
+    for (int i = 0; i < cartSize; i++) {
+      productIds.add(products.get(random.nextInt(CATALOG_SIZE)).getId());
+    }
+
+    Map<String, Discount> discountsByCode = new HashMap<>();
+    discounts = new ArrayList<>(discountCount);
+    for (long id = 1; id <= discountCount; id++) {
+      boolean productSpecific = id % 2 == 0;
+      HashSet<Product> applicableProducts = new HashSet<>();
+      if (productSpecific) {
+        for (int i = (int) id % 2; i < CATALOG_SIZE; i += 2) {
+          applicableProducts.add(products.get(i));
+        }
+      }
+      Discount discount = new Discount(id, "CODE" + id, new BigDecimal("2.50"),
+          productSpecific ? DiscountType.PRODUCT_SPECIFIC : DiscountType.GENERAL,
+          LocalDate.now(), LocalDate.now(), 100, applicableProducts, 0L);
+      discounts.add(discount);
+      discountsByCode.put(discount.getCode(), discount);
+    }
+
+    DiscountApplicabilityIndex index =
+        new DiscountApplicabilityIndex(InMemoryRepositories.discounts(discountsByCode));
+    index.rebuild();
+    checkoutService = new CheckoutService(null, null, null, null, null, null, index, null);
+    originalSubtotal = checkoutService.calculateOriginalSubtotal(productIds, products);
+  }
+
+  @Benchmark
+  public Money subtotal() {
+    return checkoutService.calculateOriginalSubtotal(productIds, products);
+  }
+
+  @Benchmark
+  public Money discounts() {
+    return checkoutService.applyDiscounts(productIds, products, discounts, originalSubtotal);
+  }
+
+  @Benchmark
+  public Money subtotalAndDiscounts() {
+    Money subtotal = checkoutService.calculateOriginalSubtotal(productIds, products);
+    return checkoutService.applyDiscounts(productIds, products, discounts, subtotal);
+  }
+}
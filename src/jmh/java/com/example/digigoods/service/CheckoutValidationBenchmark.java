@@ -0,0 +1,103 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.exception.InvalidDiscountException;
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the product and discount validation done before pricing a checkout.
+ *
+ * <p>The repositories are in-memory maps, so only the validation logic is measured. The
+ * {@code reject} benchmarks compare collecting every unknown code into a
+ * {@link CheckoutValidation} with throwing at the first one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutValidationBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int size;
+
+  private ProductService productService;
+  private DiscountService discountService;
+  private List<Long> productIds;
+  private List<String> discountCodes;
+  private List<String> unknownCodes;
+
+  @Setup
+  public void setUp() {
+    final Map<Long, Product> products = new HashMap<>();
+    final Map<String, Discount> discounts = new HashMap<>();
+    productIds = new ArrayList<>(size);
+    discountCodes = new ArrayList<>(size);
+    unknownCodes = new ArrayList<>(size);
+    for (long id = 1; id <= size; id++) {
+      products.put(id, new Product(id, "Product " + id, Money.of("9.99"), 100));
+      productIds.add(id);
+      Discount discount = new Discount(id, "CODE" + id, new BigDecimal("1.00"),
+          DiscountType.GENERAL, LocalDate.now().minusDays(1), LocalDate.now().plusDays(1), 100,
+          new HashSet<>(), 0L);
+      discounts.put(discount.getCode(), discount);
+      discountCodes.add(discount.getCode());
+      unknownCodes.add("UNKNOWN" + id);
+    }
+
+    productService = new ProductService(InMemoryRepositories.products(products),
+        event -> {}, 100, 1000, 500);
+    DiscountLeaseManager leaseManager = new DiscountLeaseManager(null, event -> {}, 50, 300);
+    discountService = new DiscountService(InMemoryRepositories.discounts(discounts),
+        leaseManager);
+  }
+
+  @Benchmark
+  public List<Product> getProductsByIds() {
+    return productService.getProductsByIds(productIds);
+  }
+
+  @Benchmark
+  public List<Discount> validateAndGetDiscounts() {
+    return discountService.validateAndGetDiscounts(discountCodes);
+  }
+
+  @Benchmark
+  public CheckoutValidation rejectByCollecting() {
+    CheckoutValidation validation = new CheckoutValidation();
+    discountService.findValidDiscounts(unknownCodes, validation);
+    return validation;
+  }
+
+  @Benchmark
+  public RuntimeException rejectByThrowing() {
+    try {
+      discountService.validateAndGetDiscounts(unknownCodes);
+      return null;
+    } catch (InvalidDiscountException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.repository.DiscountRepository;
+import com.example.digigoods.repository.ProductRepository;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-ins for the Spring Data repositories used by the benchmarks.
+ *
+ * <p>Only the finder methods the benchmarked code calls are implemented. They are plain
+ * map lookups, so the benchmarks measure the service code rather than a mocking library.
+ */
+final class InMemoryRepositories {
+
+  private InMemoryRepositories() {
+  }
+
+  static ProductRepository products(Map<Long, Product> products) {
+    return proxy(ProductRepository.class, Map.of(
+        "findAllByIdIn", args -> lookup(products, (Collection<?>) args[0])));
+  }
+
+  static DiscountRepository discounts(Map<String, Discount> discounts) {
+    return proxy(DiscountRepository.class, Map.of(
+        "findAllByCodeIn", args -> lookup(discounts, (Collection<?>) args[0]),
+        "findAllApplicableProductLinks", args -> links(discounts.values()),
+        "findAllVersions", args -> versions(discounts.values())));
+  }
+
+  private static <T> List<T> lookup(Map<?, T> entities, Collection<?> keys) {
+    List<T> found = new ArrayList<>(keys.size());
+    for (Object key : keys) {
+      T entity = entities.get(key);
+      if (entity != null) {
+        found.add(entity);
+      }
+    }
+    return found;
+  }
+
+  private static List<Object[]> links(Collection<Discount> discounts) {
+    List<Object[]> links = new ArrayList<>();
+    for (Discount discount : discounts) {
+      for (Product product : discount.getApplicableProducts()) {
+        links.add(new Object[] {discount.getId(), product.getId()});
+      }
+    }
+    return links;
+  }
+
+  private static List<Object[]> versions(Collection<Discount> discounts) {
+    List<Object[]> versions = new ArrayList<>();
+    for (Discount discount : discounts) {
+      versions.add(new Object[] {discount.getId(), discount.getVersion()});
+    }
+    return versions;
+  }
+
+  private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+        (proxy, method, args) -> {
+          Function<Object[], Object> implementation = methods.get(method.getName());
+          if (implementation == null) {
+            throw new UnsupportedOperationException(method.getName());
+          }
+          return implementation.apply(args);
+        }));
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.digigoods.service;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of issuing and reading JWT tokens.
+ *
+ * <p>{@code cacheMaxEntries} of 0 disables the verified token cache, so every
+ * {@code extractUserId} call checks the signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+  private static final String SECRET = "benchmarkSecretKeyThatIsAtLeast256BitsLongForHS256";
+
+  @Param({"0", "10000"})
+  private int cacheMaxEntries;
+
+  private JwtService jwtService;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtService = new JwtService(SECRET, 86_400_000L, cacheMaxEntries);
+    token = jwtService.generateToken(1L, "benchmarkuser");
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtService.generateToken(1L, "benchmarkuser");
+  }
+
+  @Benchmark
+  public Long extractUserId() {
+    return jwtService.extractUserId(token);
+  }
+}
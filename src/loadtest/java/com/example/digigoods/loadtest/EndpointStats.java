@@ -0,0 +1,63 @@
+package com.example.digigoods.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies and outcomes of the requests to one endpoint.
+ *
+ * <p>Latencies are recorded in microseconds into an HdrHistogram {@link Recorder}, which
+ * virtual users can write to concurrently without locking.
+ */
+final class EndpointStats {
+
+  private final String name;
+  private final Recorder recorder = new Recorder(3);
+  private final LongAdder successes = new LongAdder();
+  private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+  EndpointStats(String name) {
+    this.name = name;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  void record(long latencyNanos, String outcome) {
+    recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    if (outcome == null) {
+      successes.increment();
+    } else {
+      failures.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+  }
+
+  /**
+   * Discard everything recorded so far, such as the requests made during the ramp.
+   */
+  void reset() {
+    recorder.reset();
+    successes.reset();
+    failures.clear();
+  }
+
+  Histogram histogram() {
+    return recorder.getIntervalHistogram();
+  }
+
+  long getSuccesses() {
+    return successes.sum();
+  }
+
+  Map<String, Long> getFailures() {
+    Map<String, Long> counts = new TreeMap<>();
+    failures.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+    return counts;
+  }
+}
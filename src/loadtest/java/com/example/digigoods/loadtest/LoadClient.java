@@ -0,0 +1,78 @@
+package com.example.digigoods.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Thin wrapper around {@link HttpClient} that times every request and records it in the
+ * {@link EndpointStats} of its endpoint.
+ *
+ * <p>A response counts as a failure keyed by its status code when the status is not 2xx, and
+ * as {@code io-error} when no response arrived at all.
+ */
+final class LoadClient {
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private final HttpClient httpClient;
+  private final String baseUrl;
+
+  LoadClient(HttpClient httpClient, String baseUrl) {
+    this.httpClient = httpClient;
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * Send a GET request.
+   *
+   * @return the response body, or null if the request failed
+   */
+  String get(EndpointStats stats, String path, String token) {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Accept-Encoding", "identity")
+        .GET();
+    if (token != null) {
+      request.header("Authorization", "Bearer " + token);
+    }
+    return send(stats, request.build());
+  }
+
+  /**
+   * Send a POST request with a JSON body.
+   *
+   * @return the response body, or null if the request failed
+   */
+  String post(EndpointStats stats, String path, String token, String json) {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(json));
+    if (token != null) {
+      request.header("Authorization", "Bearer " + token);
+    }
+    return send(stats, request.build());
+  }
+
+  private String send(EndpointStats stats, HttpRequest request) {
+    long start = System.nanoTime();
+    try {
+      HttpResponse<String> response =
+          httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      int status = response.statusCode();
+      boolean success = status >= 200 && status < 300;
+      stats.record(System.nanoTime() - start, success ? null : String.valueOf(status));
+      return success ? response.body() : null;
+    } catch (IOException e) {
+      stats.record(System.nanoTime() - start, "io-error");
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.example.digigoods.loadtest;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The {@link EndpointStats} of every endpoint the virtual users call.
+ */
+@Getter
+final class LoadStats {
+
+  private final EndpointStats login = new EndpointStats("POST /auth/login");
+  private final EndpointStats products = new EndpointStats("GET /products");
+  private final EndpointStats discounts = new EndpointStats("GET /discounts");
+  private final EndpointStats orders = new EndpointStats("POST /orders");
+
+  List<EndpointStats> all() {
+    return List.of(login, products, discounts, orders);
+  }
+}
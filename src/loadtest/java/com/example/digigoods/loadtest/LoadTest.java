@@ -0,0 +1,190 @@
+package com.example.digigoods.loadtest;
+
+import com.example.digigoods.DigigoodsApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end load test of the running application.
+ *
+ * <p>Without a {@code target} option the application is booted in-process against the
+ * database configured in {@code application.properties}, and the load test dataset is seeded
+ * into it. With a {@code target} the application at that URL is driven as is, so it must use a
+ * database seeded by an earlier in-process run.
+ *
+ * <p>Virtual users are started evenly over the ramp, then every endpoint is measured for the
+ * configured duration. The load is closed-loop: each virtual user waits for its response before
+ * sending the next request, so the latencies are those seen at the offered concurrency, not at
+ * a fixed arrival rate.
+ */
+public final class LoadTest {
+
+  private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p99.9"};
+
+  private LoadTest() {
+  }
+
+  /**
+   * Run the load test.
+   *
+   * @param args {@code key=value} options, see {@link LoadTestOptions}
+   */
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    ConfigurableApplicationContext context = null;
+    String baseUrl = options.getTarget();
+    if (baseUrl == null) {
+      context = new SpringApplicationBuilder(DigigoodsApplication.class)
+          .properties(
+              "server.port=0",
+              "spring.docker.compose.enabled=false",
+              "logging.level.com.example.digigoods=WARN",
+              "logging.level.org.springframework.security=WARN")
+          .run();
+      try {
+        new LoadTestSeeder(context).seed(options.getConcurrency(), options.getProducts());
+      } catch (RuntimeException e) {
+        // Otherwise the application's non-daemon threads keep the JVM running
+        context.close();
+        throw e;
+      }
+      baseUrl = "http://localhost:"
+          + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    try {
+      HttpClient httpClient = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_1_1)
+          .build();
+      LoadClient client = new LoadClient(httpClient, baseUrl);
+      List<Long> productIds = discoverProducts(client, objectMapper);
+      if (productIds.isEmpty()) {
+        throw new IllegalStateException("No load test products found at " + baseUrl);
+      }
+
+      LoadStats stats = run(options, client, objectMapper, productIds);
+      report(options, stats, objectMapper);
+    } finally {
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  private static List<Long> discoverProducts(LoadClient client, ObjectMapper objectMapper)
+      throws IOException {
+    EndpointStats discovery = new EndpointStats("discovery");
+    List<Long> productIds = new ArrayList<>();
+    String path = "/products?limit=100";
+    while (path != null) {
+      String body = client.get(discovery, path, null);
+      if (body == null) {
+        throw new IllegalStateException("Product discovery failed: " + discovery.getFailures());
+      }
+      JsonNode page = objectMapper.readTree(body);
+      Long lastId = null;
+      for (JsonNode product : page) {
+        lastId = product.get("id").asLong();
+        if (product.get("name").asText().startsWith(LoadTestSeeder.PRODUCT_PREFIX)) {
+          productIds.add(lastId);
+        }
+      }
+      path = page.size() == 100 ? "/products?limit=100&afterId=" + lastId : null;
+    }
+    return productIds;
+  }
+
+  private static LoadStats run(LoadTestOptions options, LoadClient client,
+      ObjectMapper objectMapper, List<Long> productIds) throws InterruptedException {
+    LoadStats stats = new LoadStats();
+    List<Thread> users = new ArrayList<>(options.getConcurrency());
+    long rampStepNanos = options.getConcurrency() > 0
+        ? TimeUnit.SECONDS.toNanos(options.getRampSeconds()) / options.getConcurrency()
+        : 0;
+
+    System.out.printf("Ramping up %d virtual users over %ds%n",
+        options.getConcurrency(), options.getRampSeconds());
+    for (int i = 0; i < options.getConcurrency(); i++) {
+      VirtualUser user = new VirtualUser(client, stats, objectMapper, options, productIds, i);
+      users.add(Thread.ofVirtual().name("virtual-user-" + i).start(user));
+      TimeUnit.NANOSECONDS.sleep(rampStepNanos);
+    }
+
+    stats.all().forEach(EndpointStats::reset);
+    System.out.printf("Measuring for %ds%n", options.getDurationSeconds());
+    TimeUnit.SECONDS.sleep(options.getDurationSeconds());
+
+    users.forEach(Thread::interrupt);
+    for (Thread user : users) {
+      user.join();
+    }
+    return stats;
+  }
+
+  private static void report(LoadTestOptions options, LoadStats stats,
+      ObjectMapper objectMapper) throws IOException {
+    final double seconds = options.getDurationSeconds();
+    ObjectNode report = objectMapper.createObjectNode();
+    report.put("concurrency", options.getConcurrency());
+    report.put("rampSeconds", options.getRampSeconds());
+    report.put("durationSeconds", options.getDurationSeconds());
+    report.put("thinkMillis", options.getThinkMillis());
+    ArrayNode endpoints = report.putArray("endpoints");
+
+    System.out.printf(Locale.ROOT, "%n%-18s %9s %10s %10s %10s %10s %8s  %s%n",
+        "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors", "by status");
+    for (EndpointStats endpoint : stats.all()) {
+      final Histogram histogram = endpoint.histogram();
+      Map<String, Long> failures = endpoint.getFailures();
+      long errors = failures.values().stream().mapToLong(Long::longValue).sum();
+      long requests = endpoint.getSuccesses() + errors;
+
+      ObjectNode node = endpoints.addObject();
+      node.put("endpoint", endpoint.getName());
+      node.put("requests", requests);
+      node.put("throughput", requests / seconds);
+      ObjectNode latencies = node.putObject("latencyMillis");
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        latencies.put(PERCENTILE_NAMES[i], millis(histogram, PERCENTILES[i]));
+      }
+      latencies.put("max", histogram.getMaxValue() / 1000.0);
+      node.put("errorRate", requests > 0 ? (double) errors / requests : 0.0);
+      ObjectNode byStatus = node.putObject("errorsByStatus");
+      failures.forEach(byStatus::put);
+
+      System.out.printf(Locale.ROOT, "%-18s %9d %10.1f %10.2f %10.2f %10.2f %7.2f%%  %s%n",
+          endpoint.getName(), requests, requests / seconds,
+          millis(histogram, 50.0), millis(histogram, 99.0), millis(histogram, 99.9),
+          requests > 0 ? 100.0 * errors / requests : 0.0, failures);
+    }
+
+    Path path = Path.of(options.getReport());
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+    System.out.printf("%nReport written to %s%n", path.toAbsolutePath());
+  }
+
+  private static double millis(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / 1000.0;
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.digigoods.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Load test settings, read from {@code key=value} program arguments.
+ */
+@Value
+class LoadTestOptions {
+
+  /** Base URL of a running application, or null to boot one in-process. */
+  String target;
+  /** Number of concurrent virtual users. */
+  int concurrency;
+  /** Seconds over which the virtual users are started; not measured. */
+  int rampSeconds;
+  /** Seconds measured after the ramp. */
+  int durationSeconds;
+  /** Pause between two requests of one virtual user. */
+  int thinkMillis;
+  /** Number of seeded products. */
+  int products;
+  /** Iterations after which a virtual user logs in again. */
+  int reloginEvery;
+  /** Seed of the random carts and discount choices. */
+  long seed;
+  /** Path of the JSON report. */
+  String report;
+
+  static LoadTestOptions parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Expected key=value, got: " + arg);
+      }
+      values.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+
+    LoadTestOptions options = new LoadTestOptions(
+        take(values, "target", null),
+        Integer.parseInt(take(values, "concurrency", "50")),
+        Integer.parseInt(take(values, "ramp", "10")),
+        Integer.parseInt(take(values, "duration", "60")),
+        Integer.parseInt(take(values, "think", "0")),
+        Integer.parseInt(take(values, "products", "200")),
+        Integer.parseInt(take(values, "relogin-every", "50")),
+        Long.parseLong(take(values, "seed", "1")),
+        take(values, "report", "target/loadtest-report.json"));
+    if (!values.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options: " + values.keySet());
+    }
+    return options;
+  }
+
+  private static String take(Map<String, String> values, String key, String defaultValue) {
+    String value = values.remove(key);
+    return value != null ? value : defaultValue;
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.digigoods.loadtest;
+
+import com.example.digigoods.service.CatalogSnapshots;
+import com.example.digigoods.service.DiscountApplicabilityIndex;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Seeds the users, products and discounts the virtual users work with.
+ *
+ * <p>Seeding is idempotent: rows that already exist are kept, and the stock and the remaining
+ * discount uses are topped up, so repeated runs against the same database start from the same
+ * state. Orders from earlier runs are kept.
+ */
+final class LoadTestSeeder {
+
+  static final String PASSWORD = "password";
+  static final String PRODUCT_PREFIX = "Load Test Product ";
+  static final String GENERAL_CODE = "LOADTEST10";
+  static final String PRODUCT_SPECIFIC_CODE = "LOADTEST5P";
+
+  private static final int STOCK = 1_000_000_000;
+  private static final int REMAINING_USES = 1_000_000_000;
+  private static final int PRODUCT_SPECIFIC_PRODUCTS = 20;
+
+  private final ConfigurableApplicationContext context;
+  private final JdbcTemplate jdbcTemplate;
+
+  LoadTestSeeder(ConfigurableApplicationContext context) {
+    this.context = context;
+    this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+  }
+
+  static String username(int index) {
+    return "loadtest-user-" + index;
+  }
+
+  void seed(int users, int products) {
+    seedUsers(users);
+    seedProducts(products);
+    seedDiscounts();
+
+    // The rows were written behind the application's back, so drop what it derived from them.
+    context.getBean(DiscountApplicabilityIndex.class).rebuild();
+    context.getBean(CatalogSnapshots.class).invalidate();
+  }
+
+  private void seedUsers(int users) {
+    // One hash for all users: BCrypt is deliberately slow.
+    String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+    List<Object[]> rows = new ArrayList<>(users);
+    for (int i = 0; i < users; i++) {
+      rows.add(new Object[] {username(i), hash, username(i)});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO users (username, password) SELECT ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = ?)", rows);
+  }
+
+  private void seedProducts(int products) {
+    List<Object[]> rows = new ArrayList<>(products);
+    for (int i = 0; i < products; i++) {
+      String name = PRODUCT_PREFIX + i;
+      rows.add(new Object[] {name, 5 + i % 100, STOCK, name});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO products (name, price, stock) SELECT ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM products WHERE name = ?)", rows);
+    jdbcTemplate.update("UPDATE products SET stock = ? WHERE name LIKE ?",
+        STOCK, PRODUCT_PREFIX + "%");
+  }
+
+  private void seedDiscounts() {
+    LocalDate today = LocalDate.now();
+    seedDiscount(GENERAL_CODE, 10, "GENERAL", today);
+    seedDiscount(PRODUCT_SPECIFIC_CODE, 5, "PRODUCT_SPECIFIC", today);
+
+    jdbcTemplate.update(
+        "DELETE FROM discount_applicable_products WHERE discount_id = "
+            + "(SELECT id FROM discounts WHERE code = ?)", PRODUCT_SPECIFIC_CODE);
+    List<Long> productIds = jdbcTemplate.queryForList(
+        "SELECT id FROM products WHERE name LIKE ? ORDER BY id", Long.class,
+        PRODUCT_PREFIX + "%");
+    List<Object[]> links = new ArrayList<>();
+    for (Long productId : productIds.subList(0,
+        Math.min(PRODUCT_SPECIFIC_PRODUCTS, productIds.size()))) {
+      links.add(new Object[] {productId, PRODUCT_SPECIFIC_CODE});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO discount_applicable_products (discount_id, product_id) "
+            + "SELECT id, ? FROM discounts WHERE code = ?", links);
+  }
+
+  private void seedDiscount(String code, int percentage, String type, LocalDate today) {
+    jdbcTemplate.update(
+        "INSERT INTO discounts"
+            + " (code, percentage, type, valid_from, valid_until, remaining_uses, version)"
+            + " SELECT ?, ?, ?, ?, ?, ?, 0"
+            + " WHERE NOT EXISTS (SELECT 1 FROM discounts WHERE code = ?)",
+        code, percentage, type, today.minusDays(1), today.plusYears(1), REMAINING_USES, code);
+    jdbcTemplate.update(
+        "UPDATE discounts SET valid_from = ?, valid_until = ?, remaining_uses = ?,"
+            + " version = version + 1 WHERE code = ?",
+        today.minusDays(1), today.plusYears(1), REMAINING_USES, code);
+  }
+}
@@ -0,0 +1,113 @@
+package com.example.digigoods.loadtest;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.LoginRequest;
+import com.example.digigoods.dto.LoginResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * One simulated shopper.
+ *
+ * <p>Logs in, then repeatedly browses the first product page and the discounts and places an
+ * order for a random cart of one to five seeded products, with no discount code or one of the
+ * seeded ones. Logs in again every {@code relogin-every} iterations, so the login endpoint sees
+ * a steady share of the traffic.
+ */
+final class VirtualUser implements Runnable {
+
+  private static final String[] DISCOUNT_CODES = {
+      null, LoadTestSeeder.GENERAL_CODE, LoadTestSeeder.PRODUCT_SPECIFIC_CODE};
+
+  private final LoadClient client;
+  private final LoadStats stats;
+  private final ObjectMapper objectMapper;
+  private final LoadTestOptions options;
+  private final List<Long> productIds;
+  private final String username;
+  private final Random random;
+
+  private String token;
+  private Long userId;
+
+  VirtualUser(LoadClient client, LoadStats stats, ObjectMapper objectMapper,
+      LoadTestOptions options, List<Long> productIds, int index) {
+    this.client = client;
+    this.stats = stats;
+    this.objectMapper = objectMapper;
+    this.options = options;
+    this.productIds = productIds;
+    this.username = LoadTestSeeder.username(index);
+    this.random = new Random(options.getSeed() + index);
+  }
+
+  @Override
+  public void run() {
+    int iteration = 0;
+    while (!Thread.currentThread().isInterrupted()) {
+      if (token == null || iteration > 0 && iteration % options.getReloginEvery() == 0) {
+        login();
+      }
+      if (token != null) {
+        client.get(stats.getProducts(), "/products?limit=100", token);
+        pause();
+        client.get(stats.getDiscounts(), "/discounts", token);
+        pause();
+        placeOrder();
+      }
+      pause();
+      iteration++;
+    }
+  }
+
+  private void login() {
+    String body = client.post(stats.getLogin(), "/auth/login", null,
+        toJson(new LoginRequest(username, LoadTestSeeder.PASSWORD)));
+    if (body == null) {
+      token = null;
+      return;
+    }
+    try {
+      LoginResponse response = objectMapper.readValue(body, LoginResponse.class);
+      token = response.getToken();
+      userId = response.getUserId();
+    } catch (JsonProcessingException e) {
+      token = null;
+    }
+  }
+
+  private void placeOrder() {
+    int cartSize = 1 + random.nextInt(5);
+    List<Long> cart = new ArrayList<>(cartSize);
+    for (int i = 0; i < cartSize; i++) {
+      cart.add(productIds.get(random.nextInt(productIds.size())));
+    }
+    String code = DISCOUNT_CODES[random.nextInt(DISCOUNT_CODES.length)];
+    List<String> codes = code == null ? List.of() : List.of(code);
+
+    client.post(stats.getOrders(), "/orders", token,
+        toJson(new CheckoutRequest(userId, cart, codes)));
+  }
+
+  private void pause() {
+    if (options.getThinkMillis() <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(options.getThinkMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private String toJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.example.digigoods.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import liquibase.integration.spring.SpringLiquibase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Skips Liquibase on startup when the changelog is unchanged since the last update.
+ *
+ * <p>Liquibase parses every changelog and compares it with {@code databasechangelog} on
+ * each start. Instead, the files of the changelog directory are hashed, with the contexts
+ * and labels, and compared with the hash recorded in {@code changelog_checksums} after the
+ * last successful update. Only a difference runs Liquibase. The hash covers the files, not
+ * the database, so a schema changed by hand or rolled back needs this turned off, or its
+ * row deleted, to be updated again.
+ *
+ * <p>Enabled with {@code liquibase.fast-path.enabled}, as in the {@code fast-start} profile.
+ */
+@Component
+public class LiquibaseFastPath implements BeanPostProcessor {
+
+  private static final Logger log = LoggerFactory.getLogger(LiquibaseFastPath.class);
+
+  private final boolean enabled;
+  private final ResourcePatternResolver resourceResolver =
+      new PathMatchingResourcePatternResolver();
+  private final Map<String, String> pendingChecksums = new ConcurrentHashMap<>();
+
+  public LiquibaseFastPath(
+      @Value("${liquibase.fast-path.enabled:false}") boolean fastPathEnabled,
+      @Value("${spring.liquibase.enabled:true}") boolean liquibaseEnabled) {
+    this.enabled = fastPathEnabled && liquibaseEnabled;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    // SpringLiquibase updates the database in afterPropertiesSet, which runs after this
+    if (enabled && bean instanceof SpringLiquibase liquibase) {
+      String checksum = checksum(liquibase);
+      if (checksum.equals(recordedChecksum(liquibase))) {
+        log.info("Changelog {} unchanged since the last update, skipping Liquibase",
+            liquibase.getChangeLog());
+        liquibase.setShouldRun(false);
+      } else {
+        pendingChecksums.put(beanName, checksum);
+      }
+    }
+    return bean;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    String checksum = pendingChecksums.remove(beanName);
+    if (checksum != null) {
+      record((SpringLiquibase) bean, checksum);
+    }
+    return bean;
+  }
+
+  // Package-private for tests
+  String checksum(SpringLiquibase liquibase) {
+    String changeLog = liquibase.getChangeLog();
+    String location = changeLog.substring(changeLog.indexOf(':') + 1);
+    String directory = location.substring(0, location.lastIndexOf('/') + 1);
+    try {
+      // Sorted by path within the directory, so the hash does not depend on the packaging
+      Map<String, Resource> files = new TreeMap<>();
+      for (Resource resource : resourceResolver.getResources("classpath*:" + directory + "**/*")) {
+        String url = resource.getURL().toString();
+        if (resource.isReadable() && !url.endsWith("/")) {
+          files.putIfAbsent(url.substring(url.lastIndexOf(directory) + directory.length()),
+              resource);
+        }
+      }
+      List<String> settings = new ArrayList<>();
+      settings.add(changeLog);
+      settings.add(Objects.toString(liquibase.getContexts(), ""));
+      settings.add(Objects.toString(liquibase.getLabelFilter(), ""));
+      settings.add(Objects.toString(liquibase.getDefaultSchema(), ""));
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(String.join("\n", settings).getBytes(StandardCharsets.UTF_8));
+      for (Map.Entry<String, Resource> file : files.entrySet()) {
+        digest.update(file.getKey().getBytes(StandardCharsets.UTF_8));
+        try (InputStream inputStream = file.getValue().getInputStream()) {
+          digest.update(inputStream.readAllBytes());
+        }
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read the changelog " + changeLog, e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Could not hash the changelog " + changeLog, e);
+    }
+  }
+
+  private static String recordedChecksum(SpringLiquibase liquibase) {
+    try {
+      return new JdbcTemplate(liquibase.getDataSource()).queryForList(
+          "SELECT checksum FROM changelog_checksums WHERE change_log = ?", String.class,
+          liquibase.getChangeLog()).stream().findFirst().orElse(null);
+    } catch (DataAccessException e) {
+      // No table yet, before the first update that creates it
+      return null;
+    }
+  }
+
+  private static void record(SpringLiquibase liquibase, String checksum) {
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(liquibase.getDataSource());
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    int updated = jdbcTemplate.update(
+        "UPDATE changelog_checksums SET checksum = ?, updated_at = ? WHERE change_log = ?",
+        checksum, now, liquibase.getChangeLog());
+    if (updated == 0) {
+      try {
+        jdbcTemplate.update(
+            "INSERT INTO changelog_checksums (change_log, checksum, updated_at) VALUES (?, ?, ?)",
+            liquibase.getChangeLog(), checksum, now);
+      } catch (DuplicateKeyException e) {
+        // Another instance recorded the same update first
+        log.debug("Changelog checksum already recorded", e);
+      }
+    }
+  }
+}
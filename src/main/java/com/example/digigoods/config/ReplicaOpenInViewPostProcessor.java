@@ -0,0 +1,45 @@
+package com.example.digigoods.config;
+
+import java.util.Map;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Turns off {@code spring.jpa.open-in-view} when read replicas are configured.
+ *
+ * <p>With open-in-view on, a request keeps the connection of its first transaction until it
+ * ends. When that transaction is read-only, the connection comes from a replica, and every
+ * later transaction of the request, including its writes, would run on it. Setting
+ * open-in-view to true together with replicas fails startup.
+ */
+public class ReplicaOpenInViewPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+  static final String OPEN_IN_VIEW = "spring.jpa.open-in-view";
+
+  @Override
+  public void postProcessEnvironment(ConfigurableEnvironment environment,
+                                     SpringApplication application) {
+    String replicaUrls = environment.getProperty("datasource.replicas.urls", "");
+    if (replicaUrls.isBlank()) {
+      return;
+    }
+    String openInView = environment.getProperty(OPEN_IN_VIEW);
+    if (openInView == null) {
+      environment.getPropertySources().addLast(
+          new MapPropertySource("replicaRouting", Map.of(OPEN_IN_VIEW, "false")));
+    } else if (Boolean.parseBoolean(openInView)) {
+      throw new IllegalStateException(OPEN_IN_VIEW + " must be false when "
+          + "datasource.replicas.urls is set, or writes may run on a replica connection");
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    // After the application properties have been loaded
+    return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+  }
+}
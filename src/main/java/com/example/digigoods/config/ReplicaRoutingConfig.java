@@ -0,0 +1,109 @@
+package com.example.digigoods.config;
+
+import com.example.digigoods.datasource.ReadYourWritesInterceptor;
+import com.example.digigoods.datasource.ReplicaHealthCheck;
+import com.example.digigoods.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Sends read-only transactions to the read replicas listed in
+ * {@code datasource.replicas.urls}, see {@link ReplicaRoutingDataSource}.
+ *
+ * <p>Replicas use the credentials and driver of {@code spring.datasource}. Without replicas
+ * this configuration is skipped and the auto-configured DataSource is used as before.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.isBlank()")
+public class ReplicaRoutingConfig implements WebMvcConfigurer {
+
+  private final long maxLagMillis;
+
+  public ReplicaRoutingConfig(
+      @Value("${datasource.replicas.max-lag-millis:5000}") long maxLagMillis) {
+    this.maxLagMillis = maxLagMillis;
+  }
+
+  /**
+   * Connection pool of the primary, configured by {@code spring.datasource.hikari}.
+   *
+   * @param properties the {@code spring.datasource} properties
+   * @return primary connection pool
+   */
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  /**
+   * DataSource that routes between the primary and the replicas.
+   *
+   * @param primaryDataSource the primary connection pool
+   * @param properties the {@code spring.datasource} properties
+   * @param urls the JDBC URLs of the replicas
+   * @param poolSize the connection pool size per replica
+   * @return routing DataSource
+   */
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(
+      HikariDataSource primaryDataSource,
+      DataSourceProperties properties,
+      @Value("${datasource.replicas.urls}") List<String> urls,
+      @Value("${datasource.replicas.pool-size:10}") int poolSize) {
+    List<DataSource> replicas = new ArrayList<>();
+    for (int i = 0; i < urls.size(); i++) {
+      HikariDataSource replica = properties.initializeDataSourceBuilder()
+          .type(HikariDataSource.class)
+          .url(urls.get(i).trim())
+          .build();
+      replica.setPoolName("replica-" + i);
+      replica.setMaximumPoolSize(poolSize);
+      replica.setReadOnly(true);
+      replicas.add(replica);
+    }
+    return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMillis,
+        readYourWritesInterceptor()::writeCommitted);
+  }
+
+  /**
+   * The DataSource everything else uses. Connections are only fetched on first use, when
+   * the transaction has decided whether it is read-only.
+   *
+   * @param replicaRoutingDataSource the routing DataSource
+   * @return lazy DataSource
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+
+  @Bean
+  public ReadYourWritesInterceptor readYourWritesInterceptor() {
+    return new ReadYourWritesInterceptor(maxLagMillis);
+  }
+
+  @Bean
+  public ReplicaHealthCheck replicaHealthCheck(
+      ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new ReplicaHealthCheck(replicaRoutingDataSource, readYourWritesInterceptor());
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(readYourWritesInterceptor());
+  }
+}
@@ -1,17 +1,25 @@
 package com.example.digigoods.config;
 
+import com.example.digigoods.security.AuthenticatedUser;
+import com.example.digigoods.security.BulkheadedPasswordEncoder;
 import com.example.digigoods.security.JwtAuthenticationEntryPoint;
 import com.example.digigoods.security.JwtAuthenticationFilter;
+import com.example.digigoods.security.RehashingBcryptPasswordEncoder;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
@@ -23,16 +31,43 @@ public class SecurityConfig {
 
   private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
   private final JwtAuthenticationFilter jwtAuthenticationFilter;
+  private final Set<String> adminUsernames;
 
+  /**
+   * Create the security configuration.
+   *
+   * @param jwtAuthenticationEntryPoint the entry point for unauthenticated requests
+   * @param jwtAuthenticationFilter the JWT authentication filter
+   * @param adminUsernames the users allowed to call the {@code /admin} endpoints; users
+   *                       carry no roles, so admins are listed by name
+   */
   public SecurityConfig(JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
-                        JwtAuthenticationFilter jwtAuthenticationFilter) {
+                        JwtAuthenticationFilter jwtAuthenticationFilter,
+                        @Value("${admin.usernames:}") Set<String> adminUsernames) {
     this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
     this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+    this.adminUsernames = Set.copyOf(adminUsernames);
   }
 
+  /**
+   * BCrypt password encoder that hashes on a bounded pool of its own.
+   *
+   * @param strength the BCrypt cost factor; stored hashes with a higher or lower cost
+   *                 are rehashed on the next successful login
+   * @param threads the number of hashing threads, or 0 for half the available processors
+   * @param queueCapacity the number of hashing requests allowed to wait for a thread
+   * @return password encoder
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+      @Value("${login.bcrypt.strength:10}") int strength,
+      @Value("${login.hashing.threads:0}") int threads,
+      @Value("${login.hashing.queue-capacity:64}") int queueCapacity) {
+    int poolSize = threads > 0
+        ? threads
+        : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    return new BulkheadedPasswordEncoder(new RehashingBcryptPasswordEncoder(strength), poolSize,
+        queueCapacity);
   }
 
   @Bean
@@ -49,6 +84,7 @@ public class SecurityConfig {
             .requestMatchers("/actuator/**").permitAll()
             .requestMatchers("/products").permitAll()
             .requestMatchers("/discounts").permitAll()
+            .requestMatchers("/admin/**").access(this::isAdmin)
             .anyRequest().authenticated()
         )
         .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
@@ -60,4 +96,12 @@ public class SecurityConfig {
 
     return http.build();
   }
+
+  private AuthorizationDecision isAdmin(Supplier<Authentication> authentication,
+                                        RequestAuthorizationContext context) {
+    Authentication current = authentication.get();
+    return new AuthorizationDecision(current != null
+        && current.getPrincipal() instanceof AuthenticatedUser user
+        && adminUsernames.contains(user.getUsername()));
+  }
 }
@@ -0,0 +1,150 @@
+package com.example.digigoods.controller;
+
+import com.example.digigoods.dto.OrderExportLine;
+import com.example.digigoods.logging.DebugLogSwitch;
+import com.example.digigoods.service.OrderEventStream;
+import com.example.digigoods.service.OrderExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller for admin endpoints.
+ *
+ * <p>Access is limited to the users listed in {@code admin.usernames}, see
+ * {@link com.example.digigoods.config.SecurityConfig}.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+  private static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+  private final OrderExportService orderExportService;
+  private final OrderEventStream orderEventStream;
+  private final DebugLogSwitch debugLogSwitch;
+  private final ObjectWriter lineWriter;
+
+  public AdminController(OrderExportService orderExportService,
+                         OrderEventStream orderEventStream,
+                         DebugLogSwitch debugLogSwitch,
+                         ObjectMapper objectMapper) {
+    this.orderExportService = orderExportService;
+    this.orderEventStream = orderEventStream;
+    this.debugLogSwitch = debugLogSwitch;
+    this.lineWriter = objectMapper.writerFor(OrderExportLine.class);
+  }
+
+  /**
+   * Export orders endpoint.
+   *
+   * <p>Writes one JSON object per line while reading the orders from a database cursor,
+   * so memory use does not depend on the number of orders exported.
+   *
+   * @param from the first day of the range, inclusive
+   * @param to the last day of the range, exclusive
+   * @return streamed orders as NDJSON
+   */
+  @GetMapping("/orders/export")
+  public ResponseEntity<StreamingResponseBody> exportOrders(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    if (!from.isBefore(to)) {
+      return ResponseEntity.badRequest().build();
+    }
+    StreamingResponseBody body = outputStream ->
+        orderExportService.forEachOrder(from, to, line -> writeLine(outputStream, line));
+    return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Order events endpoint.
+   *
+   * <p>Streams an {@code order-created} server-sent event per committed order, with the
+   * order as exported and its offset as the event ID. Reconnecting clients send the last ID
+   * they saw in {@code Last-Event-ID} and get every event after it; {@code after} does the
+   * same for a first connection. Without either, only new orders are streamed.
+   *
+   * @param lastEventId the offset of the last event seen before reconnecting
+   * @param after the offset after which to start
+   * @return streamed order events
+   */
+  @GetMapping(path = "/orders/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamOrderEvents(
+      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+      @RequestParam(required = false) Long after) {
+    return orderEventStream.subscribe(lastEventId != null ? lastEventId : after);
+  }
+
+  /**
+   * Debug logging endpoint for a user.
+   *
+   * <p>Logs the requests of the user at DEBUG on this instance, until the switch expires.
+   *
+   * @param username the username
+   * @param minutes how long to, or the default of {@code logging.debug-switch.minutes}
+   * @return no content
+   */
+  @PutMapping("/logging/debug/users/{username}")
+  public ResponseEntity<Void> enableDebugForUser(@PathVariable String username,
+                                                 @RequestParam(required = false) Long minutes) {
+    debugLogSwitch.enableForUser(username, minutes == null ? null : Duration.ofMinutes(minutes));
+    return ResponseEntity.noContent().build();
+  }
+
+  @DeleteMapping("/logging/debug/users/{username}")
+  public ResponseEntity<Void> disableDebugForUser(@PathVariable String username) {
+    debugLogSwitch.disableForUser(username);
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Debug logging endpoint for a request.
+   *
+   * <p>Logs the request its client sends with the given {@code X-Request-Id} at DEBUG on this
+   * instance, until the switch expires.
+   *
+   * @param requestId the request ID
+   * @param minutes how long to, or the default of {@code logging.debug-switch.minutes}
+   * @return no content
+   */
+  @PutMapping("/logging/debug/requests/{requestId}")
+  public ResponseEntity<Void> enableDebugForRequest(@PathVariable String requestId,
+                                                    @RequestParam(required = false) Long minutes) {
+    debugLogSwitch.enableForRequest(requestId,
+        minutes == null ? null : Duration.ofMinutes(minutes));
+    return ResponseEntity.noContent().build();
+  }
+
+  @DeleteMapping("/logging/debug/requests/{requestId}")
+  public ResponseEntity<Void> disableDebugForRequest(@PathVariable String requestId) {
+    debugLogSwitch.disableForRequest(requestId);
+    return ResponseEntity.noContent().build();
+  }
+
+  private void writeLine(OutputStream outputStream, OrderExportLine line) {
+    try {
+      outputStream.write(lineWriter.writeValueAsBytes(line));
+      outputStream.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
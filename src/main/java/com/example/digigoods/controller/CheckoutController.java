@@ -1,17 +1,25 @@
 package com.example.digigoods.controller;
 
 import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.CheckoutTicketResponse;
 import com.example.digigoods.dto.OrderResponse;
 import com.example.digigoods.exception.MissingJwtTokenException;
-import com.example.digigoods.service.CheckoutService;
-import com.example.digigoods.service.JwtService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.example.digigoods.security.AuthenticatedUser;
+import com.example.digigoods.service.AsyncCheckoutService;
+import com.example.digigoods.service.CheckoutBatcher;
+import com.example.digigoods.service.CheckoutIdempotencyService;
 import jakarta.validation.Valid;
+import java.net.URI;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 /**
  * Controller for checkout endpoints.
@@ -20,41 +28,97 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/orders")
 public class CheckoutController {
 
-  private final CheckoutService checkoutService;
-  private final JwtService jwtService;
+  private final CheckoutBatcher checkoutBatcher;
+  private final CheckoutIdempotencyService checkoutIdempotencyService;
+  private final AsyncCheckoutService asyncCheckoutService;
 
-  public CheckoutController(CheckoutService checkoutService, JwtService jwtService) {
-    this.checkoutService = checkoutService;
-    this.jwtService = jwtService;
+  public CheckoutController(CheckoutBatcher checkoutBatcher,
+                            CheckoutIdempotencyService checkoutIdempotencyService,
+                            AsyncCheckoutService asyncCheckoutService) {
+    this.checkoutBatcher = checkoutBatcher;
+    this.checkoutIdempotencyService = checkoutIdempotencyService;
+    this.asyncCheckoutService = asyncCheckoutService;
   }
 
   /**
    * Create order endpoint.
    *
+   * <p>With an {@code Idempotency-Key} header the order is created at most once per key:
+   * retries get the response of the first request.
+   *
    * @param checkoutRequest the checkout request
-   * @param request the HTTP servlet request
+   * @param idempotencyKey the optional client-chosen idempotency key
+   * @param user the user authenticated by the JWT token
    * @return order response
    */
   @PostMapping
   public ResponseEntity<OrderResponse> createOrder(
       @Valid @RequestBody CheckoutRequest checkoutRequest,
-      HttpServletRequest request) {
-    // Extract user ID from JWT token
-    String token = extractTokenFromRequest(request);
-    if (token == null) {
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+      @AuthenticationPrincipal AuthenticatedUser user) {
+    if (user == null) {
       throw new MissingJwtTokenException();
     }
-    Long authenticatedUserId = jwtService.extractUserId(token);
 
-    OrderResponse response = checkoutService.processCheckout(checkoutRequest, authenticatedUserId);
+    OrderResponse response = idempotencyKey == null
+        ? checkoutBatcher.checkout(checkoutRequest, user.getUserId())
+        : checkoutIdempotencyService.checkout(idempotencyKey, checkoutRequest, user.getUserId(),
+            beforeCommit -> checkoutBatcher.checkout(checkoutRequest, user.getUserId(),
+                beforeCommit));
     return ResponseEntity.ok(response);
   }
 
-  private String extractTokenFromRequest(HttpServletRequest request) {
-    String bearerToken = request.getHeader("Authorization");
-    if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
-      return bearerToken.substring(7);
+  /**
+   * Create order asynchronously endpoint, selected with {@code Prefer: respond-async}.
+   *
+   * <p>The checkout is queued and answered with {@code 202 Accepted} and a ticket whose
+   * status is polled at the {@code Location} URL. When asynchronous checkout is disabled,
+   * the preference is ignored and the order is created synchronously.
+   *
+   * @param checkoutRequest the checkout request
+   * @param idempotencyKey the optional client-chosen idempotency key
+   * @param user the user authenticated by the JWT token
+   * @return pending ticket, or order response if processed synchronously
+   */
+  @PostMapping(headers = "Prefer=respond-async")
+  public ResponseEntity<?> createOrderAsync(
+      @Valid @RequestBody CheckoutRequest checkoutRequest,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+      @AuthenticationPrincipal AuthenticatedUser user) {
+    if (!asyncCheckoutService.isEnabled()) {
+      return createOrder(checkoutRequest, idempotencyKey, user);
+    }
+    if (user == null) {
+      throw new MissingJwtTokenException();
+    }
+
+    CheckoutTicketResponse ticket = asyncCheckoutService.submit(checkoutRequest,
+        user.getUserId(), idempotencyKey);
+    URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+        .path("/{ticket}")
+        .buildAndExpand(ticket.getTicket())
+        .toUri();
+    return ResponseEntity.accepted()
+        .location(location)
+        .header("Preference-Applied", "respond-async")
+        .body(ticket);
+  }
+
+  /**
+   * Get asynchronous checkout status endpoint.
+   *
+   * @param ticket the ticket returned when the checkout was accepted
+   * @param user the user authenticated by the JWT token
+   * @return ticket status
+   */
+  @GetMapping("/{ticket}")
+  public ResponseEntity<CheckoutTicketResponse> getOrderTicket(
+      @PathVariable String ticket,
+      @AuthenticationPrincipal AuthenticatedUser user) {
+    if (user == null) {
+      throw new MissingJwtTokenException();
     }
-    return null;
+
+    return ResponseEntity.ok(asyncCheckoutService.getTicket(ticket, user.getUserId()));
   }
 }
@@ -1,10 +1,11 @@
 package com.example.digigoods.controller;
 
-import com.example.digigoods.model.Discount;
+import com.example.digigoods.service.CatalogSnapshots;
 import com.example.digigoods.service.DiscountService;
-import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -16,19 +17,30 @@ import org.springframework.web.bind.annotation.RestController;
 public class DiscountController {
 
   private final DiscountService discountService;
+  private final CatalogSnapshots catalogSnapshots;
 
-  public DiscountController(DiscountService discountService) {
+  public DiscountController(DiscountService discountService,
+                            CatalogSnapshots catalogSnapshots) {
     this.discountService = discountService;
+    this.catalogSnapshots = catalogSnapshots;
   }
 
   /**
    * Get all discounts endpoint.
    *
-   * @return list of all discounts
+   * <p>Served from a pre-serialized snapshot with an ETag, gzip-compressed if the client
+   * accepts it.
+   *
+   * @param acceptEncoding the Accept-Encoding request header
+   * @return JSON list of all discounts
    */
   @GetMapping
-  public ResponseEntity<List<Discount>> getAllDiscounts() {
-    List<Discount> discounts = discountService.getAllDiscounts();
-    return ResponseEntity.ok(discounts);
+  public ResponseEntity<byte[]> getAllDiscounts(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding) {
+    CatalogSnapshots.Snapshot snapshot =
+        catalogSnapshots.discounts(discountService::getAllDiscounts);
+    return SnapshotResponses.ok(snapshot, acceptEncoding)
+        .body(SnapshotResponses.body(snapshot, acceptEncoding));
   }
 }
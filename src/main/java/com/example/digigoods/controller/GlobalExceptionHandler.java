@@ -1,14 +1,23 @@
 package com.example.digigoods.controller;
 
 import com.example.digigoods.dto.ErrorResponse;
+import com.example.digigoods.exception.CheckoutCapacityExceededException;
+import com.example.digigoods.exception.CheckoutRejectedException;
+import com.example.digigoods.exception.CheckoutTicketNotFoundException;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
 import com.example.digigoods.exception.ExcessiveDiscountException;
+import com.example.digigoods.exception.IdempotencyKeyConflictException;
 import com.example.digigoods.exception.InsufficientStockException;
 import com.example.digigoods.exception.InvalidDiscountException;
+import com.example.digigoods.exception.InvalidIdempotencyKeyException;
+import com.example.digigoods.exception.InvalidReservationException;
+import com.example.digigoods.exception.LoginCapacityExceededException;
 import com.example.digigoods.exception.MissingJwtTokenException;
 import com.example.digigoods.exception.ProductNotFoundException;
 import com.example.digigoods.exception.UnauthorizedAccessException;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.stream.Collectors;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -23,9 +32,29 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
-  @ExceptionHandler(ProductNotFoundException.class)
-  public ResponseEntity<ErrorResponse> handleProductNotFoundException(
-      ProductNotFoundException ex, HttpServletRequest request) {
+  /**
+   * Answer a rejected checkout with all its violations. A missing product makes it a 404,
+   * like {@link ProductNotFoundException}; any other violation a 400.
+   */
+  @ExceptionHandler(CheckoutRejectedException.class)
+  public ResponseEntity<ErrorResponse> handleCheckoutRejectedException(
+      CheckoutRejectedException ex, HttpServletRequest request) {
+    HttpStatus status = ex.hasReason(Reason.PRODUCT_NOT_FOUND)
+        ? HttpStatus.NOT_FOUND
+        : HttpStatus.BAD_REQUEST;
+    ErrorResponse error = new ErrorResponse(
+        status.value(),
+        status.getReasonPhrase(),
+        ex.getMessage(),
+        request.getRequestURI(),
+        ex.getViolations()
+    );
+    return ResponseEntity.status(status).body(error);
+  }
+
+  @ExceptionHandler({ProductNotFoundException.class, CheckoutTicketNotFoundException.class})
+  public ResponseEntity<ErrorResponse> handleNotFoundExceptions(
+      RuntimeException ex, HttpServletRequest request) {
     ErrorResponse error = new ErrorResponse(
         HttpStatus.NOT_FOUND.value(),
         "Not Found",
@@ -36,7 +65,8 @@ public class GlobalExceptionHandler {
   }
 
   @ExceptionHandler({InvalidDiscountException.class, ExcessiveDiscountException.class,
-                     InsufficientStockException.class})
+                     InsufficientStockException.class, InvalidReservationException.class,
+                     InvalidIdempotencyKeyException.class})
   public ResponseEntity<ErrorResponse> handleBadRequestExceptions(
       RuntimeException ex, HttpServletRequest request) {
     ErrorResponse error = new ErrorResponse(
@@ -84,6 +114,33 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
   }
 
+  @ExceptionHandler(IdempotencyKeyConflictException.class)
+  public ResponseEntity<ErrorResponse> handleIdempotencyKeyConflictException(
+      IdempotencyKeyConflictException ex, HttpServletRequest request) {
+    ErrorResponse error = new ErrorResponse(
+        HttpStatus.CONFLICT.value(),
+        "Conflict",
+        ex.getMessage(),
+        request.getRequestURI()
+    );
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+  }
+
+  @ExceptionHandler({LoginCapacityExceededException.class,
+      CheckoutCapacityExceededException.class})
+  public ResponseEntity<ErrorResponse> handleCapacityExceededExceptions(
+      RuntimeException ex, HttpServletRequest request) {
+    ErrorResponse error = new ErrorResponse(
+        HttpStatus.SERVICE_UNAVAILABLE.value(),
+        "Service Unavailable",
+        ex.getMessage(),
+        request.getRequestURI()
+    );
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(error);
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<ErrorResponse> handleValidationExceptions(
       MethodArgumentNotValidException ex, HttpServletRequest request) {
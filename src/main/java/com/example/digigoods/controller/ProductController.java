@@ -1,12 +1,22 @@
 package com.example.digigoods.controller;
 
 import com.example.digigoods.model.Product;
+import com.example.digigoods.service.CatalogSnapshots;
 import com.example.digigoods.service.ProductService;
-import java.util.List;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 /**
  * Controller for product endpoints.
@@ -16,19 +26,74 @@ import org.springframework.web.bind.annotation.RestController;
 public class ProductController {
 
   private final ProductService productService;
+  private final CatalogSnapshots catalogSnapshots;
+  private final ObjectMapper objectMapper;
 
-  public ProductController(ProductService productService) {
+  public ProductController(ProductService productService, CatalogSnapshots catalogSnapshots,
+                           ObjectMapper objectMapper) {
     this.productService = productService;
+    this.catalogSnapshots = catalogSnapshots;
+    this.objectMapper = objectMapper;
   }
 
   /**
-   * Get all products endpoint.
+   * Get one page of products endpoint.
    *
-   * @return list of all products
+   * <p>Products are ordered by ID. When the page is full, a {@code Link} header with
+   * {@code rel="next"} points at the following page. Pages are served from pre-serialized
+   * snapshots with an ETag, gzip-compressed if the client accepts it.
+   *
+   * @param afterId the last product ID of the previous page, absent for the first page
+   * @param limit the page size, capped at {@code catalog.page.max-size}
+   * @param acceptEncoding the Accept-Encoding request header
+   * @return JSON list of products
    */
   @GetMapping
-  public ResponseEntity<List<Product>> getAllProducts() {
-    List<Product> products = productService.getAllProducts();
-    return ResponseEntity.ok(products);
+  public ResponseEntity<byte[]> getAllProducts(
+      @RequestParam(required = false) Long afterId,
+      @RequestParam(required = false) Integer limit,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding) {
+    int pageSize = productService.pageSize(limit);
+    CatalogSnapshots.Snapshot snapshot = catalogSnapshots.productsPage(afterId, pageSize,
+        () -> productService.getProductsPage(afterId, pageSize));
+
+    ResponseEntity.BodyBuilder response = SnapshotResponses.ok(snapshot, acceptEncoding);
+    if (snapshot.getNextAfterId() != null) {
+      String next = ServletUriComponentsBuilder.fromCurrentRequest()
+          .replaceQueryParam("afterId", snapshot.getNextAfterId())
+          .replaceQueryParam("limit", pageSize)
+          .toUriString();
+      response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    }
+    return response.body(SnapshotResponses.body(snapshot, acceptEncoding));
+  }
+
+  /**
+   * Stream all products endpoint.
+   *
+   * <p>Writes the whole catalog as one JSON array while reading it from a database cursor,
+   * so memory use does not depend on the size of the catalog.
+   *
+   * @return streamed list of all products
+   */
+  @GetMapping(params = "stream=true")
+  public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+    StreamingResponseBody body = outputStream -> {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        generator.writeStartArray();
+        productService.forEachProduct(product -> writeProduct(generator, product));
+        generator.writeEndArray();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+  }
+
+  private void writeProduct(JsonGenerator generator, Product product) {
+    try {
+      generator.writeObject(product);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 }
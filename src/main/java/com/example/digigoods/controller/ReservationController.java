@@ -0,0 +1,68 @@
+package com.example.digigoods.controller;
+
+import com.example.digigoods.dto.ReservationRequest;
+import com.example.digigoods.dto.ReservationResponse;
+import com.example.digigoods.exception.MissingJwtTokenException;
+import com.example.digigoods.security.AuthenticatedUser;
+import com.example.digigoods.service.StockReservationService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for stock reservation endpoints.
+ */
+@RestController
+@RequestMapping("/reservations")
+public class ReservationController {
+
+  private final StockReservationService stockReservationService;
+
+  public ReservationController(StockReservationService stockReservationService) {
+    this.stockReservationService = stockReservationService;
+  }
+
+  /**
+   * Create reservation endpoint.
+   *
+   * @param reservationRequest the reservation request
+   * @param user the user authenticated by the JWT token
+   * @return reservation response
+   */
+  @PostMapping
+  public ResponseEntity<ReservationResponse> createReservation(
+      @Valid @RequestBody ReservationRequest reservationRequest,
+      @AuthenticationPrincipal AuthenticatedUser user) {
+    ReservationResponse response = stockReservationService.reserve(
+        userId(user), reservationRequest.getProductIds());
+    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+  }
+
+  /**
+   * Release reservation endpoint.
+   *
+   * @param reservationId the reservation ID
+   * @param user the user authenticated by the JWT token
+   * @return empty response
+   */
+  @DeleteMapping("/{reservationId}")
+  public ResponseEntity<Void> releaseReservation(@PathVariable String reservationId,
+                                                 @AuthenticationPrincipal AuthenticatedUser user) {
+    stockReservationService.release(reservationId, userId(user));
+    return ResponseEntity.noContent().build();
+  }
+
+  private Long userId(AuthenticatedUser user) {
+    if (user == null) {
+      throw new MissingJwtTokenException();
+    }
+    return user.getUserId();
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.digigoods.controller;
+
+import com.example.digigoods.service.CatalogSnapshots;
+import java.util.Locale;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Builds responses from catalog snapshots.
+ *
+ * <p>The ETag is set on the response entity, so Spring answers a matching
+ * {@code If-None-Match} with 304 before any body is written.
+ */
+final class SnapshotResponses {
+
+  private SnapshotResponses() {
+  }
+
+  static ResponseEntity.BodyBuilder ok(CatalogSnapshots.Snapshot snapshot,
+                                       String acceptEncoding) {
+    boolean gzip = acceptsGzip(acceptEncoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .cacheControl(CacheControl.noCache())
+        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+        .eTag(snapshot.getEtag(gzip));
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response;
+  }
+
+  static byte[] body(CatalogSnapshots.Snapshot snapshot, String acceptEncoding) {
+    return snapshot.getBody(acceptsGzip(acceptEncoding));
+  }
+
+  /**
+   * Whether the Accept-Encoding header allows gzip: an explicit {@code gzip} coding wins over
+   * {@code *}, and only a q-value of zero refuses it. Names and parameters are case-insensitive.
+   */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double gzipQuality = null;
+    Double wildcardQuality = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase(Locale.ROOT);
+      if (!name.equals("gzip") && !name.equals("*")) {
+        continue;
+      }
+      Double quality = quality(parts);
+      if (quality == null) {
+        continue;
+      }
+      if (name.equals("gzip")) {
+        gzipQuality = quality;
+      } else {
+        wildcardQuality = quality;
+      }
+    }
+    Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+    return quality != null && quality > 0;
+  }
+
+  /**
+   * Reads the q parameter of a coding, 1 when absent and null when it is malformed.
+   */
+  private static Double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String[] parameter = parts[i].split("=", 2);
+      if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+        try {
+          return Double.parseDouble(parameter[1].trim());
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      }
+    }
+    return 1.0;
+  }
+}
@@ -0,0 +1,117 @@
+package com.example.digigoods.datasource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Holds, per thread, how recent the writes a read must see are.
+ *
+ * <p>Read-only transactions only go to a replica known to have replayed every write
+ * committed up to that time; otherwise they go to the primary. Without a requirement, any
+ * replica within the configured lag will do.
+ *
+ * <p>Transactions that write on behalf of a user name the user with {@link #writingFor},
+ * so the user reads the write once it is committed, even when a background thread without
+ * the user's security context commits it.
+ */
+public final class ReadConsistency {
+
+  private static final ThreadLocal<Long> WRITES_UP_TO = new ThreadLocal<>();
+  private static final Object WRITERS_KEY = new Object();
+
+  private ReadConsistency() {
+  }
+
+  /**
+   * Require reads on this thread to see every write committed up to the given time.
+   *
+   * @param epochMillis the commit time, in epoch milliseconds
+   */
+  public static void requireWritesUpTo(long epochMillis) {
+    Long current = WRITES_UP_TO.get();
+    if (current == null || epochMillis > current) {
+      WRITES_UP_TO.set(epochMillis);
+    }
+  }
+
+  /**
+   * Run an action whose reads must see every write committed up to the given time.
+   *
+   * @param epochMillis the commit time, in epoch milliseconds
+   * @param action the action to run
+   * @param <T> the result type
+   * @return the result of the action
+   */
+  public static <T> T withWritesUpTo(long epochMillis, Supplier<T> action) {
+    Long previous = WRITES_UP_TO.get();
+    requireWritesUpTo(epochMillis);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        WRITES_UP_TO.remove();
+      } else {
+        WRITES_UP_TO.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Get the commit time reads on this thread must see.
+   *
+   * @return the commit time in epoch milliseconds, or 0 if there is no requirement
+   */
+  public static long requiredWritesUpTo() {
+    Long writesUpTo = WRITES_UP_TO.get();
+    return writesUpTo == null ? 0 : writesUpTo;
+  }
+
+  /**
+   * Record that the current transaction writes on behalf of a user.
+   *
+   * <p>Does nothing outside a transaction.
+   *
+   * @param userId the ID of the user
+   */
+  public static void writingFor(Long userId) {
+    if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    Set<Long> writers = (Set<Long>) TransactionSynchronizationManager.getResource(WRITERS_KEY);
+    if (writers == null) {
+      writers = new HashSet<>();
+      TransactionSynchronizationManager.bindResource(WRITERS_KEY, writers);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          TransactionSynchronizationManager.unbindResourceIfPossible(WRITERS_KEY);
+        }
+      });
+    }
+    writers.add(userId);
+  }
+
+  /**
+   * Get the users the current transaction writes on behalf of.
+   *
+   * <p>Still available in {@code afterCommit} callbacks.
+   *
+   * @return the user IDs, empty outside a transaction
+   */
+  public static Set<Long> writersOfCurrentTransaction() {
+    @SuppressWarnings("unchecked")
+    Set<Long> writers = (Set<Long>) TransactionSynchronizationManager.getResource(WRITERS_KEY);
+    return writers == null ? Set.of() : Set.copyOf(writers);
+  }
+
+  /**
+   * Drop the requirement of this thread.
+   */
+  public static void clear() {
+    WRITES_UP_TO.remove();
+  }
+}
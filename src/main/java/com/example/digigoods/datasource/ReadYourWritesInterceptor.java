@@ -0,0 +1,114 @@
+package com.example.digigoods.datasource;
+
+import com.example.digigoods.security.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Lets users read their own writes when reads go to replicas.
+ *
+ * <p>When a read-write transaction commits, its commit time is remembered for the users it
+ * wrote on behalf of, as named with {@link ReadConsistency#writingFor}, and for the
+ * authenticated user of the current request, if any. Requests of those users then only
+ * read from replicas that have replayed it. When the commit happens on the request thread,
+ * the time is also returned in the {@value #HEADER} response header; clients that talk to
+ * several instances send the token back in the same request header.
+ *
+ * <p>A user's token is dropped once it is older than the allowed replica lag, since every
+ * replica in use has replayed it by then.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+  static final String HEADER = "Consistency-Token";
+
+  private final long maxLagMillis;
+  private final Map<Long, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+  public ReadYourWritesInterceptor(long maxLagMillis) {
+    this.maxLagMillis = maxLagMillis;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                           Object handler) {
+    Long userId = currentUserId();
+    if (userId != null) {
+      Long lastWrite = lastWriteByUser.get(userId);
+      if (lastWrite != null) {
+        ReadConsistency.requireWritesUpTo(lastWrite);
+      }
+    }
+
+    String token = request.getHeader(HEADER);
+    if (token != null) {
+      try {
+        ReadConsistency.requireWritesUpTo(Long.parseLong(token));
+      } catch (NumberFormatException e) {
+        // Not a token this application issued; reads fall back to the default lag
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request,
+                                             HttpServletResponse response, Object handler) {
+    ReadConsistency.clear();
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                              Object handler, Exception ex) {
+    ReadConsistency.clear();
+  }
+
+  /**
+   * Record a committed write for the users it was made for and the user of the current
+   * request, if any.
+   *
+   * @param commitMillis the commit time, in epoch milliseconds
+   * @param userIds the users the transaction wrote on behalf of
+   */
+  public void writeCommitted(long commitMillis, Set<Long> userIds) {
+    for (Long writer : userIds) {
+      lastWriteByUser.merge(writer, commitMillis, Math::max);
+    }
+    Long userId = currentUserId();
+    if (userId == null) {
+      // Committed by a background thread, such as a group commit worker
+      return;
+    }
+    lastWriteByUser.merge(userId, commitMillis, Math::max);
+    ReadConsistency.requireWritesUpTo(commitMillis);
+
+    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+        && attributes.getResponse() != null && !attributes.getResponse().isCommitted()) {
+      attributes.getResponse().setHeader(HEADER, Long.toString(commitMillis));
+    }
+  }
+
+  /**
+   * Drop the tokens every replica in use has replayed.
+   */
+  public void evictExpired() {
+    long oldestNeeded = System.currentTimeMillis() - maxLagMillis;
+    lastWriteByUser.values().removeIf(lastWrite -> lastWrite < oldestNeeded);
+  }
+
+  private static Long currentUserId() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null
+        && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+      return user.getUserId();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.digigoods.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Background task that keeps the replica routing up to date.
+ */
+public class ReplicaHealthCheck {
+
+  private final ReplicaRoutingDataSource replicaRoutingDataSource;
+  private final ReadYourWritesInterceptor readYourWritesInterceptor;
+
+  public ReplicaHealthCheck(ReplicaRoutingDataSource replicaRoutingDataSource,
+                            ReadYourWritesInterceptor readYourWritesInterceptor) {
+    this.replicaRoutingDataSource = replicaRoutingDataSource;
+    this.readYourWritesInterceptor = readYourWritesInterceptor;
+  }
+
+  /**
+   * Check replica health and lag, and drop the read-your-writes tokens no longer needed.
+   */
+  @Scheduled(fixedDelayString = "${datasource.replicas.health-check-millis:1000}")
+  public void check() {
+    replicaRoutingDataSource.checkReplicas();
+    readYourWritesInterceptor.evictExpired();
+  }
+}
@@ -0,0 +1,237 @@
+package com.example.digigoods.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that sends read-only transactions to read replicas.
+ *
+ * <p>A connection for a read-only transaction comes from the next replica, round robin,
+ * that is healthy, lags the primary by at most {@code maxLagMillis} and has replayed the
+ * writes {@link ReadConsistency} requires. Everything else, and every read for which no
+ * replica qualifies, uses the primary. A replica that fails to hand out a connection is
+ * taken out until the next successful {@link #checkReplicas() check}.
+ *
+ * <p>Transactions only know whether they are read-only once they have started, so this
+ * DataSource must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+  private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+  private final DataSource primary;
+  private final List<Replica> replicas;
+  private final long maxLagMillis;
+  private final WriteListener writeListener;
+  private final AtomicInteger next = new AtomicInteger();
+  private final Object commitNotificationKey = new Object();
+
+  /**
+   * Create the routing DataSource.
+   *
+   * @param primary the primary
+   * @param replicas the replicas of the primary
+   * @param maxLagMillis how far behind a replica may be and still serve reads
+   * @param writeListener called after every read-write transaction that used the primary
+   */
+  public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                  long maxLagMillis, WriteListener writeListener) {
+    this.primary = primary;
+    this.replicas = replicas.stream().map(Replica::new).toList();
+    this.maxLagMillis = maxLagMillis;
+    this.writeListener = writeListener;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return route(DataSource::getConnection);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return route(dataSource -> dataSource.getConnection(username, password));
+  }
+
+  /**
+   * Check the health and lag of every replica.
+   *
+   * <p>On PostgreSQL, a replica counts as caught up to the start of the check when it has
+   * replayed the write-ahead log up to the position the primary had reached then;
+   * otherwise it is caught up to the commit time of the last transaction it replayed.
+   * Databases that are not replicating, including other products, stand in for replicas in
+   * local setups and count as caught up when they answer.
+   */
+  public void checkReplicas() {
+    long checkStart = System.currentTimeMillis();
+    String primaryPosition = primaryWalPosition();
+    for (Replica replica : replicas) {
+      try (Connection connection = replica.dataSource.getConnection()) {
+        replica.caughtUp(primaryPosition == null
+            ? caughtUpIfValid(connection, checkStart)
+            : caughtUpTo(connection, primaryPosition, checkStart));
+      } catch (SQLException | RuntimeException e) {
+        replica.markDown(e);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (Replica replica : replicas) {
+      if (replica.dataSource instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+
+  private Connection route(ConnectionOpener opener) throws SQLException {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      Replica replica = chooseReplica(ReadConsistency.requiredWritesUpTo());
+      if (replica != null) {
+        try {
+          return opener.open(replica.dataSource);
+        } catch (SQLException e) {
+          replica.markDown(e);
+        }
+      }
+    } else {
+      notifyOnCommit();
+    }
+    return opener.open(primary);
+  }
+
+  private Replica chooseReplica(long writesUpTo) {
+    long oldestAllowed = System.currentTimeMillis() - maxLagMillis;
+    int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = replicas.get((start + i) % replicas.size());
+      long caughtUpTo = replica.caughtUpTo;
+      if (replica.healthy && caughtUpTo >= oldestAllowed && caughtUpTo >= writesUpTo) {
+        return replica;
+      }
+    }
+    return null;
+  }
+
+  private void notifyOnCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()
+        || TransactionSynchronizationManager.hasResource(commitNotificationKey)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(commitNotificationKey, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        writeListener.writeCommitted(System.currentTimeMillis(),
+            ReadConsistency.writersOfCurrentTransaction());
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(commitNotificationKey);
+      }
+    });
+  }
+
+  private String primaryWalPosition() {
+    try (Connection connection = primary.getConnection()) {
+      if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+        return null;
+      }
+      try (Statement statement = connection.createStatement();
+           ResultSet result = statement.executeQuery("select pg_current_wal_lsn()::text")) {
+        result.next();
+        return result.getString(1);
+      }
+    } catch (SQLException e) {
+      log.warn("Could not read the write-ahead log position of the primary", e);
+      return null;
+    }
+  }
+
+  private static long caughtUpIfValid(Connection connection, long checkStart)
+      throws SQLException {
+    if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+      throw new SQLException("Replica connection is not valid");
+    }
+    return checkStart;
+  }
+
+  private static long caughtUpTo(Connection connection, String primaryPosition,
+                                 long checkStart) throws SQLException {
+    String sql = "select not pg_is_in_recovery()"
+        + " or pg_last_wal_replay_lsn() >= cast(? as pg_lsn),"
+        + " pg_last_xact_replay_timestamp()";
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setString(1, primaryPosition);
+      try (ResultSet result = statement.executeQuery()) {
+        result.next();
+        if (result.getBoolean(1)) {
+          return checkStart;
+        }
+        Timestamp lastReplayed = result.getTimestamp(2);
+        return lastReplayed == null ? 0 : lastReplayed.getTime();
+      }
+    }
+  }
+
+  /**
+   * Told about every committed read-write transaction.
+   */
+  @FunctionalInterface
+  public interface WriteListener {
+
+    /**
+     * Called after a read-write transaction committed.
+     *
+     * @param commitMillis the commit time, in epoch milliseconds
+     * @param userIds the users the transaction wrote on behalf of, as recorded with
+     *                {@link ReadConsistency#writingFor}
+     */
+    void writeCommitted(long commitMillis, Set<Long> userIds);
+  }
+
+  @FunctionalInterface
+  private interface ConnectionOpener {
+
+    Connection open(DataSource dataSource) throws SQLException;
+  }
+
+  private static final class Replica {
+
+    private final DataSource dataSource;
+    private volatile boolean healthy;
+    private volatile long caughtUpTo;
+
+    private Replica(DataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    private void caughtUp(long epochMillis) {
+      caughtUpTo = Math.max(caughtUpTo, epochMillis);
+      healthy = true;
+    }
+
+    private void markDown(Exception e) {
+      if (healthy) {
+        log.warn("Taking read replica out of rotation", e);
+      }
+      healthy = false;
+    }
+  }
+}
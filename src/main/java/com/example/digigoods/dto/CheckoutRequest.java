@@ -15,6 +15,10 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class CheckoutRequest {
 
+  public CheckoutRequest(Long userId, List<Long> productIds, List<String> discountCodes) {
+    this(userId, productIds, discountCodes, null);
+  }
+
   @NotNull(message = "User ID is required")
   private Long userId;
 
@@ -22,4 +26,6 @@ public class CheckoutRequest {
   private List<Long> productIds;
 
   private List<String> discountCodes;
+
+  private String reservationId;
 }
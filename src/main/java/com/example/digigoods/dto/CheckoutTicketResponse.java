@@ -0,0 +1,27 @@
+package com.example.digigoods.dto;
+
+import com.example.digigoods.model.CheckoutTicketStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the status of an asynchronous checkout.
+ *
+ * <p>The final price is set once the order is created. The error status is the HTTP status
+ * the checkout would have failed with synchronously.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CheckoutTicketResponse {
+
+  private String ticket;
+  private CheckoutTicketStatus status;
+  private String message;
+  private BigDecimal finalPrice;
+  private Integer errorStatus;
+}
@@ -0,0 +1,36 @@
+package com.example.digigoods.dto;
+
+import com.example.digigoods.model.DiscountType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a discount with the IDs of the products it applies to.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscountView {
+
+  private Long id;
+  private String code;
+  private BigDecimal percentage;
+  private DiscountType type;
+  private LocalDate validFrom;
+  private LocalDate validUntil;
+  private Integer remainingUses;
+  private List<Long> applicableProductIds = new ArrayList<>();
+
+  /**
+   * Create a view without applicable products, used by the JPQL constructor expression.
+   */
+  public DiscountView(Long id, String code, BigDecimal percentage, DiscountType type,
+                      LocalDate validFrom, LocalDate validUntil, Integer remainingUses) {
+    this(id, code, percentage, type, validFrom, validUntil, remainingUses, new ArrayList<>());
+  }
+}
@@ -1,8 +1,11 @@
 package com.example.digigoods.dto;
 
+import com.example.digigoods.exception.CheckoutViolation;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -23,6 +26,12 @@ public class ErrorResponse {
   private String message;
   private String path;
 
+  /**
+   * Every violation of a rejected checkout, left out when there is only the message.
+   */
+  @JsonInclude(JsonInclude.Include.NON_EMPTY)
+  private List<CheckoutViolation> details;
+
   /**
    * Constructor with status, error, message and path.
    *
@@ -38,5 +47,20 @@ public class ErrorResponse {
     this.message = message;
     this.path = path;
   }
+
+  /**
+   * Constructor with status, error, message, path and violations.
+   *
+   * @param status HTTP status code
+   * @param error error type
+   * @param message error message
+   * @param path request path
+   * @param details the violations of a rejected checkout
+   */
+  public ErrorResponse(int status, String error, String message, String path,
+                       List<CheckoutViolation> details) {
+    this(status, error, message, path);
+    this.details = details;
+  }
 }
 
@@ -0,0 +1,26 @@
+package com.example.digigoods.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for one order, as written to the order export and the order event stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportLine {
+
+  private Long orderId;
+  private Long userId;
+  private LocalDateTime orderDate;
+  private BigDecimal originalSubtotal;
+  private BigDecimal finalPrice;
+  private List<Long> productIds = new ArrayList<>();
+  private List<String> discountCodes = new ArrayList<>();
+}
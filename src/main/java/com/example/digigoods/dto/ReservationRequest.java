@@ -0,0 +1,19 @@
+package com.example.digigoods.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for stock reservation request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+
+  @NotEmpty(message = "Product IDs cannot be empty")
+  private List<Long> productIds;
+}
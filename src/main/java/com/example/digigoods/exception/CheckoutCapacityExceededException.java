@@ -0,0 +1,15 @@
+package com.example.digigoods.exception;
+
+/**
+ * Exception thrown when too many checkouts are already running.
+ */
+public class CheckoutCapacityExceededException extends RuntimeException {
+
+  public CheckoutCapacityExceededException(String message) {
+    super(message);
+  }
+
+  public CheckoutCapacityExceededException() {
+    super("Too many checkouts in progress, please retry shortly");
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.digigoods.exception;
+
+import java.util.List;
+
+/**
+ * Exception thrown when a checkout violates one or more business rules.
+ *
+ * <p>Carries every violation found, so clients can fix them all at once. Rejections are
+ * routine, so the exception skips the stack trace, which would cost more than the checks.
+ */
+public class CheckoutRejectedException extends RuntimeException {
+
+  private final List<CheckoutViolation> violations;
+
+  public CheckoutRejectedException(List<CheckoutViolation> violations) {
+    super(violations.stream()
+        .map(CheckoutViolation::message)
+        .reduce((first, second) -> first + "; " + second)
+        .orElse("Checkout rejected"), null, false, false);
+    this.violations = List.copyOf(violations);
+  }
+
+  public List<CheckoutViolation> getViolations() {
+    return violations;
+  }
+
+  /**
+   * Check whether the checkout was rejected for the given reason.
+   *
+   * @param reason the reason
+   * @return true if any violation has that reason, false otherwise
+   */
+  public boolean hasReason(CheckoutViolation.Reason reason) {
+    return violations.stream().anyMatch(violation -> violation.reason() == reason);
+  }
+}
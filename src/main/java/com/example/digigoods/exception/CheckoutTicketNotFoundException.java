@@ -0,0 +1,11 @@
+package com.example.digigoods.exception;
+
+/**
+ * Exception thrown when a checkout ticket does not exist or belongs to another user.
+ */
+public class CheckoutTicketNotFoundException extends RuntimeException {
+
+  public CheckoutTicketNotFoundException(String ticket) {
+    super("Checkout ticket not found: " + ticket);
+  }
+}
@@ -0,0 +1,20 @@
+package com.example.digigoods.exception;
+
+/**
+ * One reason a checkout was rejected.
+ *
+ * @param reason the business rule violated
+ * @param message the message for the client
+ */
+public record CheckoutViolation(Reason reason, String message) {
+
+  /**
+   * The business rules a checkout can violate.
+   */
+  public enum Reason {
+    PRODUCT_NOT_FOUND,
+    INVALID_DISCOUNT,
+    INSUFFICIENT_STOCK,
+    EXCESSIVE_DISCOUNT
+  }
+}
@@ -5,11 +5,14 @@ package com.example.digigoods.exception;
  */
 public class ExcessiveDiscountException extends RuntimeException {
 
+  public static final String MESSAGE =
+      "Total discount exceeds the maximum allowed 75% of the original subtotal";
+
   public ExcessiveDiscountException(String message) {
     super(message);
   }
 
   public ExcessiveDiscountException() {
-    super("Total discount exceeds the maximum allowed 75% of the original subtotal");
+    super(MESSAGE);
   }
 }
@@ -0,0 +1,12 @@
+package com.example.digigoods.exception;
+
+/**
+ * Exception thrown when an idempotency key cannot be honored: it was used for a different
+ * checkout, or its first checkout is still running elsewhere.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+  public IdempotencyKeyConflictException(String message) {
+    super(message);
+  }
+}
@@ -10,7 +10,19 @@ public class InsufficientStockException extends RuntimeException {
   }
 
   public InsufficientStockException(Long productId, int requested, int available) {
-    super("Insufficient stock for product " + productId + ". Requested: " + requested 
-        + ", Available: " + available);
+    super(message(productId, requested, available));
+  }
+
+  /**
+   * Describe a shortage of stock.
+   *
+   * @param productId the product ID
+   * @param requested the quantity requested
+   * @param available the quantity in stock
+   * @return the message
+   */
+  public static String message(Long productId, int requested, int available) {
+    return "Insufficient stock for product " + productId + ". Requested: " + requested
+        + ", Available: " + available;
   }
 }
@@ -0,0 +1,15 @@
+package com.example.digigoods.exception;
+
+/**
+ * Exception thrown when too many logins are waiting for password hashing.
+ */
+public class LoginCapacityExceededException extends RuntimeException {
+
+  public LoginCapacityExceededException(String message) {
+    super(message);
+  }
+
+  public LoginCapacityExceededException() {
+    super("Too many login attempts in progress, please retry shortly");
+  }
+}
@@ -0,0 +1,144 @@
+package com.example.digigoods.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns DEBUG logging on for the requests of one user, or for one request, at runtime.
+ *
+ * <p>Matches the {@link RequestLoggingFilter#USER} and {@link RequestLoggingFilter#REQUEST_ID}
+ * of the logging context with a turbo filter, so other requests keep their configured
+ * levels and pay one empty-map check per disabled log call. Only the loggers listed in
+ * {@code logging.debug-switch.loggers} are switched. Each switch expires on its own, and
+ * applies to this instance only.
+ */
+@Component
+public class DebugLogSwitch {
+
+  private final Map<String, Long> users = new ConcurrentHashMap<>();
+  private final Map<String, Long> requests = new ConcurrentHashMap<>();
+  private final List<String> loggers;
+  private final Duration defaultDuration;
+  private final Duration maxDuration;
+  private final TurboFilter filter = new DebugFilter();
+  private LoggerContext loggerContext;
+
+  public DebugLogSwitch(
+      @Value("${logging.debug-switch.loggers:com.example.digigoods}") List<String> loggers,
+      @Value("${logging.debug-switch.minutes:15}") long defaultMinutes,
+      @Value("${logging.debug-switch.max-minutes:240}") long maxMinutes) {
+    this.loggers = List.copyOf(loggers);
+    this.defaultDuration = Duration.ofMinutes(defaultMinutes);
+    this.maxDuration = Duration.ofMinutes(maxMinutes);
+  }
+
+  @PostConstruct
+  void register() {
+    if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+      loggerContext = context;
+      filter.start();
+      context.addTurboFilter(filter);
+    }
+  }
+
+  @PreDestroy
+  void unregister() {
+    if (loggerContext != null) {
+      loggerContext.getTurboFilterList().remove(filter);
+      filter.stop();
+    }
+  }
+
+  /**
+   * Log the requests of a user at DEBUG.
+   *
+   * @param username the username
+   * @param duration how long to, or null for the default; capped at the configured maximum
+   */
+  public void enableForUser(String username, Duration duration) {
+    users.put(username, expiry(duration));
+  }
+
+  public void disableForUser(String username) {
+    users.remove(username);
+  }
+
+  /**
+   * Log a request at DEBUG, identified by the {@code X-Request-Id} its client sends.
+   *
+   * @param requestId the request ID
+   * @param duration how long to, or null for the default; capped at the configured maximum
+   */
+  public void enableForRequest(String requestId, Duration duration) {
+    requests.put(requestId, expiry(duration));
+  }
+
+  public void disableForRequest(String requestId) {
+    requests.remove(requestId);
+  }
+
+  private long expiry(Duration duration) {
+    Duration effective = duration == null ? defaultDuration : duration;
+    if (effective.compareTo(maxDuration) > 0) {
+      effective = maxDuration;
+    }
+    return System.currentTimeMillis() + effective.toMillis();
+  }
+
+  private boolean isSwitched(String name) {
+    for (String prefix : loggers) {
+      if (name.startsWith(prefix)
+          && (name.length() == prefix.length() || name.charAt(prefix.length()) == '.')) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isOn(Map<String, Long> switches, String key) {
+    if (key == null) {
+      return false;
+    }
+    Long expiresAt = switches.get(key);
+    if (expiresAt == null) {
+      return false;
+    }
+    if (expiresAt <= System.currentTimeMillis()) {
+      switches.remove(key, expiresAt);
+      return false;
+    }
+    return true;
+  }
+
+  private final class DebugFilter extends TurboFilter {
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format,
+                              Object[] params, Throwable t) {
+      if (users.isEmpty() && requests.isEmpty()) {
+        return FilterReply.NEUTRAL;
+      }
+      if (!level.isGreaterOrEqual(Level.DEBUG) || !isSwitched(logger.getName())) {
+        return FilterReply.NEUTRAL;
+      }
+      return isOn(users, MDC.get(RequestLoggingFilter.USER))
+          || isOn(requests, MDC.get(RequestLoggingFilter.REQUEST_ID))
+          ? FilterReply.ACCEPT
+          : FilterReply.NEUTRAL;
+    }
+  }
+}
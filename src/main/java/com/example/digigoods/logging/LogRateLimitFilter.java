@@ -0,0 +1,72 @@
+package com.example.digigoods.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Marker;
+
+/**
+ * Logback turbo filter limiting how many events each logger writes per second.
+ *
+ * <p>Each logger may write {@code eventsPerSecond} events a second. Past that, one event in
+ * {@code sampleEvery} is kept, so a flood stays visible without every request paying for
+ * its I/O. Events at {@code exemptLevel} or above are never dropped. Turbo filters run
+ * before an event is created, so dropped events cost a counter increment.
+ *
+ * <p>Configured in {@code logback-spring.xml}.
+ */
+public class LogRateLimitFilter extends TurboFilter {
+
+  private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+  private int eventsPerSecond = 100;
+  private int sampleEvery = 100;
+  private Level exemptLevel = Level.ERROR;
+
+  @Override
+  public FilterReply decide(Marker marker, Logger logger, Level level, String format,
+                            Object[] params, Throwable t) {
+    // No format means an isXxxEnabled() check, which must not use up the budget
+    if (!isStarted() || format == null || level.isGreaterOrEqual(exemptLevel)
+        || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+      return FilterReply.NEUTRAL;
+    }
+    long second = System.nanoTime() / 1_000_000_000L;
+    int count = windows.computeIfAbsent(logger.getName(), name -> new Window()).next(second);
+    if (count <= eventsPerSecond || (count - eventsPerSecond) % sampleEvery == 0) {
+      return FilterReply.NEUTRAL;
+    }
+    return FilterReply.DENY;
+  }
+
+  public void setEventsPerSecond(int eventsPerSecond) {
+    this.eventsPerSecond = eventsPerSecond;
+  }
+
+  public void setSampleEvery(int sampleEvery) {
+    this.sampleEvery = Math.max(1, sampleEvery);
+  }
+
+  public void setExemptLevel(String exemptLevel) {
+    this.exemptLevel = Level.toLevel(exemptLevel, Level.ERROR);
+  }
+
+  // Counts the events of the current second; a reset racing an increment may lose it
+  private static final class Window {
+
+    private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger count = new AtomicInteger();
+
+    int next(long now) {
+      long current = second.get();
+      if (current != now && second.compareAndSet(current, now)) {
+        count.set(0);
+      }
+      return count.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.digigoods.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Checkout ticket entity representing one queued asynchronous checkout and its outcome.
+ */
+@Entity
+@Table(name = "checkout_tickets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutTicket implements Persistable<String> {
+
+  @Id
+  @Column(length = 36)
+  private String id;
+
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(name = "idempotency_key")
+  private String idempotencyKey;
+
+  @Column(name = "request_json", nullable = false, columnDefinition = "text")
+  private String requestJson;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private CheckoutTicketStatus status;
+
+  @Column(name = "final_price", precision = 10, scale = 2)
+  private BigDecimal finalPrice;
+
+  @Column(name = "message")
+  private String message;
+
+  @Column(name = "error_status")
+  private Integer errorStatus;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "completed_at")
+  private LocalDateTime completedAt;
+
+  // Tickets are always inserted fresh, so skip the select that merge() would issue
+  @Transient
+  @EqualsAndHashCode.Exclude
+  private boolean newTicket = true;
+
+  /**
+   * Constructor for a pending ticket that has not been persisted yet.
+   *
+   * @param id the ticket ID
+   * @param userId the ID of the user placing the order
+   * @param idempotencyKey the optional client-chosen idempotency key
+   * @param requestJson the checkout request as JSON
+   * @param createdAt when the checkout was accepted
+   */
+  public CheckoutTicket(String id, Long userId, String idempotencyKey, String requestJson,
+                        LocalDateTime createdAt) {
+    this(id, userId, idempotencyKey, requestJson, CheckoutTicketStatus.PENDING, null, null,
+        null, createdAt, null, true);
+  }
+
+  @Override
+  public boolean isNew() {
+    return newTicket;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    newTicket = false;
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.digigoods.model;
+
+/**
+ * Enum representing the processing status of an asynchronous checkout.
+ */
+public enum CheckoutTicketStatus {
+  PENDING,
+  COMPLETED,
+  FAILED
+}
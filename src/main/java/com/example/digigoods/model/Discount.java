@@ -1,7 +1,10 @@
 package com.example.digigoods.model;
 
+import com.example.digigoods.service.CatalogSnapshotListener;
+import com.example.digigoods.service.DiscountApplicabilityListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -11,6 +14,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -24,6 +28,7 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table(name = "discounts")
+@EntityListeners({CatalogSnapshotListener.class, DiscountApplicabilityListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -59,4 +64,11 @@ public class Discount {
       inverseJoinColumns = @JoinColumn(name = "product_id")
   )
   private Set<Product> applicableProducts = new HashSet<>();
+
+  /**
+   * Incremented on every change, including changes to the applicable products only.
+   */
+  @Version
+  @Column(nullable = false)
+  private Long version;
 }
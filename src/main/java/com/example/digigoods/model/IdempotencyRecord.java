@@ -0,0 +1,104 @@
+package com.example.digigoods.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Idempotency record entity holding the outcome of a checkout sent with an
+ * {@code Idempotency-Key} header.
+ *
+ * <p>The record is claimed before the checkout runs and has no response until the checkout
+ * committed, in the same transaction as the order. The creation time identifies the claim,
+ * so a checkout can only complete or release the claim it made itself. The SHA-256 request
+ * hash detects a key reused for a different checkout. A key claimed by an asynchronous
+ * checkout names its ticket instead, and is never completed or taken over.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@IdClass(IdempotencyRecordId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord implements Persistable<IdempotencyRecordId> {
+
+  @Id
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Id
+  @Column(name = "idempotency_key")
+  private String idempotencyKey;
+
+  @Column(name = "request_hash", nullable = false, length = 64)
+  private String requestHash;
+
+  @Column(name = "response_message")
+  private String responseMessage;
+
+  @Column(name = "response_final_price", precision = 10, scale = 2)
+  private BigDecimal responseFinalPrice;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  // Set when the key was claimed by a checkout submitted as a ticket, which holds its outcome
+  @Column(name = "ticket_id", length = 36)
+  private String ticketId;
+
+  // Claims are always inserted fresh, so a concurrent claim fails on the primary key
+  // instead of being merged into
+  @Transient
+  @EqualsAndHashCode.Exclude
+  private boolean newRecord = true;
+
+  /**
+   * Constructor for a claim that has not been persisted yet.
+   *
+   * @param userId the ID of the user sending the checkout
+   * @param idempotencyKey the client-chosen idempotency key
+   * @param requestHash the hash of the checkout request
+   * @param createdAt when the key was claimed
+   */
+  public IdempotencyRecord(Long userId, String idempotencyKey, String requestHash,
+                           LocalDateTime createdAt) {
+    this(userId, idempotencyKey, requestHash, null, null, createdAt, null, true);
+  }
+
+  @Override
+  public IdempotencyRecordId getId() {
+    return new IdempotencyRecordId(userId, idempotencyKey);
+  }
+
+  @Override
+  public boolean isNew() {
+    return newRecord;
+  }
+
+  /**
+   * Check whether the checkout of this record has completed.
+   *
+   * @return true if the response is stored
+   */
+  public boolean isCompleted() {
+    return responseFinalPrice != null;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    newRecord = false;
+  }
+}
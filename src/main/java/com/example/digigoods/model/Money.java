@@ -0,0 +1,158 @@
+package com.example.digigoods.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of money held as a whole number of cents.
+ *
+ * <p>Percentages are expressed in basis points (1/100 of a percent), which is exactly the
+ * two decimal places a {@code numeric(5,2)} percentage column can hold. Every operation
+ * that divides rounds HALF_UP to the cent, the same as the {@code BigDecimal} arithmetic
+ * with scale 2 it replaces, but without allocating intermediate numbers.
+ */
+public final class Money implements Comparable<Money> {
+
+  public static final Money ZERO = new Money(0);
+
+  private static final int SCALE = 2;
+  private static final long BASIS_POINTS_PER_WHOLE = 10_000;
+
+  private final long cents;
+
+  private Money(long cents) {
+    this.cents = cents;
+  }
+
+  /**
+   * Create an amount from a number of cents.
+   *
+   * @param cents the amount in cents
+   * @return the amount
+   */
+  public static Money ofCents(long cents) {
+    return cents == 0 ? ZERO : new Money(cents);
+  }
+
+  /**
+   * Create an amount from a decimal value.
+   *
+   * @param amount the amount, with at most two decimal places
+   * @return the amount
+   * @throws ArithmeticException if the amount has more than two decimal places
+   */
+  @JsonCreator
+  public static Money of(BigDecimal amount) {
+    return ofCents(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue()
+        .longValueExact());
+  }
+
+  /**
+   * Create an amount from its decimal string representation.
+   *
+   * @param amount the amount, for example {@code "19.99"}
+   * @return the amount
+   */
+  public static Money of(String amount) {
+    return of(new BigDecimal(amount));
+  }
+
+  /**
+   * Convert a percentage with at most two decimal places to basis points.
+   *
+   * @param percentage the percentage, for example {@code 12.50}
+   * @return the percentage in basis points, for example {@code 1250}
+   * @throws ArithmeticException if the percentage has more than two decimal places
+   */
+  public static int basisPoints(BigDecimal percentage) {
+    return percentage.movePointRight(SCALE).intValueExact();
+  }
+
+  public long getCents() {
+    return cents;
+  }
+
+  public Money plus(Money other) {
+    return ofCents(Math.addExact(cents, other.cents));
+  }
+
+  public Money minus(Money other) {
+    return ofCents(Math.subtractExact(cents, other.cents));
+  }
+
+  /**
+   * Take a percentage of this amount, rounded HALF_UP to the cent.
+   *
+   * @param basisPoints the percentage in basis points
+   * @return the given percentage of this amount
+   */
+  public Money percentage(int basisPoints) {
+    return ofCents(divideHalfUp(Math.multiplyExact(cents, basisPoints), BASIS_POINTS_PER_WHOLE));
+  }
+
+  /**
+   * Reduce this amount by a percentage of itself.
+   *
+   * @param basisPoints the percentage in basis points
+   * @return this amount minus the given percentage of it
+   */
+  public Money minusPercentage(int basisPoints) {
+    return basisPoints == 0 ? this : minus(percentage(basisPoints));
+  }
+
+  /**
+   * Express this amount as a percentage of another, rounded HALF_UP to a basis point.
+   *
+   * @param whole the amount that counts as one hundred percent
+   * @return this amount as a percentage of {@code whole}, in basis points
+   * @throws ArithmeticException if {@code whole} is zero
+   */
+  public long percentageOf(Money whole) {
+    return divideHalfUp(Math.multiplyExact(cents, BASIS_POINTS_PER_WHOLE), whole.cents);
+  }
+
+  public boolean isNegative() {
+    return cents < 0;
+  }
+
+  /**
+   * Convert this amount to a decimal value with two decimal places.
+   *
+   * @return the amount as a decimal value
+   */
+  @JsonValue
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(cents, SCALE);
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    return Long.compare(cents, other.cents);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Money money && money.cents == cents;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(cents);
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString();
+  }
+
+  private static long divideHalfUp(long dividend, long divisor) {
+    long quotient = dividend / divisor;
+    long remainder = dividend % divisor;
+    if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+      quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+    }
+    return quotient;
+  }
+}
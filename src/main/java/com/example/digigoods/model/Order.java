@@ -1,5 +1,6 @@
 package com.example.digigoods.model;
 
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -9,11 +10,14 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -29,21 +33,18 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Order {
 
+  // Sequence ids let Hibernate batch the inserts, which IDENTITY columns prevent
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+  @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
   private Long id;
 
   @ManyToOne
   @JoinColumn(name = "user_id", nullable = false)
   private User user;
 
-  @ManyToMany
-  @JoinTable(
-      name = "order_products",
-      joinColumns = @JoinColumn(name = "order_id"),
-      inverseJoinColumns = @JoinColumn(name = "product_id")
-  )
-  private Set<Product> products = new HashSet<>();
+  @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+  private List<OrderLine> lines = new ArrayList<>();
 
   @ManyToMany
   @JoinTable(
@@ -54,14 +55,25 @@ public class Order {
   private Set<Discount> appliedDiscounts = new HashSet<>();
 
   @Column(name = "original_subtotal", nullable = false, precision = 10, scale = 2)
-  private BigDecimal originalSubtotal;
+  private Money originalSubtotal;
 
   @Column(name = "final_price", nullable = false, precision = 10, scale = 2)
-  private BigDecimal finalPrice;
+  private Money finalPrice;
 
   @Column(name = "order_date", nullable = false)
   private LocalDateTime orderDate;
 
+  /**
+   * Add a line to this order.
+   *
+   * @param product the product bought
+   * @param quantity the number of units bought
+   * @param unitPrice the price paid per unit
+   */
+  public void addLine(Product product, int quantity, Money unitPrice) {
+    lines.add(new OrderLine(null, this, product, quantity, unitPrice));
+  }
+
   @PrePersist
   protected void onCreate() {
     orderDate = LocalDateTime.now();
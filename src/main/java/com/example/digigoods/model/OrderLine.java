@@ -0,0 +1,53 @@
+package com.example.digigoods.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Order line entity representing one product in an order, with the quantity bought and
+ * the unit price paid.
+ */
+@Entity
+@Table(name = "order_lines")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_lines_seq")
+  @SequenceGenerator(name = "order_lines_seq", sequenceName = "order_lines_seq",
+      allocationSize = 50)
+  private Long id;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "order_id", nullable = false)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private Order order;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "product_id", nullable = false)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private Product product;
+
+  @Column(nullable = false)
+  private Integer quantity;
+
+  @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
+  private Money unitPrice;
+}
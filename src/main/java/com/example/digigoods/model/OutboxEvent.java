@@ -0,0 +1,65 @@
+package com.example.digigoods.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox event entity representing one domain event written together with the change it
+ * reports.
+ *
+ * <p>The offset is assigned when the relay publishes the event, so offsets follow publish
+ * order rather than insert order and consumers can resume after the last offset they saw.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+  @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq",
+      allocationSize = 50)
+  private Long id;
+
+  @Column(name = "event_type", nullable = false, length = 64)
+  private String eventType;
+
+  @Column(name = "aggregate_id", nullable = false)
+  private Long aggregateId;
+
+  @Column(nullable = false, columnDefinition = "text")
+  private String payload;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "event_offset", unique = true)
+  private Long eventOffset;
+
+  @Column(name = "published_at")
+  private LocalDateTime publishedAt;
+
+  /**
+   * Constructor for an event that has not been published yet.
+   *
+   * @param eventType the event type
+   * @param aggregateId the ID of the entity the event is about
+   * @param payload the event as JSON
+   * @param createdAt when the event happened
+   */
+  public OutboxEvent(String eventType, Long aggregateId, String payload,
+                     LocalDateTime createdAt) {
+    this(null, eventType, aggregateId, payload, createdAt, null, null);
+  }
+}
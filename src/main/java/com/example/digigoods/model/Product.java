@@ -1,12 +1,13 @@
 package com.example.digigoods.model;
 
+import com.example.digigoods.service.CatalogSnapshotListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +17,7 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table(name = "products")
+@EntityListeners(CatalogSnapshotListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,7 +31,7 @@ public class Product {
   private String name;
 
   @Column(nullable = false, precision = 10, scale = 2)
-  private BigDecimal price;
+  private Money price;
 
   @Column(nullable = false)
   private Integer stock;
@@ -0,0 +1,80 @@
+package com.example.digigoods.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Stock hold entity representing one reserved product line of a stock reservation.
+ */
+@Entity
+@Table(name = "stock_holds")
+@IdClass(StockHoldId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHold implements Persistable<StockHoldId> {
+
+  @Id
+  @Column(name = "reservation_id", length = 36)
+  private String reservationId;
+
+  @Id
+  @Column(name = "product_id")
+  private Long productId;
+
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(nullable = false)
+  private Integer quantity;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+
+  // Holds are always inserted fresh, so skip the select that merge() would issue
+  @Transient
+  @EqualsAndHashCode.Exclude
+  private boolean newHold = true;
+
+  /**
+   * Constructor for a hold that has not been persisted yet.
+   *
+   * @param reservationId the reservation ID
+   * @param productId the held product ID
+   * @param userId the ID of the user owning the reservation
+   * @param quantity the held quantity
+   * @param expiresAt when the hold expires
+   */
+  public StockHold(String reservationId, Long productId, Long userId, Integer quantity,
+                   LocalDateTime expiresAt) {
+    this(reservationId, productId, userId, quantity, expiresAt, true);
+  }
+
+  @Override
+  public StockHoldId getId() {
+    return new StockHoldId(reservationId, productId);
+  }
+
+  @Override
+  public boolean isNew() {
+    return newHold;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    newHold = false;
+  }
+}
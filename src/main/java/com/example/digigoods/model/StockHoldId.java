@@ -0,0 +1,18 @@
+package com.example.digigoods.model;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Composite primary key of {@link StockHold}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldId implements Serializable {
+
+  private String reservationId;
+  private Long productId;
+}
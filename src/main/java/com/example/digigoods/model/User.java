@@ -1,7 +1,9 @@
 package com.example.digigoods.model;
 
+import com.example.digigoods.security.UserStatusListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -15,6 +17,7 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table(name = "users")
+@EntityListeners(UserStatusListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
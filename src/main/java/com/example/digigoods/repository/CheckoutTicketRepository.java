@@ -0,0 +1,59 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.model.CheckoutTicket;
+import com.example.digigoods.model.CheckoutTicketStatus;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for CheckoutTicket entity.
+ */
+@Repository
+public interface CheckoutTicketRepository extends JpaRepository<CheckoutTicket, String> {
+
+  /**
+   * Find a ticket by its ID and lock it for update.
+   *
+   * @param id the ticket ID
+   * @return an Optional containing the locked ticket if found
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select t from CheckoutTicket t where t.id = :id")
+  Optional<CheckoutTicket> findByIdForUpdate(@Param("id") String id);
+
+  /**
+   * Find the ticket a user created with an idempotency key.
+   *
+   * @param userId the user ID
+   * @param idempotencyKey the idempotency key
+   * @return an Optional containing the ticket if found
+   */
+  Optional<CheckoutTicket> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+  /**
+   * Find the IDs of all tickets with the given status, oldest first.
+   *
+   * @param status the ticket status
+   * @return list of ticket IDs
+   */
+  @Query("select t.id from CheckoutTicket t where t.status = :status order by t.createdAt")
+  List<String> findIdsByStatus(@Param("status") CheckoutTicketStatus status);
+
+  /**
+   * Delete all finished tickets completed before the given time.
+   *
+   * @param cutoff the completion time before which tickets are deleted
+   * @return number of deleted rows
+   */
+  @Modifying
+  @Query("delete from CheckoutTicket t where t.completedAt < :cutoff")
+  int deleteAllCompletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,9 +1,11 @@
 package com.example.digigoods.repository;
 
+import com.example.digigoods.dto.DiscountView;
 import com.example.digigoods.model.Discount;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -27,4 +29,30 @@ public interface DiscountRepository extends JpaRepository<Discount, Long> {
    * @return list of discounts
    */
   List<Discount> findAllByCodeIn(List<String> codes);
+
+  /**
+   * Find all discounts as views, without their applicable products.
+   *
+   * @return list of discount views in ID order
+   */
+  @Query("select new com.example.digigoods.dto.DiscountView(d.id, d.code, d.percentage,"
+      + " d.type, d.validFrom, d.validUntil, d.remainingUses)"
+      + " from Discount d order by d.id")
+  List<DiscountView> findAllViews();
+
+  /**
+   * Find every (discount ID, product ID) pair from the applicable products join table.
+   *
+   * @return list of two-element rows holding the discount ID and the product ID
+   */
+  @Query("select d.id, p.id from Discount d join d.applicableProducts p")
+  List<Object[]> findAllApplicableProductLinks();
+
+  /**
+   * Find the ID and version of every discount.
+   *
+   * @return list of two-element rows holding the discount ID and its version
+   */
+  @Query("select d.id, d.version from Discount d")
+  List<Object[]> findAllVersions();
 }
@@ -0,0 +1,94 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.model.IdempotencyRecord;
+import com.example.digigoods.model.IdempotencyRecordId;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for IdempotencyRecord entity.
+ */
+@Repository
+public interface IdempotencyRecordRepository
+    extends JpaRepository<IdempotencyRecord, IdempotencyRecordId> {
+
+  /**
+   * Delete all records created before the given time.
+   *
+   * @param cutoff the creation time before which records are deleted
+   * @return number of deleted rows
+   */
+  @Modifying
+  @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+  int deleteAllCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+  /**
+   * Store the response of a claim that has not been completed yet.
+   *
+   * @param userId the ID of the user sending the checkout
+   * @param idempotencyKey the client-chosen idempotency key
+   * @param claimedAt the creation time of the claim
+   * @param message the response message
+   * @param finalPrice the final price of the order
+   * @return number of updated rows, 0 if the claim was taken over or already completed
+   */
+  @Modifying
+  @Query("update IdempotencyRecord r set r.responseMessage = :message,"
+      + " r.responseFinalPrice = :finalPrice"
+      + " where r.userId = :userId and r.idempotencyKey = :idempotencyKey"
+      + " and r.createdAt = :claimedAt and r.responseFinalPrice is null")
+  int complete(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey,
+               @Param("claimedAt") LocalDateTime claimedAt, @Param("message") String message,
+               @Param("finalPrice") BigDecimal finalPrice);
+
+  /**
+   * Move an uncompleted claim of a synchronous checkout to a new creation time, taking it
+   * over from its checkout.
+   *
+   * @param userId the ID of the user sending the checkout
+   * @param idempotencyKey the client-chosen idempotency key
+   * @param previousClaimedAt the creation time of the claim being taken over
+   * @param claimedAt the creation time of the new claim
+   * @param ticketId the ID of the ticket taking the claim over, or null for a synchronous
+   *                 checkout
+   * @return number of updated rows, 0 if the claim changed in the meantime
+   */
+  @Modifying
+  @Query("update IdempotencyRecord r set r.createdAt = :claimedAt, r.ticketId = :ticketId"
+      + " where r.userId = :userId and r.idempotencyKey = :idempotencyKey"
+      + " and r.createdAt = :previousClaimedAt and r.responseFinalPrice is null"
+      + " and r.ticketId is null")
+  int takeOver(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey,
+               @Param("previousClaimedAt") LocalDateTime previousClaimedAt,
+               @Param("claimedAt") LocalDateTime claimedAt, @Param("ticketId") String ticketId);
+
+  /**
+   * Delete the claim of a ticket.
+   *
+   * @param ticketId the ID of the ticket
+   * @return number of deleted rows
+   */
+  @Modifying
+  @Query("delete from IdempotencyRecord r where r.ticketId = :ticketId")
+  int deleteByTicketId(@Param("ticketId") String ticketId);
+
+  /**
+   * Delete a claim unless it was completed or taken over.
+   *
+   * @param userId the ID of the user sending the checkout
+   * @param idempotencyKey the client-chosen idempotency key
+   * @param claimedAt the creation time of the claim
+   * @return number of deleted rows
+   */
+  @Modifying
+  @Query("delete from IdempotencyRecord r"
+      + " where r.userId = :userId and r.idempotencyKey = :idempotencyKey"
+      + " and r.createdAt = :claimedAt and r.responseFinalPrice is null")
+  int release(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey,
+              @Param("claimedAt") LocalDateTime claimedAt);
+}
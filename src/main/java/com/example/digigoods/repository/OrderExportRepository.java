@@ -0,0 +1,27 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.dto.OrderExportLine;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Custom repository fragment for exporting orders without loading them at once.
+ */
+public interface OrderExportRepository {
+
+  /**
+   * Visit every order placed in a date range in ID order, reading rows from a
+   * forward-only cursor.
+   *
+   * <p>Product IDs and discount codes are read in the same pass, so only one order is
+   * held in memory at a time. Call this inside a transaction, otherwise some drivers
+   * ignore the fetch size and buffer the whole result.
+   *
+   * @param from the earliest order date, inclusive
+   * @param to the latest order date, exclusive
+   * @param fetchSize the number of rows fetched from the database per round trip
+   * @param action the action to run for each order
+   */
+  void forEachOrder(LocalDateTime from, LocalDateTime to, int fetchSize,
+                    Consumer<OrderExportLine> action);
+}
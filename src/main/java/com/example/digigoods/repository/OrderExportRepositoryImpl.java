@@ -0,0 +1,101 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.dto.OrderExportLine;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * JDBC implementation of {@link OrderExportRepository}.
+ */
+class OrderExportRepositoryImpl implements OrderExportRepository {
+
+  // Lines and discounts are unioned rather than both joined, so an order with
+  // n lines and m discounts yields n + m rows instead of n * m
+  private static final String SELECT_ORDERS_SQL =
+      "SELECT o.id, o.user_id, o.order_date, o.original_subtotal, o.final_price,"
+          + " l.product_id, l.quantity, l.discount_code"
+          + " FROM orders o"
+          + " LEFT JOIN ("
+          + "   SELECT ol.order_id, ol.product_id, ol.quantity,"
+          + "     CAST(NULL AS VARCHAR(50)) AS discount_code"
+          + "   FROM order_lines ol"
+          + "   UNION ALL"
+          + "   SELECT oad.order_id, CAST(NULL AS BIGINT), CAST(NULL AS INTEGER), d.code"
+          + "   FROM order_applied_discounts oad"
+          + "   JOIN discounts d ON d.id = oad.discount_id"
+          + " ) l ON l.order_id = o.id"
+          + " WHERE o.order_date >= ? AND o.order_date < ?"
+          + " ORDER BY o.id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  OrderExportRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void forEachOrder(LocalDateTime from, LocalDateTime to, int fetchSize,
+                           Consumer<OrderExportLine> action) {
+    OrderCollector collector = new OrderCollector(action);
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_ORDERS_SQL,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      statement.setTimestamp(1, Timestamp.valueOf(from));
+      statement.setTimestamp(2, Timestamp.valueOf(to));
+      return statement;
+    }, collector);
+    collector.flush();
+  }
+
+  /**
+   * Folds consecutive rows of the same order into one export line.
+   */
+  private static final class OrderCollector implements RowCallbackHandler {
+
+    private final Consumer<OrderExportLine> action;
+    private OrderExportLine current;
+
+    private OrderCollector(Consumer<OrderExportLine> action) {
+      this.action = action;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+      long orderId = rs.getLong("id");
+      if (current == null || current.getOrderId() != orderId) {
+        flush();
+        current = new OrderExportLine();
+        current.setOrderId(orderId);
+        current.setUserId(rs.getLong("user_id"));
+        current.setOrderDate(rs.getTimestamp("order_date").toLocalDateTime());
+        current.setOriginalSubtotal(rs.getBigDecimal("original_subtotal"));
+        current.setFinalPrice(rs.getBigDecimal("final_price"));
+      }
+      long productId = rs.getLong("product_id");
+      if (!rs.wasNull()) {
+        // One entry per unit, like the product IDs of the checkout request
+        for (int i = rs.getInt("quantity"); i > 0; i--) {
+          current.getProductIds().add(productId);
+        }
+      }
+      String discountCode = rs.getString("discount_code");
+      if (discountCode != null) {
+        current.getDiscountCodes().add(discountCode);
+      }
+    }
+
+    private void flush() {
+      if (current != null) {
+        action.accept(current);
+        current = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for OutboxEvent entity.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  /**
+   * Find the oldest unpublished events and lock them, skipping events another relay has
+   * already locked.
+   *
+   * @param pageable the batch size
+   * @return list of locked events, oldest first
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select e from OutboxEvent e where e.eventOffset is null order by e.id")
+  List<OutboxEvent> findUnpublishedForUpdate(Pageable pageable);
+
+  /**
+   * Find the highest offset assigned so far.
+   *
+   * @return the highest offset, or null if no event was published yet
+   */
+  @Query("select max(e.eventOffset) from OutboxEvent e")
+  Long findMaxOffset();
+
+  /**
+   * Find published events after an offset, in offset order.
+   *
+   * @param offset the offset after which to start
+   * @param pageable the batch size
+   * @return list of events
+   */
+  @Query("select e from OutboxEvent e where e.eventOffset > :offset order by e.eventOffset")
+  List<OutboxEvent> findPublishedAfter(@Param("offset") long offset, Pageable pageable);
+
+  /**
+   * Delete all events published before the given time, except the one with the highest
+   * offset, which the next offset is counted from.
+   *
+   * @param cutoff the publish time before which events are deleted
+   * @return number of deleted rows
+   */
+  @Modifying
+  @Query("delete from OutboxEvent e where e.publishedAt < :cutoff"
+      + " and e.eventOffset < (select max(l.eventOffset) from OutboxEvent l)")
+  int deleteAllPublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,22 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.model.Product;
+import java.util.function.Consumer;
+
+/**
+ * Custom repository fragment for reading the whole catalog without loading it at once.
+ */
+public interface ProductCatalogRepository {
+
+  /**
+   * Visit every product in ID order, reading rows from a forward-only cursor.
+   *
+   * <p>The products handed to {@code action} are detached copies, so the persistence
+   * context does not grow with the catalog. Call this inside a transaction, otherwise
+   * some drivers ignore the fetch size and buffer the whole result.
+   *
+   * @param fetchSize the number of rows fetched from the database per round trip
+   * @param action the action to run for each product
+   */
+  void forEachProduct(int fetchSize, Consumer<Product> action);
+}
@@ -0,0 +1,38 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * JDBC implementation of {@link ProductCatalogRepository}.
+ */
+class ProductCatalogRepositoryImpl implements ProductCatalogRepository {
+
+  private static final String SELECT_ALL_SQL =
+      "SELECT id, name, price, stock FROM products ORDER BY id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  ProductCatalogRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void forEachProduct(int fetchSize, Consumer<Product> action) {
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(SELECT_ALL_SQL,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      return statement;
+    }, (RowCallbackHandler) rs -> action.accept(new Product(
+        rs.getLong("id"),
+        rs.getString("name"),
+        Money.of(rs.getBigDecimal("price")),
+        rs.getInt("stock"))));
+  }
+}
@@ -2,6 +2,7 @@ package com.example.digigoods.repository;
 
 import com.example.digigoods.model.Product;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,7 +10,8 @@ import org.springframework.stereotype.Repository;
  * Repository interface for Product entity.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository,
+    ProductCatalogRepository {
 
   /**
    * Find all products by their IDs.
@@ -18,4 +20,13 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
    * @return list of products
    */
   List<Product> findAllByIdIn(List<Long> ids);
+
+  /**
+   * Find the products that follow a given ID, in ID order.
+   *
+   * @param id the ID to start after
+   * @param limit the maximum number of products to return
+   * @return list of products
+   */
+  List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
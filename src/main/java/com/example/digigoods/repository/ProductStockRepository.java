@@ -0,0 +1,41 @@
+package com.example.digigoods.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom repository fragment for atomic stock updates on the products table.
+ */
+public interface ProductStockRepository {
+
+  /**
+   * Decrement stock for all given products in a single batched statement.
+   *
+   * <p>Each row is only updated when it still holds enough stock, so concurrent
+   * checkouts can never drive stock below zero. Rows that could not be updated are
+   * reported back and left untouched; the caller decides whether to roll back.
+   *
+   * @param quantities requested quantity per product ID
+   * @return IDs of products whose stock was insufficient or that do not exist
+   */
+  List<Long> decrementStock(Map<Long, Integer> quantities);
+
+  /**
+   * Read the current stock of the given products from the table.
+   *
+   * <p>Unlike loading the products, this is never answered from the persistence context, so
+   * it sees stock that changed after they were loaded in the same transaction.
+   *
+   * @param productIds the product IDs
+   * @return stock per product ID, without the IDs that do not exist
+   */
+  Map<Long, Integer> findCurrentStock(Collection<Long> productIds);
+
+  /**
+   * Return stock for all given products in a single batched statement.
+   *
+   * @param quantities quantity to add back per product ID
+   */
+  void incrementStock(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,83 @@
+package com.example.digigoods.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of {@link ProductStockRepository}.
+ */
+class ProductStockRepositoryImpl implements ProductStockRepository {
+
+  private static final String DECREMENT_STOCK_SQL =
+      "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+  private static final String INCREMENT_STOCK_SQL =
+      "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public List<Long> decrementStock(Map<Long, Integer> quantities) {
+    if (quantities.isEmpty()) {
+      return List.of();
+    }
+
+    // Update rows in ID order so concurrent checkouts lock them in the same order
+    List<Long> productIds = sortedIds(quantities);
+    List<Object[]> batchArgs = productIds.stream()
+        .map(id -> new Object[] {quantities.get(id), id, quantities.get(id)})
+        .toList();
+
+    int[] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batchArgs);
+
+    List<Long> failedIds = new ArrayList<>();
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == 0) {
+        failedIds.add(productIds.get(i));
+      }
+    }
+    return failedIds;
+  }
+
+  @Override
+  public Map<Long, Integer> findCurrentStock(Collection<Long> productIds) {
+    Map<Long, Integer> stock = new HashMap<>();
+    if (productIds.isEmpty()) {
+      return stock;
+    }
+
+    String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+    jdbcTemplate.query("SELECT id, stock FROM products WHERE id IN (" + placeholders + ")",
+        row -> {
+          stock.put(row.getLong("id"), row.getInt("stock"));
+        },
+        productIds.toArray());
+    return stock;
+  }
+
+  @Override
+  public void incrementStock(Map<Long, Integer> quantities) {
+    if (quantities.isEmpty()) {
+      return;
+    }
+
+    List<Object[]> batchArgs = sortedIds(quantities).stream()
+        .map(id -> new Object[] {quantities.get(id), id})
+        .toList();
+
+    jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, batchArgs);
+  }
+
+  private List<Long> sortedIds(Map<Long, Integer> quantities) {
+    return new ArrayList<>(new TreeMap<>(quantities).keySet());
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.digigoods.repository;
+
+import com.example.digigoods.model.StockHold;
+import com.example.digigoods.model.StockHoldId;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for StockHold entity.
+ */
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, StockHoldId> {
+
+  /**
+   * Find all held lines of a reservation.
+   *
+   * @param reservationId the reservation ID
+   * @return list of stock holds
+   */
+  List<StockHold> findAllByReservationId(String reservationId);
+
+  /**
+   * Delete all held lines of a reservation.
+   *
+   * @param reservationId the reservation ID
+   * @return number of deleted rows
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from StockHold h where h.reservationId = :reservationId")
+  int deleteAllByReservationId(@Param("reservationId") String reservationId);
+}
@@ -0,0 +1,25 @@
+package com.example.digigoods.security;
+
+import java.time.Instant;
+import lombok.Value;
+
+/**
+ * Principal built from the verified claims of a JWT token.
+ */
+@Value
+public class AuthenticatedUser {
+
+  Long userId;
+  String username;
+  Instant expiresAt;
+
+  /**
+   * Check whether the token this principal was read from has expired.
+   *
+   * @param now the current time
+   * @return true if expired, false otherwise
+   */
+  public boolean isExpired(Instant now) {
+    return !now.isBefore(expiresAt);
+  }
+}
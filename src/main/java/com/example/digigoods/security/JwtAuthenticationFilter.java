@@ -1,5 +1,6 @@
 package com.example.digigoods.security;
 
+import com.example.digigoods.logging.RequestLoggingFilter;
 import com.example.digigoods.service.JwtService;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
@@ -9,9 +10,13 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -19,16 +24,26 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * JWT authentication filter.
+ *
+ * <p>In stateless mode ({@code jwt.stateless}, the default) the signed claims are trusted
+ * for the lifetime of the token and no user is loaded from the database; deleted users are
+ * only rejected when the {@link UserStatusCache} is enabled.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final JwtService jwtService;
   private final UserDetailsService userDetailsService;
+  private final UserStatusCache userStatusCache;
+  private final boolean stateless;
 
-  public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+  public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+                                 UserStatusCache userStatusCache,
+                                 @Value("${jwt.stateless:true}") boolean stateless) {
     this.jwtService = jwtService;
     this.userDetailsService = userDetailsService;
+    this.userStatusCache = userStatusCache;
+    this.stateless = stateless;
   }
 
   @Override
@@ -36,36 +51,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                   FilterChain filterChain) throws ServletException, IOException {
     final String requestTokenHeader = request.getHeader("Authorization");
 
-    String username = null;
-    String jwtToken = null;
+    AuthenticatedUser authenticatedUser = null;
 
     if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-      jwtToken = requestTokenHeader.substring(7);
+      String jwtToken = requestTokenHeader.substring(7);
       try {
-        username = jwtService.extractUsername(jwtToken);
+        // Verified once here; controllers read the claims from the principal
+        authenticatedUser = jwtService.verify(jwtToken);
       } catch (IllegalArgumentException e) {
-        logger.error("Unable to get JWT Token");
+        // Client errors, logged below ERROR so the prod profile can rate limit them
+        logger.warn("Unable to get JWT Token");
       } catch (ExpiredJwtException e) {
-        logger.error("JWT Token has expired");
+        logger.warn("JWT Token has expired");
       } catch (MalformedJwtException e) {
-        logger.error("JWT Token is malformed");
+        logger.warn("JWT Token is malformed");
       } catch (SignatureException e) {
-        logger.error("JWT Token signature is invalid");
+        logger.warn("JWT Token signature is invalid");
       }
     }
 
-    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-      if (jwtService.validateToken(jwtToken, userDetails.getUsername())) {
-        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-            new UsernamePasswordAuthenticationToken(
-                userDetails, null, userDetails.getAuthorities());
-        usernamePasswordAuthenticationToken
-            .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
-      }
+    if (authenticatedUser != null
+        && SecurityContextHolder.getContext().getAuthentication() == null
+        && isActive(authenticatedUser)) {
+      UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
+          new UsernamePasswordAuthenticationToken(
+              authenticatedUser, null, authorities(authenticatedUser));
+      usernamePasswordAuthenticationToken
+          .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+      SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+      MDC.put(RequestLoggingFilter.USER, authenticatedUser.getUsername());
     }
     filterChain.doFilter(request, response);
   }
+
+  private boolean isActive(AuthenticatedUser authenticatedUser) {
+    if (!userStatusCache.isActive(authenticatedUser.getUserId())) {
+      logger.warn("JWT Token belongs to a deleted user");
+      return false;
+    }
+    return true;
+  }
+
+  private Collection<? extends GrantedAuthority> authorities(AuthenticatedUser authenticatedUser) {
+    if (stateless) {
+      // Users carry no roles, so the claims hold everything the request needs
+      return List.of();
+    }
+    return userDetailsService.loadUserByUsername(authenticatedUser.getUsername())
+        .getAuthorities();
+  }
 }
@@ -0,0 +1,38 @@
+package com.example.digigoods.security;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt password encoder that asks for a rehash whenever a stored hash was made with a
+ * different cost factor than the configured one.
+ *
+ * <p>{@link BCryptPasswordEncoder#upgradeEncoding(String)} only upgrades hashes with a
+ * lower cost. Lowering {@code login.bcrypt.strength} to take load off logins would then
+ * never reach the hashes that are already stored, so hashes with a higher cost are
+ * rehashed as well.
+ */
+public class RehashingBcryptPasswordEncoder extends BCryptPasswordEncoder {
+
+  private static final Pattern BCRYPT_PREFIX = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+  private final int strength;
+
+  public RehashingBcryptPasswordEncoder(int strength) {
+    super(strength);
+    this.strength = strength;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+    Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+    if (!matcher.find()) {
+      return super.upgradeEncoding(encodedPassword);
+    }
+    return Integer.parseInt(matcher.group(1)) != strength;
+  }
+}
@@ -0,0 +1,21 @@
+package com.example.digigoods.security;
+
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * User details that also carry the user ID, so a login needs only one user lookup.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class UserAccount extends User {
+
+  private final Long userId;
+
+  public UserAccount(Long userId, String username, String password) {
+    super(username, password, List.of());
+    this.userId = userId;
+  }
+}
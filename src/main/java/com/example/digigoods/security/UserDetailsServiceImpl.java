@@ -2,17 +2,21 @@ package com.example.digigoods.security;
 
 import com.example.digigoods.model.User;
 import com.example.digigoods.repository.UserRepository;
-import java.util.ArrayList;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * User details service implementation.
+ *
+ * <p>Also stores rehashed passwords, which Spring Security produces on a successful login
+ * when the stored hash was made with a different BCrypt cost factor than the configured one.
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
   private final UserRepository userRepository;
 
@@ -21,14 +25,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
     User user = userRepository.findByUsername(username)
         .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-    return new org.springframework.security.core.userdetails.User(
-        user.getUsername(),
-        user.getPassword(),
-        new ArrayList<>()
-    );
+    return new UserAccount(user.getId(), user.getUsername(), user.getPassword());
+  }
+
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+    User user = userRepository.findByUsername(userDetails.getUsername())
+        .orElseThrow(() -> new UsernameNotFoundException(
+            "User not found: " + userDetails.getUsername()));
+    user.setPassword(newPassword);
+
+    return new UserAccount(user.getId(), user.getUsername(), newPassword);
   }
 }
@@ -0,0 +1,82 @@
+package com.example.digigoods.security;
+
+import com.example.digigoods.repository.UserRepository;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Small cache of whether users still exist, for stateless request authentication.
+ *
+ * <p>When disabled, every user named by a valid token is treated as active for the
+ * lifetime of the token. When enabled, the answer is looked up once per user and kept
+ * for {@code ttl-seconds}, or until the user is updated or deleted through JPA.
+ */
+@Component
+public class UserStatusCache {
+
+  private final UserRepository userRepository;
+  private final boolean enabled;
+  private final long ttlMillis;
+  private final int maxEntries;
+  private final Map<Long, Status> statuses = new ConcurrentHashMap<>();
+
+  public UserStatusCache(UserRepository userRepository,
+                         @Value("${jwt.user-status-cache.enabled:false}") boolean enabled,
+                         @Value("${jwt.user-status-cache.ttl-seconds:30}") long ttlSeconds,
+                         @Value("${jwt.user-status-cache.max-entries:10000}") int maxEntries) {
+    this.userRepository = userRepository;
+    this.enabled = enabled;
+    this.ttlMillis = ttlSeconds * 1000;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Check whether a user may still authenticate.
+   *
+   * @param userId the user ID
+   * @return true if the user is active or the cache is disabled, false otherwise
+   */
+  public boolean isActive(Long userId) {
+    if (!enabled) {
+      return true;
+    }
+
+    long now = System.currentTimeMillis();
+    Status status = statuses.get(userId);
+    if (status == null || status.expiresAtMillis <= now) {
+      if (statuses.size() >= maxEntries) {
+        statuses.values().removeIf(s -> s.expiresAtMillis <= now);
+        if (statuses.size() >= maxEntries) {
+          statuses.clear();
+        }
+      }
+      status = new Status(userRepository.existsById(userId), now + ttlMillis);
+      statuses.put(userId, status);
+    }
+    return status.active;
+  }
+
+  /**
+   * Forget the cached status of a user, so the next request looks it up again.
+   *
+   * @param userId the user ID
+   */
+  public void invalidate(Long userId) {
+    if (userId != null) {
+      statuses.remove(userId);
+    }
+  }
+
+  private static final class Status {
+
+    private final boolean active;
+    private final long expiresAtMillis;
+
+    private Status(boolean active, long expiresAtMillis) {
+      this.active = active;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+}
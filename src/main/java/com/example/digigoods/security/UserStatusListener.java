@@ -0,0 +1,26 @@
+package com.example.digigoods.security;
+
+import com.example.digigoods.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that drops a user's cached status when the user changes.
+ */
+public class UserStatusListener {
+
+  // Resolved lazily: the cache depends on a repository, which needs the JPA setup
+  // that creates this listener
+  private final ObjectProvider<UserStatusCache> userStatusCache;
+
+  public UserStatusListener(ObjectProvider<UserStatusCache> userStatusCache) {
+    this.userStatusCache = userStatusCache;
+  }
+
+  @PostUpdate
+  @PostRemove
+  void userChanged(User user) {
+    userStatusCache.ifAvailable(cache -> cache.invalidate(user.getId()));
+  }
+}
@@ -0,0 +1,462 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.CheckoutTicketResponse;
+import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.CheckoutCapacityExceededException;
+import com.example.digigoods.exception.CheckoutRejectedException;
+import com.example.digigoods.exception.CheckoutTicketNotFoundException;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
+import com.example.digigoods.exception.ExcessiveDiscountException;
+import com.example.digigoods.exception.IdempotencyKeyConflictException;
+import com.example.digigoods.exception.InsufficientStockException;
+import com.example.digigoods.exception.InvalidDiscountException;
+import com.example.digigoods.exception.InvalidReservationException;
+import com.example.digigoods.exception.ProductNotFoundException;
+import com.example.digigoods.exception.UnauthorizedAccessException;
+import com.example.digigoods.model.CheckoutTicket;
+import com.example.digigoods.model.CheckoutTicketStatus;
+import com.example.digigoods.repository.CheckoutTicketRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Accepts checkouts as tickets and processes them in the background.
+ *
+ * <p>A submitted checkout is only checked for what is cheap to check, stored as a
+ * {@code PENDING} row in {@code checkout_tickets} and queued. A fixed pool of workers drains
+ * the queue at the rate the database sustains. Each worker holds a pooled connection while
+ * it works, so by default there are {@code checkout.async.connection-headroom} fewer workers
+ * than connections, which leaves connections for synchronous checkouts, lease refills,
+ * ticket polling and the scheduled sweeps. Each ticket is locked, checked out and marked
+ * {@code COMPLETED} in one transaction, so a crash never leaves an order without a completed
+ * ticket or the other way round. Pending tickets are queued again at startup and by the
+ * periodic sweep, which also deletes finished tickets after
+ * {@code checkout.async.retention-hours}.
+ *
+ * <p>A checkout that failed for a transient reason, such as a connection or lock timeout,
+ * stays {@code PENDING} and is retried after {@code retry-delay-millis}, doubled with each
+ * attempt. Only after {@code max-attempts} is its ticket failed, with a 503 that tells the
+ * client to submit it again.
+ *
+ * <p>An idempotency key is claimed through {@link CheckoutIdempotencyService} in the
+ * transaction that stores the ticket, so it is shared with synchronous checkouts. A key
+ * already used by a completed synchronous checkout gets a ticket that is completed at once
+ * with that checkout's response, and no second order.
+ *
+ * <p>When the queue is full, new checkouts are rejected with
+ * {@link CheckoutCapacityExceededException}.
+ */
+@Service
+public class AsyncCheckoutService {
+
+  private static final Logger log = LoggerFactory.getLogger(AsyncCheckoutService.class);
+  private static final long IDLE_POLL_MILLIS = 100;
+
+  private final CheckoutService checkoutService;
+  private final CheckoutTicketRepository checkoutTicketRepository;
+  private final CheckoutIdempotencyService checkoutIdempotencyService;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int workerCount;
+  private final Duration retention;
+  private final int maxAttempts;
+  private final long retryDelayMillis;
+  private final Map<String, Retry> retries = new ConcurrentHashMap<>();
+  private final BlockingQueue<String> queue;
+  private final Set<String> queued = ConcurrentHashMap.newKeySet();
+  private final List<Thread> workers = new ArrayList<>();
+  private volatile boolean running;
+
+  public AsyncCheckoutService(CheckoutService checkoutService,
+                              CheckoutTicketRepository checkoutTicketRepository,
+                              CheckoutIdempotencyService checkoutIdempotencyService,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${checkout.async.enabled:false}") boolean enabled,
+                              @Value("${checkout.async.workers:0}") int workerCount,
+                              @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+                              int connectionPoolSize,
+                              @Value("${checkout.async.connection-headroom:2}")
+                              int connectionHeadroom,
+                              @Value("${checkout.async.queue-capacity:1000}") int queueCapacity,
+                              @Value("${checkout.async.retention-hours:24}")
+                              long retentionHours,
+                              @Value("${checkout.async.max-attempts:5}") int maxAttempts,
+                              @Value("${checkout.async.retry-delay-millis:500}")
+                              long retryDelayMillis) {
+    this.checkoutService = checkoutService;
+    this.checkoutTicketRepository = checkoutTicketRepository;
+    this.checkoutIdempotencyService = checkoutIdempotencyService;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.workerCount = workerCount > 0
+        ? workerCount
+        : Math.max(1, connectionPoolSize - connectionHeadroom);
+    this.retention = Duration.ofHours(retentionHours);
+    this.maxAttempts = maxAttempts;
+    this.retryDelayMillis = retryDelayMillis;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    Gauge.builder("checkout.async.queue.size", queue, BlockingQueue::size)
+        .description("Asynchronous checkouts waiting for a worker")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Check whether asynchronous checkout is enabled.
+   *
+   * @return true if checkouts may be submitted as tickets
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start the workers and queue the tickets left pending by a previous run.
+   */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    for (int i = 0; i < workerCount; i++) {
+      Thread worker = new Thread(this::runWorker, "checkout-async-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+    queuePending();
+  }
+
+  /**
+   * Stop the workers; tickets still queued stay pending for the next start.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  /**
+   * Accept a checkout for background processing.
+   *
+   * <p>With an idempotency key, a repeated submission returns the ticket of the first one,
+   * and a key already used by a synchronous checkout returns its response as a completed
+   * ticket.
+   *
+   * @param request the checkout request
+   * @param userId the ID of the authenticated user
+   * @param idempotencyKey the optional client-chosen idempotency key
+   * @return the pending ticket
+   * @throws UnauthorizedAccessException if the request is for another user
+   * @throws IdempotencyKeyConflictException if the key was used for a different checkout or
+   *                                         a synchronous checkout with it is still running
+   * @throws CheckoutCapacityExceededException if the queue is full
+   */
+  public CheckoutTicketResponse submit(CheckoutRequest request, Long userId,
+                                       String idempotencyKey) {
+    if (!request.getUserId().equals(userId)) {
+      throw new UnauthorizedAccessException("User cannot place order for another user");
+    }
+    String requestJson = toJson(request);
+    if (idempotencyKey != null) {
+      CheckoutIdempotencyService.validateKey(idempotencyKey);
+      CheckoutTicket existing = checkoutTicketRepository
+          .findByUserIdAndIdempotencyKey(userId, idempotencyKey).orElse(null);
+      if (existing != null) {
+        return replay(existing, requestJson);
+      }
+    }
+    if (queue.remainingCapacity() == 0) {
+      throw new CheckoutCapacityExceededException();
+    }
+
+    CheckoutTicket ticket = new CheckoutTicket(UUID.randomUUID().toString(), userId,
+        idempotencyKey, requestJson, LocalDateTime.now());
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        if (idempotencyKey != null) {
+          OrderResponse ordered = checkoutIdempotencyService.claimForTicket(idempotencyKey,
+              request, userId, ticket.getId());
+          if (ordered != null) {
+            ticket.setStatus(CheckoutTicketStatus.COMPLETED);
+            ticket.setMessage(ordered.getMessage());
+            ticket.setFinalPrice(ordered.getFinalPrice());
+            ticket.setCompletedAt(LocalDateTime.now());
+          }
+        }
+        checkoutTicketRepository.save(ticket);
+      });
+    } catch (DataIntegrityViolationException e) {
+      // A concurrent submission with the same idempotency key won; without a ticket, it was
+      // a synchronous checkout that is still running
+      return replay(checkoutTicketRepository
+          .findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+          .orElseThrow(CheckoutIdempotencyService::stillRunning), requestJson);
+    }
+
+    if (ticket.getStatus() == CheckoutTicketStatus.PENDING && !enqueue(ticket.getId())) {
+      transactionTemplate.executeWithoutResult(status -> {
+        checkoutIdempotencyService.releaseTicket(ticket.getId());
+        checkoutTicketRepository.deleteById(ticket.getId());
+      });
+      throw new CheckoutCapacityExceededException();
+    }
+    return toResponse(ticket);
+  }
+
+  /**
+   * Get the status of a ticket.
+   *
+   * @param ticketId the ticket ID
+   * @param userId the ID of the authenticated user
+   * @return the ticket status
+   * @throws CheckoutTicketNotFoundException if the ticket does not exist or belongs to
+   *                                         another user
+   */
+  public CheckoutTicketResponse getTicket(String ticketId, Long userId) {
+    return checkoutTicketRepository.findById(ticketId)
+        .filter(ticket -> ticket.getUserId().equals(userId))
+        .map(AsyncCheckoutService::toResponse)
+        .orElseThrow(() -> new CheckoutTicketNotFoundException(ticketId));
+  }
+
+  /**
+   * Queue pending tickets that are not queued yet and delete old finished tickets.
+   */
+  @Scheduled(fixedDelayString = "${checkout.async.sweep-millis:60000}",
+      initialDelayString = "${checkout.async.sweep-millis:60000}")
+  public void sweep() {
+    if (!running) {
+      return;
+    }
+    queuePending();
+    Integer deleted = transactionTemplate.execute(status ->
+        checkoutTicketRepository.deleteAllCompletedBefore(LocalDateTime.now().minus(retention)));
+    if (deleted != null && deleted > 0) {
+      log.debug("Deleted {} finished checkout tickets", deleted);
+    }
+  }
+
+  /**
+   * Queue the tickets whose transient failure is due for another attempt.
+   */
+  @Scheduled(fixedDelayString = "${checkout.async.retry-delay-millis:500}")
+  public void retryTransientFailures() {
+    long now = System.currentTimeMillis();
+    retries.forEach((ticketId, retry) -> {
+      if (retry.dueAtMillis() <= now) {
+        enqueue(ticketId);
+      }
+    });
+  }
+
+  private void queuePending() {
+    for (String ticketId : checkoutTicketRepository.findIdsByStatus(
+        CheckoutTicketStatus.PENDING)) {
+      if (queue.remainingCapacity() == 0) {
+        // The rest is picked up by a later sweep
+        return;
+      }
+      enqueue(ticketId);
+    }
+  }
+
+  private boolean enqueue(String ticketId) {
+    if (!queued.add(ticketId)) {
+      return true;
+    }
+    if (!queue.offer(ticketId)) {
+      queued.remove(ticketId);
+      return false;
+    }
+    return true;
+  }
+
+  private void runWorker() {
+    while (running) {
+      String ticketId;
+      try {
+        // Wake up periodically so stop() does not have to interrupt a worker inside JDBC
+        ticketId = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (ticketId != null) {
+        try {
+          process(ticketId);
+        } finally {
+          queued.remove(ticketId);
+        }
+      }
+    }
+  }
+
+  void process(String ticketId) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        CheckoutTicket ticket = checkoutTicketRepository.findByIdForUpdate(ticketId)
+            .orElse(null);
+        if (ticket == null || ticket.getStatus() != CheckoutTicketStatus.PENDING) {
+          // Another node got to it first
+          return;
+        }
+        OrderResponse response = checkoutService.processCheckout(
+            fromJson(ticket.getRequestJson()), ticket.getUserId());
+        ticket.setStatus(CheckoutTicketStatus.COMPLETED);
+        ticket.setMessage(response.getMessage());
+        ticket.setFinalPrice(response.getFinalPrice());
+        ticket.setCompletedAt(LocalDateTime.now());
+      });
+      retries.remove(ticketId);
+    } catch (RuntimeException e) {
+      if (isTransient(e) && scheduleRetry(ticketId)) {
+        log.info("Asynchronous checkout {} failed transiently, retrying", ticketId, e);
+        return;
+      }
+      retries.remove(ticketId);
+      fail(ticketId, e, isTransient(e) ? HttpStatus.SERVICE_UNAVAILABLE : errorStatusOf(e));
+    }
+  }
+
+  /**
+   * Leave the ticket pending for another attempt, unless it has none left.
+   */
+  private boolean scheduleRetry(String ticketId) {
+    Retry retry = retries.compute(ticketId, (id, previous) -> {
+      int attempts = previous == null ? 1 : previous.attempts() + 1;
+      long delay = retryDelayMillis << Math.min(attempts - 1, 10);
+      return new Retry(attempts, System.currentTimeMillis() + delay);
+    });
+    return retry.attempts() < maxAttempts;
+  }
+
+  // Failures that say nothing about the checkout itself, so trying again may succeed
+  static boolean isTransient(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TransientDataAccessException
+          || cause instanceof RecoverableDataAccessException
+          || cause instanceof CannotCreateTransactionException
+          || cause instanceof SQLTransientException
+          || cause instanceof SQLRecoverableException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void fail(String ticketId, RuntimeException cause, HttpStatus errorStatus) {
+    if (errorStatus.is5xxServerError()) {
+      log.warn("Asynchronous checkout {} failed", ticketId, cause);
+    }
+    try {
+      transactionTemplate.executeWithoutResult(status ->
+          checkoutTicketRepository.findByIdForUpdate(ticketId)
+              .filter(ticket -> ticket.getStatus() == CheckoutTicketStatus.PENDING)
+              .ifPresent(ticket -> {
+                ticket.setStatus(CheckoutTicketStatus.FAILED);
+                ticket.setErrorStatus(errorStatus.value());
+                ticket.setMessage(messageOf(cause, errorStatus));
+                ticket.setCompletedAt(LocalDateTime.now());
+              }));
+    } catch (RuntimeException e) {
+      // Left pending, so the next sweep retries it
+      log.warn("Could not record the failure of checkout ticket {}", ticketId, e);
+    }
+  }
+
+  private static String messageOf(RuntimeException cause, HttpStatus errorStatus) {
+    if (errorStatus == HttpStatus.SERVICE_UNAVAILABLE) {
+      return "Checkout could not be processed, please submit it again";
+    }
+    return errorStatus.is5xxServerError() ? "An unexpected error occurred" : cause.getMessage();
+  }
+
+  // The statuses GlobalExceptionHandler would have answered a synchronous checkout with
+  private static HttpStatus errorStatusOf(RuntimeException e) {
+    if (e instanceof CheckoutRejectedException rejection) {
+      return rejection.hasReason(Reason.PRODUCT_NOT_FOUND)
+          ? HttpStatus.NOT_FOUND
+          : HttpStatus.BAD_REQUEST;
+    }
+    if (e instanceof ProductNotFoundException) {
+      return HttpStatus.NOT_FOUND;
+    }
+    if (e instanceof InvalidDiscountException || e instanceof ExcessiveDiscountException
+        || e instanceof InsufficientStockException || e instanceof InvalidReservationException) {
+      return HttpStatus.BAD_REQUEST;
+    }
+    if (e instanceof UnauthorizedAccessException) {
+      return HttpStatus.FORBIDDEN;
+    }
+    return HttpStatus.INTERNAL_SERVER_ERROR;
+  }
+
+  private record Retry(int attempts, long dueAtMillis) {
+  }
+
+  private static CheckoutTicketResponse replay(CheckoutTicket ticket, String requestJson) {
+    if (!ticket.getRequestJson().equals(requestJson)) {
+      throw new IdempotencyKeyConflictException(
+          "Idempotency-Key was already used for a different checkout");
+    }
+    return toResponse(ticket);
+  }
+
+  private static CheckoutTicketResponse toResponse(CheckoutTicket ticket) {
+    return new CheckoutTicketResponse(ticket.getId(), ticket.getStatus(), ticket.getMessage(),
+        ticket.getFinalPrice(), ticket.getErrorStatus());
+  }
+
+  private String toJson(CheckoutRequest request) {
+    try {
+      return objectMapper.writeValueAsString(request);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize checkout request", e);
+    }
+  }
+
+  private CheckoutRequest fromJson(String requestJson) {
+    try {
+      return objectMapper.readValue(requestJson, CheckoutRequest.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not read checkout request", e);
+    }
+  }
+}
@@ -2,10 +2,10 @@ package com.example.digigoods.service;
 
 import com.example.digigoods.dto.LoginRequest;
 import com.example.digigoods.dto.LoginResponse;
-import com.example.digigoods.model.User;
-import com.example.digigoods.repository.UserRepository;
+import com.example.digigoods.security.UserAccount;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.stereotype.Service;
 
@@ -17,14 +17,11 @@ public class AuthService {
 
   private final AuthenticationManager authenticationManager;
   private final JwtService jwtService;
-  private final UserRepository userRepository;
 
   public AuthService(AuthenticationManager authenticationManager,
-                     JwtService jwtService,
-                     UserRepository userRepository) {
+                     JwtService jwtService) {
     this.authenticationManager = authenticationManager;
     this.jwtService = jwtService;
-    this.userRepository = userRepository;
   }
 
   /**
@@ -35,18 +32,18 @@ public class AuthService {
    * @throws AuthenticationException if authentication fails
    */
   public LoginResponse login(LoginRequest loginRequest) {
-    authenticationManager.authenticate(
+    Authentication authentication = authenticationManager.authenticate(
         new UsernamePasswordAuthenticationToken(
             loginRequest.getUsername(),
             loginRequest.getPassword()
         )
     );
 
-    User user = userRepository.findByUsername(loginRequest.getUsername())
-        .orElseThrow(() -> new RuntimeException("User not found"));
+    // The authenticated principal already holds the user, no need to look it up again
+    UserAccount account = (UserAccount) authentication.getPrincipal();
 
-    String token = jwtService.generateToken(user.getId(), user.getUsername());
+    String token = jwtService.generateToken(account.getUserId(), account.getUsername());
 
-    return new LoginResponse(token, user.getId(), user.getUsername());
+    return new LoginResponse(token, account.getUserId(), account.getUsername());
   }
 }
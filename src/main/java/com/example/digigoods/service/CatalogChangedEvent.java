@@ -0,0 +1,36 @@
+package com.example.digigoods.service;
+
+/**
+ * Published when products or discounts change in a way their entities do not report,
+ * for example through a bulk or JDBC update.
+ */
+public class CatalogChangedEvent {
+
+  private final boolean stockOnly;
+
+  public CatalogChangedEvent() {
+    this(false);
+  }
+
+  private CatalogChangedEvent(boolean stockOnly) {
+    this.stockOnly = stockOnly;
+  }
+
+  /**
+   * Create an event for a change of stock or remaining uses only.
+   *
+   * @return the event
+   */
+  public static CatalogChangedEvent stockOnly() {
+    return new CatalogChangedEvent(true);
+  }
+
+  /**
+   * Check whether only stock or remaining uses changed.
+   *
+   * @return true if nothing else changed
+   */
+  public boolean isStockOnly() {
+    return stockOnly;
+  }
+}
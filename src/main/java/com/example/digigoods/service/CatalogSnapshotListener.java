@@ -0,0 +1,25 @@
+package com.example.digigoods.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that discards catalog snapshots when a catalog entity changes.
+ */
+public class CatalogSnapshotListener {
+
+  private final ObjectProvider<CatalogSnapshots> catalogSnapshots;
+
+  public CatalogSnapshotListener(ObjectProvider<CatalogSnapshots> catalogSnapshots) {
+    this.catalogSnapshots = catalogSnapshots;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void catalogChanged(Object entity) {
+    catalogSnapshots.ifAvailable(CatalogSnapshots::invalidate);
+  }
+}
@@ -0,0 +1,257 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.datasource.ReadConsistency;
+import com.example.digigoods.dto.DiscountView;
+import com.example.digigoods.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Pre-serialized, versioned snapshots of the public catalog responses.
+ *
+ * <p>Each snapshot holds the JSON body, a gzip copy of it and a strong ETag, so repeated
+ * requests are answered without touching the database or Jackson. Snapshots belong to a
+ * generation that is swapped out atomically whenever a product or discount changes. A
+ * snapshot being built while a change commits is stored in the generation it started
+ * from, which is already discarded, so it can never outlive the change. Snapshots are only
+ * loaded from read replicas that have replayed the last change.
+ *
+ * <p>Stock and remaining uses change with every checkout, so those changes do not discard
+ * anything. They only mark the snapshots built before them as stale, and a stale snapshot
+ * is rebuilt once it is {@code stock-refresh-millis} old, so each page is rebuilt at most
+ * that often however many checkouts run. Changes on other nodes are not seen here at all:
+ * every snapshot is rebuilt once it is {@code ttl-millis} old.
+ *
+ * <p>At most {@code max-entries} snapshots are kept. Beyond that, the least used one is
+ * evicted to make room, so arbitrary cursors cannot push out the pages most clients read.
+ */
+@Component
+public class CatalogSnapshots {
+
+  private final ObjectMapper objectMapper;
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final long stockRefreshMillis;
+  private volatile Generation generation = new Generation();
+  // Changes made before startup are not tracked, so start out as if the catalog just changed
+  private volatile long changedAtMillis = System.currentTimeMillis();
+  private volatile long stockChangedAtMillis;
+
+  public CatalogSnapshots(ObjectMapper objectMapper,
+                          @Value("${catalog.snapshot.max-entries:256}") int maxEntries,
+                          @Value("${catalog.snapshot.ttl-millis:5000}") long ttlMillis,
+                          @Value("${catalog.snapshot.stock-refresh-millis:1000}")
+                          long stockRefreshMillis) {
+    this.objectMapper = objectMapper;
+    this.maxEntries = maxEntries;
+    this.ttlMillis = ttlMillis;
+    this.stockRefreshMillis = stockRefreshMillis;
+  }
+
+  /**
+   * Get the snapshot of one page of products, loading it if needed.
+   *
+   * @param afterId the last product ID of the previous page, or null for the first page
+   * @param pageSize the page size
+   * @param loader loads the page from the database
+   * @return the page snapshot
+   */
+  public Snapshot productsPage(Long afterId, int pageSize, Supplier<List<Product>> loader) {
+    return get("products:" + afterId + ":" + pageSize, () -> {
+      List<Product> products = loader.get();
+      Long nextAfterId = products.size() == pageSize
+          ? products.get(products.size() - 1).getId()
+          : null;
+      return build(products, nextAfterId);
+    });
+  }
+
+  /**
+   * Get the snapshot of all discounts, loading it if needed.
+   *
+   * @param loader loads the discounts from the database
+   * @return the discounts snapshot
+   */
+  public Snapshot discounts(Supplier<List<DiscountView>> loader) {
+    return get("discounts", () -> build(loader.get(), null));
+  }
+
+  /**
+   * Discard all snapshots now and again when the current transaction completes.
+   *
+   * <p>The second discard drops snapshots that other requests built from the old state
+   * while the transaction was still running.
+   */
+  public void invalidate() {
+    generation = new Generation();
+    changedAtMillis = System.currentTimeMillis();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          generation = new Generation();
+          changedAtMillis = System.currentTimeMillis();
+        }
+      });
+    }
+  }
+
+  /**
+   * Mark all snapshots stale after stock or remaining uses changed, now and again when the
+   * current transaction completes.
+   */
+  public void stockChanged() {
+    stockChangedAtMillis = System.currentTimeMillis();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          stockChangedAtMillis = System.currentTimeMillis();
+        }
+      });
+    }
+  }
+
+  @EventListener
+  public void onCatalogChanged(CatalogChangedEvent event) {
+    if (event.isStockOnly()) {
+      stockChanged();
+    } else {
+      invalidate();
+    }
+  }
+
+  private Snapshot get(String key, Supplier<Snapshot> builder) {
+    Generation current = generation;
+    long now = System.currentTimeMillis();
+    Entry entry = current.entries.get(key);
+    if (entry != null && isFresh(entry, now)) {
+      entry.uses.increment();
+      return entry.snapshot;
+    }
+
+    Snapshot snapshot = ReadConsistency.withWritesUpTo(changedAtMillis, builder);
+    current.put(key, new Entry(snapshot, now, entry), maxEntries);
+    return snapshot;
+  }
+
+  private boolean isFresh(Entry entry, long now) {
+    long age = now - entry.builtAtMillis;
+    return age < ttlMillis
+        && (entry.builtAtMillis >= stockChangedAtMillis || age < stockRefreshMillis);
+  }
+
+  private Snapshot build(Object body, Long nextAfterId) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(body);
+      String hash = hash(json);
+      return new Snapshot(json, gzip(json), "\"" + hash + "\"", "\"" + hash + "-gzip\"",
+          nextAfterId);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize catalog snapshot", e);
+    }
+  }
+
+  private static String hash(byte[] json) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static byte[] gzip(byte[] json) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+      gzip.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return buffer.toByteArray();
+  }
+
+  private static final class Generation {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private void put(String key, Entry entry, int maxEntries) {
+      if (!entries.containsKey(key) && entries.size() >= maxEntries) {
+        entries.entrySet().stream()
+            .min(Comparator.comparingLong(e -> e.getValue().uses.sum()))
+            .ifPresent(leastUsed -> entries.remove(leastUsed.getKey(), leastUsed.getValue()));
+      }
+      entries.put(key, entry);
+    }
+  }
+
+  private static final class Entry {
+
+    private final Snapshot snapshot;
+    private final long builtAtMillis;
+    private final LongAdder uses = new LongAdder();
+
+    private Entry(Snapshot snapshot, long builtAtMillis, Entry previous) {
+      this.snapshot = snapshot;
+      this.builtAtMillis = builtAtMillis;
+      // A rebuilt page keeps its uses, so it is not the first to be evicted
+      this.uses.add(previous == null ? 1 : previous.uses.sum() + 1);
+    }
+  }
+
+  /**
+   * One serialized catalog response.
+   */
+  public static final class Snapshot {
+
+    private final byte[] json;
+    private final byte[] gzipJson;
+    private final String etag;
+    private final String gzipEtag;
+    private final Long nextAfterId;
+
+    private Snapshot(byte[] json, byte[] gzipJson, String etag, String gzipEtag,
+                     Long nextAfterId) {
+      this.json = json;
+      this.gzipJson = gzipJson;
+      this.etag = etag;
+      this.gzipEtag = gzipEtag;
+      this.nextAfterId = nextAfterId;
+    }
+
+    public byte[] getBody(boolean gzip) {
+      return gzip ? gzipJson : json;
+    }
+
+    public String getEtag(boolean gzip) {
+      return gzip ? gzipEtag : etag;
+    }
+
+    /**
+     * Get the cursor of the page after this one.
+     *
+     * @return the last product ID of this page, or null if there is no next page
+     */
+    public Long getNextAfterId() {
+      return nextAfterId;
+    }
+  }
+}
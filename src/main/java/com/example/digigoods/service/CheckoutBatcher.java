@@ -0,0 +1,381 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.CheckoutCapacityExceededException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Entry point for checkouts that optionally coalesces them into group commits.
+ *
+ * <p>When {@code checkout.group-commit.enabled} is false every checkout runs in its own
+ * transaction. When enabled, concurrent checkouts are queued and worker threads drain
+ * them into micro-batches bounded by {@code max-batch-size} and {@code linger-micros}.
+ * Each batch runs in a single database transaction, so its orders share one commit.
+ *
+ * <p>When a checkout in the batch is rejected, the batch transaction is rolled back and
+ * replayed without it. The rejected checkout fails on its own and its batch-mates are
+ * committed by the replay.
+ *
+ * <p>A caller waits at most {@code timeout-millis} for its batch. If the batch has not
+ * started committing its checkout by then, the checkout is dropped and the caller gets a
+ * {@link CheckoutCapacityExceededException}; once the commit has started, the caller
+ * waits for its outcome, so a 503 always means that no order was placed.
+ *
+ * <p>When {@code checkout.max-concurrent} is positive, at most that many checkouts run or
+ * wait for a batch at once. Callers beyond it wait up to {@code admission-timeout-millis}
+ * and are then rejected with {@link CheckoutCapacityExceededException}. This matters with
+ * virtual threads, where the request thread count no longer bounds how many callers pile
+ * up on the connection pool.
+ */
+@Component
+public class CheckoutBatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(CheckoutBatcher.class);
+  private static final long IDLE_POLL_MILLIS = 100;
+  private static final Consumer<OrderResponse> NO_COMPLETION = response -> {};
+
+  private final CheckoutService checkoutService;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int maxBatchSize;
+  private final long lingerNanos;
+  private final int workerCount;
+  private final long timeoutMillis;
+  private final BlockingQueue<PendingCheckout> queue;
+  private final DistributionSummary batchSize;
+  private final Timer queueDelay;
+  private final Semaphore admission;
+  private final long admissionTimeoutMillis;
+  private final List<Thread> workers = new ArrayList<>();
+  private volatile boolean running;
+
+  public CheckoutBatcher(CheckoutService checkoutService,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${checkout.group-commit.enabled:false}") boolean enabled,
+                         @Value("${checkout.group-commit.max-batch-size:32}") int maxBatchSize,
+                         @Value("${checkout.group-commit.linger-micros:500}") long lingerMicros,
+                         @Value("${checkout.group-commit.queue-capacity:1024}") int queueCapacity,
+                         @Value("${checkout.group-commit.workers:2}") int workerCount,
+                         @Value("${checkout.group-commit.timeout-millis:10000}")
+                         long timeoutMillis,
+                         @Value("${checkout.max-concurrent:0}") int maxConcurrent,
+                         @Value("${checkout.admission-timeout-millis:1000}")
+                         long admissionTimeoutMillis) {
+    this.checkoutService = checkoutService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.maxBatchSize = maxBatchSize;
+    this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    this.workerCount = workerCount;
+    this.timeoutMillis = timeoutMillis;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    // Fair, so that a steady stream of new callers cannot starve the ones already waiting
+    this.admission = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+    this.admissionTimeoutMillis = admissionTimeoutMillis;
+    this.batchSize = DistributionSummary.builder("checkout.batch.size")
+        .description("Number of checkouts committed together in one transaction")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.queueDelay = Timer.builder("checkout.batch.queue.delay")
+        .description("Time a checkout waited in the group-commit queue")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  /**
+   * Start the batch workers when group commit is enabled.
+   */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    for (int i = 0; i < workerCount; i++) {
+      Thread worker = new Thread(this::runWorker, "checkout-batcher-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+  }
+
+  /**
+   * Stop the batch workers after they finished the checkouts already queued.
+   *
+   * <p>Checkouts still queued when the workers are gone are failed rather than left
+   * waiting for a batch that never comes.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    PendingCheckout leftover;
+    while ((leftover = queue.poll()) != null) {
+      if (leftover.abandon()) {
+        leftover.result.completeExceptionally(new CheckoutCapacityExceededException());
+      }
+    }
+  }
+
+  /**
+   * Process a checkout, either directly or as part of the next group commit.
+   *
+   * @param request the checkout request
+   * @param authenticatedUserId the ID of the authenticated user
+   * @return order response
+   * @throws CheckoutCapacityExceededException if no admission permit became free in time
+   */
+  public OrderResponse checkout(CheckoutRequest request, Long authenticatedUserId) {
+    return checkout(request, authenticatedUserId, NO_COMPLETION);
+  }
+
+  /**
+   * Process a checkout, either directly or as part of the next group commit, and hand its
+   * response to a callback in the transaction that commits the order.
+   *
+   * @param request the checkout request
+   * @param authenticatedUserId the ID of the authenticated user
+   * @param beforeCommit receives the response before the order is committed
+   * @return order response
+   * @throws CheckoutCapacityExceededException if no admission permit became free in time
+   * @see CheckoutService#processCheckout(CheckoutRequest, Long, Consumer)
+   */
+  public OrderResponse checkout(CheckoutRequest request, Long authenticatedUserId,
+                                Consumer<OrderResponse> beforeCommit) {
+    if (admission == null) {
+      return submit(request, authenticatedUserId, beforeCommit);
+    }
+
+    acquireAdmission();
+    try {
+      return submit(request, authenticatedUserId, beforeCommit);
+    } finally {
+      admission.release();
+    }
+  }
+
+  private void acquireAdmission() {
+    boolean acquired;
+    try {
+      acquired = admission.tryAcquire(admissionTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      throw new CheckoutCapacityExceededException();
+    }
+  }
+
+  private OrderResponse submit(CheckoutRequest request, Long authenticatedUserId,
+                               Consumer<OrderResponse> beforeCommit) {
+    if (!running) {
+      return checkoutService.processCheckout(request, authenticatedUserId, beforeCommit);
+    }
+
+    PendingCheckout pending = new PendingCheckout(request, authenticatedUserId, beforeCommit);
+    if (!queue.offer(pending)) {
+      // Queue is full: fall back to a transaction of its own rather than rejecting
+      return checkoutService.processCheckout(request, authenticatedUserId, beforeCommit);
+    }
+    if (!running && queue.remove(pending)) {
+      // Stopped between the check and the offer; the workers may be gone already
+      return checkoutService.processCheckout(request, authenticatedUserId, beforeCommit);
+    }
+
+    return awaitResult(pending);
+  }
+
+  private OrderResponse awaitResult(PendingCheckout pending) {
+    try {
+      return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      if (pending.abandon()) {
+        throw new CheckoutCapacityExceededException(
+            "Checkout was not processed in time, please retry");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (pending.abandon()) {
+        throw new CheckoutCapacityExceededException();
+      }
+    } catch (ExecutionException e) {
+      throw failure(e.getCause());
+    }
+
+    // Its batch is committing it; the worker completes the result either way
+    try {
+      return pending.result.join();
+    } catch (CompletionException e) {
+      throw failure(e.getCause());
+    }
+  }
+
+  private static RuntimeException failure(Throwable cause) {
+    if (cause instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    if (cause instanceof Error error) {
+      throw error;
+    }
+    return new IllegalStateException(cause);
+  }
+
+  private void runWorker() {
+    List<PendingCheckout> batch = new ArrayList<>(maxBatchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        collectBatch(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      }
+      if (!batch.isEmpty()) {
+        try {
+          runBatch(batch);
+        } catch (Throwable e) {
+          // Keep the worker alive and never leave a caller of this batch waiting
+          log.error("Group commit of {} checkouts failed", batch.size(), e);
+          batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+        batch.clear();
+      }
+    }
+  }
+
+  private void collectBatch(List<PendingCheckout> batch) throws InterruptedException {
+    // Wake up periodically so stop() does not have to interrupt a worker inside JDBC
+    PendingCheckout first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+    if (first == null) {
+      return;
+    }
+    batch.add(first);
+
+    long deadline = System.nanoTime() + lingerNanos;
+    while (batch.size() < maxBatchSize) {
+      long remaining = deadline - System.nanoTime();
+      PendingCheckout next = remaining > 0
+          ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+          : queue.poll();
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+    }
+  }
+
+  void runBatch(List<PendingCheckout> batch) {
+    long now = System.nanoTime();
+    batchSize.record(batch.size());
+    for (PendingCheckout pending : batch) {
+      queueDelay.record(now - pending.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+    }
+
+    List<PendingCheckout> remaining = new ArrayList<>(batch);
+    remaining.removeIf(PendingCheckout::isAbandoned);
+    while (!remaining.isEmpty()) {
+      List<OrderResponse> responses = new ArrayList<>(remaining.size());
+      PendingCheckout dropped;
+      try {
+        dropped = transactionTemplate.execute(status -> {
+          for (PendingCheckout pending : remaining) {
+            try {
+              responses.add(checkoutService.processCheckout(pending.request, pending.userId,
+                  pending.beforeCommit));
+            } catch (RuntimeException e) {
+              // Its partial writes are not isolated, so the batch must not commit
+              status.setRollbackOnly();
+              pending.result.completeExceptionally(e);
+              return pending;
+            }
+          }
+          for (PendingCheckout pending : remaining) {
+            if (!pending.claim()) {
+              // Its caller timed out and was told that no order was placed
+              status.setRollbackOnly();
+              return pending;
+            }
+          }
+          return null;
+        });
+      } catch (RuntimeException e) {
+        log.warn("Group commit of {} checkouts failed", remaining.size(), e);
+        remaining.forEach(pending -> pending.result.completeExceptionally(e));
+        return;
+      }
+
+      if (dropped == null) {
+        for (int i = 0; i < remaining.size(); i++) {
+          remaining.get(i).result.complete(responses.get(i));
+        }
+        return;
+      }
+      remaining.remove(dropped);
+    }
+  }
+
+  static final class PendingCheckout {
+
+    private static final int WAITING = 0;
+    private static final int CLAIMED = 1;
+    private static final int ABANDONED = 2;
+
+    private final CheckoutRequest request;
+    private final Long userId;
+    private final Consumer<OrderResponse> beforeCommit;
+    private final long enqueuedAtNanos = System.nanoTime();
+    private final CompletableFuture<OrderResponse> result = new CompletableFuture<>();
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    PendingCheckout(CheckoutRequest request, Long userId,
+                    Consumer<OrderResponse> beforeCommit) {
+      this.request = request;
+      this.userId = userId;
+      this.beforeCommit = beforeCommit;
+    }
+
+    /**
+     * Claim the checkout for the commit of its batch, unless its caller gave up on it.
+     */
+    private boolean claim() {
+      return state.compareAndSet(WAITING, CLAIMED) || state.get() == CLAIMED;
+    }
+
+    /**
+     * Give up on the checkout, unless its batch has started committing it.
+     */
+    private boolean abandon() {
+      return state.compareAndSet(WAITING, ABANDONED);
+    }
+
+    private boolean isAbandoned() {
+      return state.get() == ABANDONED;
+    }
+  }
+}
@@ -0,0 +1,465 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.IdempotencyKeyConflictException;
+import com.example.digigoods.exception.InvalidIdempotencyKeyException;
+import com.example.digigoods.model.CheckoutTicket;
+import com.example.digigoods.model.CheckoutTicketStatus;
+import com.example.digigoods.model.IdempotencyRecord;
+import com.example.digigoods.model.IdempotencyRecordId;
+import com.example.digigoods.repository.CheckoutTicketRepository;
+import com.example.digigoods.repository.IdempotencyRecordRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs each checkout sent with an {@code Idempotency-Key} at most once per user and key.
+ *
+ * <p>A duplicate of a checkout that is still running on this node waits for it and gets
+ * its outcome. A duplicate of a completed checkout gets the stored {@link OrderResponse},
+ * from a bounded in-memory cache or else from the {@code idempotency_keys} table. The key is
+ * claimed in the table before the checkout runs, so a duplicate arriving at another node
+ * while the first one runs is rejected with {@link IdempotencyKeyConflictException} rather
+ * than run twice.
+ *
+ * <p>The response is stored by the checkout's own transaction, so the order and its record
+ * commit together or not at all. A claim without a response therefore never has an order:
+ * a failed checkout releases it so it may be retried with the same key, and a claim left
+ * behind by a crashed node is taken over once it is older than
+ * {@code idempotency.claim-timeout-seconds}. Records are deleted once they are older than
+ * {@code idempotency.ttl-hours}.
+ *
+ * <p>Checkouts submitted as tickets claim their key in the same table, see
+ * {@link #claimForTicket}, so a key is only ever used by one checkout, whether it was sent
+ * with {@code Prefer: respond-async} or not. A synchronous retry of a ticket's key gets the
+ * response of the completed ticket, and is rejected while the ticket is pending.
+ */
+@Service
+public class CheckoutIdempotencyService {
+
+  private static final Logger log = LoggerFactory.getLogger(CheckoutIdempotencyService.class);
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private final IdempotencyRecordRepository idempotencyRecordRepository;
+  private final CheckoutTicketRepository checkoutTicketRepository;
+  private final TransactionTemplate requiresNewTransaction;
+  private final Duration ttl;
+  private final Duration claimTimeout;
+  private final int maxCachedResponses;
+  private final Map<IdempotencyRecordId, CompletableFuture<StoredResponse>> inFlight =
+      new ConcurrentHashMap<>();
+  private final Map<IdempotencyRecordId, StoredResponse> completed = new ConcurrentHashMap<>();
+
+  public CheckoutIdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                                    CheckoutTicketRepository checkoutTicketRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                                    @Value("${idempotency.claim-timeout-seconds:60}")
+                                    long claimTimeoutSeconds,
+                                    @Value("${idempotency.cache.max-entries:10000}")
+                                    int maxCachedResponses) {
+    this.idempotencyRecordRepository = idempotencyRecordRepository;
+    this.checkoutTicketRepository = checkoutTicketRepository;
+    this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+    this.requiresNewTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.ttl = Duration.ofHours(ttlHours);
+    this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+    this.maxCachedResponses = maxCachedResponses;
+  }
+
+  /**
+   * Run a checkout unless the same key was already used by the same user.
+   *
+   * <p>The checkout must hand its response to the callback it is given from inside the
+   * transaction that commits the order, and fail if the callback throws.
+   *
+   * @param idempotencyKey the client-chosen idempotency key
+   * @param request the checkout request
+   * @param userId the ID of the authenticated user
+   * @param checkout runs the checkout with the callback that stores its response
+   * @return the response of the first checkout sent with the key
+   * @throws InvalidIdempotencyKeyException if the key is blank or too long
+   * @throws IdempotencyKeyConflictException if the key was used for a different checkout or
+   *                                         its checkout is still running on another node
+   */
+  public OrderResponse checkout(String idempotencyKey, CheckoutRequest request, Long userId,
+                                Function<Consumer<OrderResponse>, OrderResponse> checkout) {
+    validateKey(idempotencyKey);
+    IdempotencyRecordId id = new IdempotencyRecordId(userId, idempotencyKey);
+    String requestHash = requestHash(request);
+
+    StoredResponse cached = completed.get(id);
+    if (cached != null && !cached.isExpired(LocalDateTime.now())) {
+      return cached.responseFor(requestHash);
+    }
+
+    CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+    CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, execution);
+    if (running != null) {
+      return await(running).responseFor(requestHash);
+    }
+
+    try {
+      StoredResponse stored = executeOnce(id, requestHash, checkout);
+      execution.complete(stored);
+      return stored.responseFor(requestHash);
+    } catch (RuntimeException e) {
+      execution.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(id, execution);
+    }
+  }
+
+  /**
+   * Claim the key for a checkout submitted as a ticket, in the caller's transaction, which
+   * must also store the ticket.
+   *
+   * <p>A claim of a synchronous checkout left behind by a crashed node is taken over as
+   * {@link #checkout} would.
+   *
+   * @param idempotencyKey the client-chosen idempotency key
+   * @param request the checkout request
+   * @param userId the ID of the authenticated user
+   * @param ticketId the ID of the ticket being submitted
+   * @return the response of the synchronous checkout that already used the key, or null if
+   *         the key is now claimed for the ticket
+   * @throws InvalidIdempotencyKeyException if the key is blank or too long
+   * @throws IdempotencyKeyConflictException if the key was used for a different checkout or
+   *                                         its checkout is still running
+   * @throws DataIntegrityViolationException if another checkout claimed the key meanwhile
+   */
+  public OrderResponse claimForTicket(String idempotencyKey, CheckoutRequest request,
+                                      Long userId, String ticketId) {
+    validateKey(idempotencyKey);
+    String requestHash = requestHash(request);
+    LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    IdempotencyRecord existing = idempotencyRecordRepository
+        .findById(new IdempotencyRecordId(userId, idempotencyKey)).orElse(null);
+    if (existing == null) {
+      IdempotencyRecord claim = new IdempotencyRecord(userId, idempotencyKey, requestHash,
+          claimedAt);
+      claim.setTicketId(ticketId);
+      idempotencyRecordRepository.saveAndFlush(claim);
+      return null;
+    }
+
+    if (!existing.getRequestHash().equals(requestHash)) {
+      throw reused();
+    }
+    if (existing.getTicketId() != null) {
+      // Its ticket would have been replayed, so it was already deleted
+      throw usedByTicket(existing.getTicketId());
+    }
+    if (existing.isCompleted()) {
+      return new OrderResponse(existing.getResponseMessage(), existing.getResponseFinalPrice());
+    }
+    if (existing.getCreatedAt().plus(claimTimeout).isAfter(claimedAt)
+        || idempotencyRecordRepository.takeOver(userId, idempotencyKey,
+            existing.getCreatedAt(), claimedAt, ticketId) == 0) {
+      throw stillRunning();
+    }
+    log.info("Took over idempotency key {} claimed at {} for ticket {}", existing.getId(),
+        existing.getCreatedAt(), ticketId);
+    return null;
+  }
+
+  /**
+   * Give up the claim of a ticket that was not accepted after all, in the caller's
+   * transaction.
+   *
+   * @param ticketId the ID of the ticket
+   */
+  public void releaseTicket(String ticketId) {
+    idempotencyRecordRepository.deleteByTicketId(ticketId);
+  }
+
+  /**
+   * Delete the records and cached responses that outlived the TTL.
+   */
+  @Scheduled(fixedDelayString = "${idempotency.cleanup-millis:600000}")
+  public void deleteExpired() {
+    LocalDateTime now = LocalDateTime.now();
+    completed.values().removeIf(stored -> stored.isExpired(now));
+    Integer deleted = requiresNewTransaction.execute(status ->
+        idempotencyRecordRepository.deleteAllCreatedBefore(now.minus(ttl)));
+    if (deleted != null && deleted > 0) {
+      log.debug("Deleted {} expired idempotency keys", deleted);
+    }
+  }
+
+  private StoredResponse executeOnce(IdempotencyRecordId id, String requestHash,
+                                     Function<Consumer<OrderResponse>, OrderResponse> checkout) {
+    Claim claim = claim(id, requestHash);
+    if (claim.stored() != null) {
+      return claim.stored();
+    }
+
+    OrderResponse response;
+    try {
+      response = checkout.apply(completedResponse -> complete(id, claim.claimedAt(),
+          completedResponse));
+    } catch (RuntimeException e) {
+      release(id, claim.claimedAt());
+      throw e;
+    }
+    return cache(id, new StoredResponse(requestHash, response, claim.claimedAt().plus(ttl)));
+  }
+
+  /**
+   * Store the response in the checkout's transaction, failing the checkout if the claim is
+   * no longer ours.
+   */
+  private void complete(IdempotencyRecordId id, LocalDateTime claimedAt,
+                        OrderResponse response) {
+    int updated = idempotencyRecordRepository.complete(id.getUserId(), id.getIdempotencyKey(),
+        claimedAt, response.getMessage(), response.getFinalPrice());
+    if (updated == 0) {
+      // Taken over after the claim timed out, so the other checkout owns the key now
+      throw stillRunning();
+    }
+  }
+
+  private void release(IdempotencyRecordId id, LocalDateTime claimedAt) {
+    try {
+      // Only an uncompleted claim is deleted: if the commit went through after all, its
+      // record holds the response and a retry must get that instead of a second order
+      requiresNewTransaction.executeWithoutResult(status -> idempotencyRecordRepository
+          .release(id.getUserId(), id.getIdempotencyKey(), claimedAt));
+    } catch (RuntimeException e) {
+      // The claim stays until it times out and is taken over, so no order is lost
+      log.warn("Could not release idempotency key {}", id, e);
+    }
+  }
+
+  /**
+   * Claim the key in the table, taking over a claim that timed out.
+   *
+   * @return the stored response if the key was already completed, or the time of our claim
+   */
+  private Claim claim(IdempotencyRecordId id, String requestHash) {
+    // Truncated, so the claim time compares equal after a round trip through the database
+    LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    IdempotencyRecord existing;
+    try {
+      existing = requiresNewTransaction.execute(status -> {
+        IdempotencyRecord found = idempotencyRecordRepository.findById(id).orElse(null);
+        if (found == null) {
+          idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(id.getUserId(),
+              id.getIdempotencyKey(), requestHash, claimedAt));
+        }
+        return found;
+      });
+    } catch (DataIntegrityViolationException e) {
+      // Another node claimed the key between our lookup and our insert
+      throw stillRunning();
+    }
+
+    if (existing == null) {
+      return new Claim(claimedAt, null);
+    }
+    if (!existing.getRequestHash().equals(requestHash)) {
+      throw reused();
+    }
+    if (existing.getTicketId() != null) {
+      return new Claim(null, ticketOutcome(id, existing));
+    }
+    if (!existing.isCompleted()) {
+      return takeOver(id, existing, claimedAt);
+    }
+    return new Claim(null, cache(id, new StoredResponse(requestHash,
+        new OrderResponse(existing.getResponseMessage(), existing.getResponseFinalPrice()),
+        existing.getCreatedAt().plus(ttl))));
+  }
+
+  private Claim takeOver(IdempotencyRecordId id, IdempotencyRecord existing,
+                         LocalDateTime claimedAt) {
+    if (existing.getCreatedAt().plus(claimTimeout).isAfter(claimedAt)) {
+      throw stillRunning();
+    }
+    // An uncompleted claim has no order, so it is safe to run the checkout again; should its
+    // checkout still be running, it can no longer complete the claim and rolls back
+    Integer updated = requiresNewTransaction.execute(status -> idempotencyRecordRepository
+        .takeOver(id.getUserId(), id.getIdempotencyKey(), existing.getCreatedAt(), claimedAt,
+            null));
+    if (updated == null || updated == 0) {
+      throw stillRunning();
+    }
+    log.info("Took over idempotency key {} claimed at {}", id, existing.getCreatedAt());
+    return new Claim(claimedAt, null);
+  }
+
+  /**
+   * Get the response of the ticket that claimed the key, which is never run again here.
+   */
+  private StoredResponse ticketOutcome(IdempotencyRecordId id, IdempotencyRecord existing) {
+    CheckoutTicket ticket = checkoutTicketRepository.findById(existing.getTicketId())
+        .orElse(null);
+    if (ticket != null && ticket.getStatus() == CheckoutTicketStatus.PENDING) {
+      throw stillRunning();
+    }
+    if (ticket == null || ticket.getStatus() != CheckoutTicketStatus.COMPLETED) {
+      throw usedByTicket(existing.getTicketId());
+    }
+    return cache(id, new StoredResponse(existing.getRequestHash(),
+        new OrderResponse(ticket.getMessage(), ticket.getFinalPrice()),
+        existing.getCreatedAt().plus(ttl)));
+  }
+
+  private StoredResponse cache(IdempotencyRecordId id, StoredResponse stored) {
+    if (maxCachedResponses > 0) {
+      if (completed.size() >= maxCachedResponses) {
+        evict(LocalDateTime.now());
+      }
+      completed.put(id, stored);
+    }
+    return stored;
+  }
+
+  private void evict(LocalDateTime now) {
+    completed.values().removeIf(stored -> stored.isExpired(now));
+    Iterator<IdempotencyRecordId> ids = completed.keySet().iterator();
+    while (completed.size() >= maxCachedResponses && ids.hasNext()) {
+      ids.next();
+      ids.remove();
+    }
+  }
+
+  private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  static void validateKey(String idempotencyKey) {
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+    }
+  }
+
+  /**
+   * Hash the request with SHA-256 over a canonical encoding of its fields.
+   *
+   * <p>Every value is written with its length or a null marker, so no two different
+   * requests share an encoding.
+   *
+   * @param request the checkout request
+   * @return the hex-encoded hash
+   */
+  static String requestHash(CheckoutRequest request) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeLong(out, request.getUserId());
+      writeList(out, request.getProductIds(), value -> writeLong(out, value));
+      writeList(out, request.getDiscountCodes(), value -> writeString(out, value));
+      writeString(out, request.getReservationId());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static void writeLong(DataOutputStream out, Long value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeLong(value);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(encoded.length);
+      out.write(encoded);
+    }
+  }
+
+  private static <T> void writeList(DataOutputStream out, List<T> values, ValueWriter<T> writer)
+      throws IOException {
+    out.writeInt(values == null ? -1 : values.size());
+    if (values != null) {
+      for (T value : values) {
+        writer.write(value);
+      }
+    }
+  }
+
+  private static IdempotencyKeyConflictException reused() {
+    return new IdempotencyKeyConflictException(
+        "Idempotency-Key was already used for a different checkout");
+  }
+
+  static IdempotencyKeyConflictException stillRunning() {
+    return new IdempotencyKeyConflictException(
+        "A checkout with this Idempotency-Key is still being processed");
+  }
+
+  private static IdempotencyKeyConflictException usedByTicket(String ticketId) {
+    return new IdempotencyKeyConflictException(
+        "Idempotency-Key was already used for asynchronous checkout " + ticketId);
+  }
+
+  @FunctionalInterface
+  private interface ValueWriter<T> {
+
+    void write(T value) throws IOException;
+  }
+
+  private record Claim(LocalDateTime claimedAt, StoredResponse stored) {
+  }
+
+  private record StoredResponse(String requestHash, OrderResponse response,
+                                LocalDateTime expiresAt) {
+
+    boolean isExpired(LocalDateTime now) {
+      return !now.isBefore(expiresAt);
+    }
+
+    OrderResponse responseFor(String otherRequestHash) {
+      if (!requestHash.equals(otherRequestHash)) {
+        throw reused();
+      }
+      return response;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.exception.CheckoutRejectedException;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
+import com.example.digigoods.exception.ExcessiveDiscountException;
+import com.example.digigoods.exception.InsufficientStockException;
+import com.example.digigoods.exception.InvalidDiscountException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer meters of the checkout stages.
+ *
+ * <ul>
+ *   <li>{@code checkout.stage} times every stage of {@link CheckoutService#processCheckout},
+ *       tagged with {@code stage}, as a percentile histogram. Failed stages are timed too.
+ *   <li>{@code checkout.rejections} counts rejected checkouts, tagged with {@code reason}.
+ *   <li>{@code checkout.in.flight} is the number of checkouts being processed right now.
+ * </ul>
+ */
+@Component
+public class CheckoutMetrics {
+
+  /**
+   * The numbered stages of a checkout.
+   */
+  public enum Stage {
+    AUTHORIZATION("authorization"),
+    PRODUCT_VALIDATION("product_validation"),
+    DISCOUNT_VALIDATION("discount_validation"),
+    SUBTOTAL("subtotal"),
+    DISCOUNT_APPLICATION("discount_application"),
+    MAX_DISCOUNT_RULE("max_discount_rule"),
+    COMMIT("commit");
+
+    private final String tag;
+
+    Stage(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+  private final Counter invalidDiscount;
+  private final Counter insufficientStock;
+  private final Counter excessiveDiscount;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public CheckoutMetrics(MeterRegistry meterRegistry) {
+    for (Stage stage : Stage.values()) {
+      stageTimers.put(stage, Timer.builder("checkout.stage")
+          .description("Time spent in one stage of a checkout")
+          .tag("stage", stage.tag)
+          .publishPercentileHistogram()
+          .register(meterRegistry));
+    }
+    this.invalidDiscount = rejections(meterRegistry, "invalid_discount");
+    this.insufficientStock = rejections(meterRegistry, "insufficient_stock");
+    this.excessiveDiscount = rejections(meterRegistry, "excessive_discount");
+    Gauge.builder("checkout.in.flight", inFlight, AtomicInteger::get)
+        .description("Checkouts being processed")
+        .register(meterRegistry);
+  }
+
+  private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder("checkout.rejections")
+        .description("Checkouts rejected by a business rule")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Run one stage of a checkout and time it.
+   *
+   * @param stage the stage
+   * @param work the work of the stage
+   * @return the result of the work
+   */
+  public <T> T time(Stage stage, Supplier<T> work) {
+    return stageTimers.get(stage).record(work);
+  }
+
+  /**
+   * Run one stage of a checkout that has no result and time it.
+   *
+   * @param stage the stage
+   * @param work the work of the stage
+   */
+  public void time(Stage stage, Runnable work) {
+    stageTimers.get(stage).record(work);
+  }
+
+  /**
+   * Mark the start of a checkout.
+   */
+  public void started() {
+    inFlight.incrementAndGet();
+  }
+
+  /**
+   * Mark the end of a checkout, successful or not.
+   */
+  public void finished() {
+    inFlight.decrementAndGet();
+  }
+
+  /**
+   * Count a rejected checkout if the exception is one of the business rule rejections.
+   * A checkout rejected for several reasons is counted once under each of them.
+   *
+   * @param exception the exception the checkout failed with
+   */
+  public void rejected(RuntimeException exception) {
+    if (exception instanceof CheckoutRejectedException rejection) {
+      if (rejection.hasReason(Reason.INVALID_DISCOUNT)) {
+        invalidDiscount.increment();
+      }
+      if (rejection.hasReason(Reason.INSUFFICIENT_STOCK)) {
+        insufficientStock.increment();
+      }
+      if (rejection.hasReason(Reason.EXCESSIVE_DISCOUNT)) {
+        excessiveDiscount.increment();
+      }
+    } else if (exception instanceof InvalidDiscountException) {
+      invalidDiscount.increment();
+    } else if (exception instanceof InsufficientStockException) {
+      insufficientStock.increment();
+    } else if (exception instanceof ExcessiveDiscountException) {
+      excessiveDiscount.increment();
+    }
+  }
+}
@@ -1,21 +1,26 @@
 package com.example.digigoods.service;
 
+import com.example.digigoods.datasource.ReadConsistency;
 import com.example.digigoods.dto.CheckoutRequest;
 import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
 import com.example.digigoods.exception.ExcessiveDiscountException;
+import com.example.digigoods.exception.InsufficientStockException;
 import com.example.digigoods.exception.UnauthorizedAccessException;
 import com.example.digigoods.model.Discount;
 import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
 import com.example.digigoods.model.Order;
 import com.example.digigoods.model.Product;
 import com.example.digigoods.model.User;
 import com.example.digigoods.repository.OrderRepository;
 import com.example.digigoods.repository.UserRepository;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import com.example.digigoods.service.CheckoutMetrics.Stage;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
@@ -27,22 +32,34 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class CheckoutService {
 
-  private static final BigDecimal MAX_DISCOUNT_PERCENTAGE = new BigDecimal("75.00");
-  private static final BigDecimal HUNDRED = new BigDecimal("100.00");
+  private static final long MAX_DISCOUNT_BASIS_POINTS = 7500;
+  private static final Consumer<OrderResponse> NO_COMPLETION = response -> {};
 
   private final ProductService productService;
   private final DiscountService discountService;
   private final OrderRepository orderRepository;
+  private final OrderOutbox orderOutbox;
   private final UserRepository userRepository;
+  private final StockReservationService stockReservationService;
+  private final DiscountApplicabilityIndex discountApplicabilityIndex;
+  private final CheckoutMetrics checkoutMetrics;
 
   public CheckoutService(ProductService productService,
                          DiscountService discountService,
                          OrderRepository orderRepository,
-                         UserRepository userRepository) {
+                         OrderOutbox orderOutbox,
+                         UserRepository userRepository,
+                         StockReservationService stockReservationService,
+                         DiscountApplicabilityIndex discountApplicabilityIndex,
+                         CheckoutMetrics checkoutMetrics) {
     this.productService = productService;
     this.discountService = discountService;
     this.orderRepository = orderRepository;
+    this.orderOutbox = orderOutbox;
     this.userRepository = userRepository;
+    this.stockReservationService = stockReservationService;
+    this.discountApplicabilityIndex = discountApplicabilityIndex;
+    this.checkoutMetrics = checkoutMetrics;
   }
 
   /**
@@ -54,29 +71,88 @@ public class CheckoutService {
    */
   @Transactional
   public OrderResponse processCheckout(CheckoutRequest request, Long authenticatedUserId) {
+    return process(request, authenticatedUserId, NO_COMPLETION);
+  }
+
+  /**
+   * Process checkout request and hand its response to a callback before committing.
+   *
+   * <p>The callback runs in the checkout's transaction, so whatever it writes is committed
+   * together with the order, and an exception it throws rolls the order back.
+   *
+   * @param request the checkout request
+   * @param authenticatedUserId the ID of the authenticated user
+   * @param beforeCommit receives the response once the order is written
+   * @return order response
+   */
+  @Transactional
+  public OrderResponse processCheckout(CheckoutRequest request, Long authenticatedUserId,
+                                       Consumer<OrderResponse> beforeCommit) {
+    return process(request, authenticatedUserId, beforeCommit);
+  }
+
+  private OrderResponse process(CheckoutRequest request, Long authenticatedUserId,
+                                Consumer<OrderResponse> beforeCommit) {
+    checkoutMetrics.started();
+    try {
+      OrderResponse response = runStages(request, authenticatedUserId);
+      // Named explicitly, since group commit and async workers have no security context
+      ReadConsistency.writingFor(authenticatedUserId);
+      beforeCommit.accept(response);
+      return response;
+    } catch (RuntimeException e) {
+      checkoutMetrics.rejected(e);
+      throw e;
+    } finally {
+      checkoutMetrics.finished();
+    }
+  }
+
+  private OrderResponse runStages(CheckoutRequest request, Long authenticatedUserId) {
     // 1. Authentication & Authorization
-    validateUserAuthorization(request.getUserId(), authenticatedUserId);
+    checkoutMetrics.time(Stage.AUTHORIZATION,
+        () -> validateUserAuthorization(request.getUserId(), authenticatedUserId));
+
+    // Business rule violations are collected, so a rejection reports all of them at once
+    CheckoutValidation validation = new CheckoutValidation();
 
     // 2. Product Validation
-    List<Product> products = productService.getProductsByIds(request.getProductIds());
+    List<Product> products = checkoutMetrics.time(Stage.PRODUCT_VALIDATION, () -> {
+      List<Product> found = productService.findProductsByIds(request.getProductIds(), validation);
+      if (request.getReservationId() == null) {
+        checkStock(request.getProductIds(), found, validation);
+      }
+      return found;
+    });
 
-    // 3. Original Subtotal Calculation
-    BigDecimal originalSubtotal = calculateOriginalSubtotal(request.getProductIds(), products);
+    // 3. Discount Validation, before pricing so every invalid code is reported
+    List<Discount> discounts = checkoutMetrics.time(Stage.DISCOUNT_VALIDATION,
+        () -> discountService.findValidDiscounts(request.getDiscountCodes(), validation));
 
-    // 4. Discount Validation
-    List<Discount> discounts = discountService.validateAndGetDiscounts(request.getDiscountCodes());
+    // Prices cannot be computed with products missing
+    if (validation.hasViolation(Reason.PRODUCT_NOT_FOUND)) {
+      validation.throwIfInvalid();
+    }
+
+    // 4. Original Subtotal Calculation
+    Money originalSubtotal = checkoutMetrics.time(Stage.SUBTOTAL,
+        () -> calculateOriginalSubtotal(request.getProductIds(), products));
 
     // 5. Discount Application
-    BigDecimal finalPrice = applyDiscounts(request.getProductIds(), products, discounts,
-        originalSubtotal);
+    Money finalPrice = checkoutMetrics.time(Stage.DISCOUNT_APPLICATION,
+        () -> applyDiscounts(request.getProductIds(), products, discounts, originalSubtotal));
 
     // 6. Maximum Discount Rule
-    validateMaximumDiscount(originalSubtotal, finalPrice);
+    checkoutMetrics.time(Stage.MAX_DISCOUNT_RULE,
+        () -> validateMaximumDiscount(originalSubtotal, finalPrice, validation));
+
+    validation.throwIfInvalid();
 
     // 7. Final Commit
-    commitTransaction(request, products, discounts, originalSubtotal, finalPrice);
+    checkoutMetrics.time(Stage.COMMIT,
+        () -> commitTransaction(request, products, discounts, originalSubtotal, finalPrice));
 
-    return new OrderResponse("Order created successfully!", finalPrice);
+    return new OrderResponse("Order created successfully!", finalPrice.toBigDecimal());
   }
 
   private void validateUserAuthorization(Long requestUserId, Long authenticatedUserId) {
@@ -85,19 +161,21 @@ public class CheckoutService {
     }
   }
 
-  private BigDecimal calculateOriginalSubtotal(List<Long> productIds, List<Product> products) {
+  // Package-private, like applyDiscounts, so the JMH benchmarks can price carts directly
+  Money calculateOriginalSubtotal(List<Long> productIds, List<Product> products) {
     Map<Long, Product> productMap = products.stream()
         .collect(Collectors.toMap(Product::getId, Function.identity()));
 
-    return productIds.stream()
-        .map(productMap::get)
-        .map(Product::getPrice)
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
+    Money subtotal = Money.ZERO;
+    for (Long productId : productIds) {
+      subtotal = subtotal.plus(productMap.get(productId).getPrice());
+    }
+    return subtotal;
   }
 
-  private BigDecimal applyDiscounts(List<Long> productIds, List<Product> products,
-                                    List<Discount> discounts,
-                                    BigDecimal originalSubtotal) {
+  Money applyDiscounts(List<Long> productIds, List<Product> products,
+                       List<Discount> discounts,
+                       Money originalSubtotal) {
     Map<Long, Product> productMap = products.stream()
         .collect(Collectors.toMap(Product::getId, Function.identity()));
 
@@ -111,84 +189,113 @@ public class CheckoutService {
         .toList();
 
     // Apply product-specific discounts first
-    BigDecimal intermediateSubtotal = applyProductSpecificDiscounts(
+    Money intermediateSubtotal = applyProductSpecificDiscounts(
         productIds, productMap, productSpecificDiscounts);
 
     // Apply general discounts to intermediate subtotal
     return applyGeneralDiscounts(intermediateSubtotal, generalDiscounts);
   }
 
-  private BigDecimal applyProductSpecificDiscounts(List<Long> productIds,
-                                                   Map<Long, Product> productMap,
-                                                   List<Discount> productSpecificDiscounts) {
-    BigDecimal total = BigDecimal.ZERO;
+  private Money applyProductSpecificDiscounts(List<Long> productIds,
+                                              Map<Long, Product> productMap,
+                                              List<Discount> productSpecificDiscounts) {
+    Money total = Money.ZERO;
+    DiscountApplicabilityIndex.ApplicableDiscounts applicableDiscounts =
+        discountApplicabilityIndex.forDiscounts(productSpecificDiscounts);
 
     for (Long productId : productIds) {
       Product product = productMap.get(productId);
-      BigDecimal itemPrice = product.getPrice();
+      Money itemPrice = product.getPrice();
 
       // Find applicable discounts for this product
-      BigDecimal totalDiscountPercentage = productSpecificDiscounts.stream()
-          .filter(discount -> discount.getApplicableProducts().contains(product))
-          .map(Discount::getPercentage)
-          .reduce(BigDecimal.ZERO, BigDecimal::add);
+      int totalDiscountBasisPoints = applicableDiscounts.totalBasisPoints(productId);
 
       // Apply discount
-      if (totalDiscountPercentage.compareTo(BigDecimal.ZERO) > 0) {
-        BigDecimal discountAmount = itemPrice.multiply(totalDiscountPercentage)
-            .divide(HUNDRED, 2, RoundingMode.HALF_UP);
-        itemPrice = itemPrice.subtract(discountAmount);
+      if (totalDiscountBasisPoints > 0) {
+        itemPrice = itemPrice.minusPercentage(totalDiscountBasisPoints);
       }
 
-      total = total.add(itemPrice);
+      total = total.plus(itemPrice);
     }
 
     return total;
   }
 
-  private BigDecimal applyGeneralDiscounts(BigDecimal subtotal, List<Discount> generalDiscounts) {
-    BigDecimal currentPrice = subtotal;
+  private Money applyGeneralDiscounts(Money subtotal, List<Discount> generalDiscounts) {
+    Money currentPrice = subtotal;
 
     for (Discount discount : generalDiscounts) {
-      BigDecimal discountAmount = currentPrice.multiply(discount.getPercentage())
-          .divide(HUNDRED, 2, RoundingMode.HALF_UP);
-      currentPrice = currentPrice.subtract(discountAmount);
+      currentPrice = currentPrice.minusPercentage(Money.basisPoints(discount.getPercentage()));
     }
 
     return currentPrice;
   }
 
-  private void validateMaximumDiscount(BigDecimal originalSubtotal, BigDecimal finalPrice) {
-    BigDecimal totalDiscount = originalSubtotal.subtract(finalPrice);
-    BigDecimal discountPercentage = totalDiscount.multiply(HUNDRED)
-        .divide(originalSubtotal, 2, RoundingMode.HALF_UP);
+  private void validateMaximumDiscount(Money originalSubtotal, Money finalPrice,
+                                       CheckoutValidation validation) {
+    Money totalDiscount = originalSubtotal.minus(finalPrice);
+    long discountBasisPoints = totalDiscount.percentageOf(originalSubtotal);
+
+    if (discountBasisPoints > MAX_DISCOUNT_BASIS_POINTS) {
+      validation.reject(Reason.EXCESSIVE_DISCOUNT, ExcessiveDiscountException.MESSAGE);
+    }
+  }
 
-    if (discountPercentage.compareTo(MAX_DISCOUNT_PERCENTAGE) > 0) {
-      throw new ExcessiveDiscountException();
+  // Early report against the loaded stock; the guarded decrement at commit still decides
+  private static void checkStock(List<Long> productIds, List<Product> products,
+                                 CheckoutValidation validation) {
+    Map<Long, Integer> quantities = new LinkedHashMap<>();
+    for (Long productId : productIds) {
+      quantities.merge(productId, 1, Integer::sum);
+    }
+    for (Product product : products) {
+      int requested = quantities.getOrDefault(product.getId(), 0);
+      if (product.getStock() < requested) {
+        validation.reject(Reason.INSUFFICIENT_STOCK, InsufficientStockException.message(
+            product.getId(), requested, product.getStock()));
+      }
     }
   }
 
   private void commitTransaction(CheckoutRequest request, List<Product> products,
-                                 List<Discount> discounts, BigDecimal originalSubtotal,
-                                 BigDecimal finalPrice) {
-    // Get user
-    User user = userRepository.findById(request.getUserId())
-        .orElseThrow(() -> new RuntimeException("User not found"));
+                                 List<Discount> discounts, Money originalSubtotal,
+                                 Money finalPrice) {
+    // The user is the authenticated caller, so a reference is enough and saves a select
+    User user = userRepository.getReferenceById(request.getUserId());
+
+    // Update product stock, unless it was already taken by a reservation
+    if (request.getReservationId() != null) {
+      stockReservationService.confirm(request.getReservationId(), request.getUserId(),
+          request.getProductIds());
+    } else {
+      productService.validateAndUpdateStock(request.getProductIds());
+    }
+
+    // Update discount usage
+    discountService.updateDiscountUsage(discounts);
 
     // Create order
     Order order = new Order();
     order.setUser(user);
-    order.setProducts(new HashSet<>(products));
+    Map<Long, Product> productMap = products.stream()
+        .collect(Collectors.toMap(Product::getId, Function.identity()));
+    Map<Long, Integer> quantities = new LinkedHashMap<>();
+    for (Long productId : request.getProductIds()) {
+      quantities.merge(productId, 1, Integer::sum);
+    }
+    quantities.forEach((productId, quantity) -> {
+      Product product = productMap.get(productId);
+      order.addLine(product, quantity, product.getPrice());
+    });
     order.setAppliedDiscounts(new HashSet<>(discounts));
     order.setOriginalSubtotal(originalSubtotal);
     order.setFinalPrice(finalPrice);
 
-    orderRepository.save(order);
-
-    // Update product stock
-    productService.validateAndUpdateStock(request.getProductIds());
+    // Flush so write errors surface against this checkout, not at a group commit. The
+    // order, its lines and its discounts go out as one batched insert each.
+    orderRepository.saveAndFlush(order);
 
-    // Update discount usage
-    discountService.updateDiscountUsage(discounts);
+    // Written in this transaction, so the event exists exactly when the order does
+    orderOutbox.record(order);
   }
 }
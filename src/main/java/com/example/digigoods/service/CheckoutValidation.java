@@ -0,0 +1,57 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.exception.CheckoutRejectedException;
+import com.example.digigoods.exception.CheckoutViolation;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the violations of one checkout while it is validated.
+ *
+ * <p>Validation steps record what is wrong and carry on, so one pass finds every problem.
+ * The checkout is rejected once, with all of them, when validation is over.
+ */
+public class CheckoutValidation {
+
+  private final List<CheckoutViolation> violations = new ArrayList<>();
+
+  /**
+   * Record a violation.
+   *
+   * @param reason the rule violated
+   * @param message the message for the client
+   */
+  public void reject(Reason reason, String message) {
+    violations.add(new CheckoutViolation(reason, message));
+  }
+
+  public boolean isValid() {
+    return violations.isEmpty();
+  }
+
+  /**
+   * Check whether a violation with the given reason was recorded.
+   *
+   * @param reason the reason
+   * @return true if one was recorded, false otherwise
+   */
+  public boolean hasViolation(Reason reason) {
+    return violations.stream().anyMatch(violation -> violation.reason() == reason);
+  }
+
+  public List<CheckoutViolation> getViolations() {
+    return violations;
+  }
+
+  /**
+   * Reject the checkout if any violation was recorded.
+   *
+   * @throws CheckoutRejectedException with every violation recorded
+   */
+  public void throwIfInvalid() {
+    if (!violations.isEmpty()) {
+      throw new CheckoutRejectedException(violations);
+    }
+  }
+}
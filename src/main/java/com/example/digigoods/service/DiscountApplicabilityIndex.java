@@ -0,0 +1,215 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.repository.DiscountRepository;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Precomputed index of which product-specific discounts apply to which products.
+ *
+ * <p>Every indexed discount gets a small ordinal, and every product maps to a bitset of
+ * the ordinals of the discounts that apply to it. Pricing a cart line then becomes a map
+ * lookup and a bitset intersection instead of a scan over each discount's
+ * {@code applicableProducts} collection.
+ *
+ * <p>The index records the {@link Discount#getVersion() version} of every discount it was
+ * built from, including discounts without applicable products. A discount whose entity
+ * has a different version, because it was changed or created since the last rebuild, is
+ * matched against its entity instead, so a stale index never prices a checkout wrongly.
+ * The index is rebuilt at startup, after every transaction that changed a discount on this
+ * node, and when the periodic check finds that a discount was changed elsewhere.
+ */
+@Component
+public class DiscountApplicabilityIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(DiscountApplicabilityIndex.class);
+
+  private final DiscountRepository discountRepository;
+  private final Object rebuildAfterCommitKey = new Object();
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  public DiscountApplicabilityIndex(DiscountRepository discountRepository) {
+    this.discountRepository = discountRepository;
+  }
+
+  /**
+   * Rebuild the index from the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    // Versions first: a change made between the two queries then leaves an old version
+    // next to new links, which only sends that discount to its entity until the next check
+    final Map<Long, Long> versions = loadVersions();
+    List<Object[]> links = discountRepository.findAllApplicableProductLinks();
+
+    Map<Long, Integer> ordinals = new HashMap<>();
+    for (Long discountId : versions.keySet()) {
+      ordinals.put(discountId, ordinals.size());
+    }
+
+    Map<Long, BitSet> productDiscounts = new HashMap<>();
+    for (Object[] link : links) {
+      Integer ordinal = ordinals.get((Long) link[0]);
+      if (ordinal != null) {
+        productDiscounts.computeIfAbsent((Long) link[1], id -> new BitSet(ordinals.size()))
+            .set(ordinal);
+      }
+    }
+
+    snapshot = new Snapshot(versions, ordinals, productDiscounts);
+    log.debug("Indexed {} discounts over {} products", ordinals.size(), productDiscounts.size());
+  }
+
+  /**
+   * Rebuild the index once the current transaction commits, or now without one.
+   *
+   * <p>Called by {@link DiscountApplicabilityListener} whenever a discount is written.
+   */
+  public void rebuildAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      rebuild();
+      return;
+    }
+    if (TransactionSynchronizationManager.hasResource(rebuildAfterCommitKey)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(rebuildAfterCommitKey, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        rebuild();
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(rebuildAfterCommitKey);
+      }
+    });
+  }
+
+  /**
+   * Rebuild the index if a discount was created, changed or deleted since the last
+   * rebuild, for example by another node.
+   */
+  @Scheduled(fixedDelayString = "${discount.index.refresh-millis:10000}",
+      initialDelayString = "${discount.index.refresh-millis:10000}")
+  public void refreshIfChanged() {
+    if (!loadVersions().equals(snapshot.versions)) {
+      rebuild();
+    }
+  }
+
+  private Map<Long, Long> loadVersions() {
+    Map<Long, Long> versions = new TreeMap<>();
+    for (Object[] row : discountRepository.findAllVersions()) {
+      versions.put((Long) row[0], (Long) row[1]);
+    }
+    return versions;
+  }
+
+  /**
+   * Prepare lookups of the combined percentage of the given discounts per product.
+   *
+   * @param discounts the product-specific discounts applied to a cart
+   * @return lookup of the applicable discount percentage per product
+   */
+  public ApplicableDiscounts forDiscounts(List<Discount> discounts) {
+    return new ApplicableDiscounts(snapshot, discounts);
+  }
+
+  /**
+   * Combined discount percentage per product for one set of discounts.
+   */
+  public static final class ApplicableDiscounts {
+
+    private final Snapshot snapshot;
+    private final BitSet selected = new BitSet();
+    private final Map<Integer, Integer> basisPoints = new HashMap<>();
+    private final List<Discount> unindexed;
+    private final Map<Long, Integer> totals = new HashMap<>();
+
+    private ApplicableDiscounts(Snapshot snapshot, List<Discount> discounts) {
+      this.snapshot = snapshot;
+      List<Discount> notIndexed = new ArrayList<>();
+      for (Discount discount : discounts) {
+        if (snapshot.isCurrent(discount)) {
+          int ordinal = snapshot.ordinals.get(discount.getId());
+          selected.set(ordinal);
+          basisPoints.merge(ordinal, Money.basisPoints(discount.getPercentage()), Integer::sum);
+        } else {
+          notIndexed.add(discount);
+        }
+      }
+      this.unindexed = notIndexed;
+    }
+
+    /**
+     * Get the combined percentage of the discounts that apply to a product.
+     *
+     * @param productId the product ID
+     * @return sum of the applicable discount percentages in basis points, zero if none apply
+     */
+    public int totalBasisPoints(Long productId) {
+      return totals.computeIfAbsent(productId, this::computeTotalBasisPoints);
+    }
+
+    private int computeTotalBasisPoints(Long productId) {
+      int total = 0;
+
+      BitSet productBits = snapshot.productDiscounts.get(productId);
+      if (productBits != null && productBits.intersects(selected)) {
+        for (int i = productBits.nextSetBit(0); i >= 0; i = productBits.nextSetBit(i + 1)) {
+          if (selected.get(i)) {
+            total += basisPoints.get(i);
+          }
+        }
+      }
+
+      for (Discount discount : unindexed) {
+        boolean applies = discount.getApplicableProducts().stream()
+            .anyMatch(product -> productId.equals(product.getId()));
+        if (applies) {
+          total += Money.basisPoints(discount.getPercentage());
+        }
+      }
+      return total;
+    }
+  }
+
+  private static final class Snapshot {
+
+    private static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), Map.of());
+
+    private final Map<Long, Long> versions;
+    private final Map<Long, Integer> ordinals;
+    private final Map<Long, BitSet> productDiscounts;
+
+    private Snapshot(Map<Long, Long> versions, Map<Long, Integer> ordinals,
+                     Map<Long, BitSet> productDiscounts) {
+      this.versions = versions;
+      this.ordinals = ordinals;
+      this.productDiscounts = productDiscounts;
+    }
+
+    private boolean isCurrent(Discount discount) {
+      return discount.getId() != null
+          && discount.getVersion() != null
+          && Objects.equals(versions.get(discount.getId()), discount.getVersion());
+    }
+  }
+}
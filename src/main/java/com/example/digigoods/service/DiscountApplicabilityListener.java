@@ -0,0 +1,28 @@
+package com.example.digigoods.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that rebuilds the discount applicability index after a discount
+ * changes. Discounts are versioned, so a change to their applicable products alone also
+ * counts as an update.
+ */
+public class DiscountApplicabilityListener {
+
+  private final ObjectProvider<DiscountApplicabilityIndex> discountApplicabilityIndex;
+
+  public DiscountApplicabilityListener(
+      ObjectProvider<DiscountApplicabilityIndex> discountApplicabilityIndex) {
+    this.discountApplicabilityIndex = discountApplicabilityIndex;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void discountChanged(Object entity) {
+    discountApplicabilityIndex.ifAvailable(DiscountApplicabilityIndex::rebuildAfterCommit);
+  }
+}
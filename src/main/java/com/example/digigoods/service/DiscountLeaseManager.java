@@ -0,0 +1,167 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.exception.InvalidDiscountException;
+import com.example.digigoods.model.Discount;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out discount uses from blocks leased off the {@code discounts} row.
+ *
+ * <p>Instead of decrementing {@code remaining_uses} for every order, this node takes a
+ * block of uses from the row in a short transaction of its own and then serves orders
+ * from a local counter. The row is only locked again when the block runs out. Unused
+ * uses go back to the row when the lease expires or the application shuts down; a crash
+ * loses at most one block per discount.
+ *
+ * <p>Blocks are taken and returned through {@link DiscountLeaseStore}, which has its own
+ * connections, so a checkout that refills the lease, and the checkouts waiting for it,
+ * only ever hold their one connection of the application's pool.
+ */
+@Component
+public class DiscountLeaseManager {
+
+  private static final Logger log = LoggerFactory.getLogger(DiscountLeaseManager.class);
+
+  private final DiscountLeaseStore discountLeaseStore;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int blockSize;
+  private final long leaseTtlMillis;
+  private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+  public DiscountLeaseManager(DiscountLeaseStore discountLeaseStore,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${discount.lease.block-size:50}") int blockSize,
+                              @Value("${discount.lease.ttl-seconds:300}") long leaseTtlSeconds) {
+    this.discountLeaseStore = discountLeaseStore;
+    this.eventPublisher = eventPublisher;
+    this.blockSize = blockSize;
+    this.leaseTtlMillis = leaseTtlSeconds * 1000;
+  }
+
+  /**
+   * Check whether a use of the discount can still be handed out.
+   *
+   * <p>Uses left in the local lease are checked first; the row value is only consulted
+   * when the lease is empty, since that is where the next block would come from.
+   *
+   * @param discount the discount to check
+   * @return true if a use is available, false otherwise
+   */
+  public boolean hasAvailableUses(Discount discount) {
+    Lease lease = leases.get(discount.getId());
+    if (lease != null && lease.available.get() > 0) {
+      return true;
+    }
+    return discount.getRemainingUses() > 0;
+  }
+
+  /**
+   * Consume one use of the discount, leasing a new block from the row if needed.
+   *
+   * <p>When called inside a transaction that later rolls back, the use is handed back to
+   * the local lease.
+   *
+   * @param discount the discount to consume
+   * @throws InvalidDiscountException if the discount has no remaining uses
+   */
+  public void consumeUse(Discount discount) {
+    Lease lease = leases.computeIfAbsent(discount.getId(), id -> new Lease());
+
+    while (!lease.tryTake()) {
+      lease.refillLock.lock();
+      try {
+        if (lease.available.get() == 0) {
+          int granted = discountLeaseStore.lease(discount.getId(), blockSize);
+          if (granted == 0) {
+            throw new InvalidDiscountException(discount.getCode(),
+                "discount has no remaining uses");
+          }
+          lease.expiresAtMillis = System.currentTimeMillis() + leaseTtlMillis;
+          lease.available.addAndGet(granted);
+        }
+      } finally {
+        lease.refillLock.unlock();
+      }
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            lease.available.incrementAndGet();
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Return the unused part of every expired lease to its row.
+   */
+  @Scheduled(fixedDelayString = "${discount.lease.sweep-millis:30000}")
+  public void returnExpiredLeases() {
+    long now = System.currentTimeMillis();
+    leases.forEach((discountId, lease) -> {
+      if (lease.expiresAtMillis <= now) {
+        returnLease(discountId, lease);
+      }
+    });
+  }
+
+  /**
+   * Return the unused part of every lease to its row on shutdown.
+   */
+  @PreDestroy
+  public void returnAllLeases() {
+    leases.forEach(this::returnLease);
+  }
+
+  private void returnLease(Long discountId, Lease lease) {
+    lease.refillLock.lock();
+    try {
+      int unused = lease.available.getAndSet(0);
+      if (unused > 0) {
+        try {
+          discountLeaseStore.giveBack(discountId, unused);
+          eventPublisher.publishEvent(CatalogChangedEvent.stockOnly());
+        } catch (RuntimeException e) {
+          lease.available.addAndGet(unused);
+          log.warn("Could not return leased uses of discount {}", discountId, e);
+        }
+      }
+    } finally {
+      lease.refillLock.unlock();
+    }
+  }
+
+  private static final class Lease {
+
+    private final AtomicInteger available = new AtomicInteger();
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile long expiresAtMillis;
+
+    private boolean tryTake() {
+      int current = available.get();
+      while (current > 0) {
+        if (available.compareAndSet(current, current - 1)) {
+          return true;
+        }
+        current = available.get();
+      }
+      return false;
+    }
+  }
+}
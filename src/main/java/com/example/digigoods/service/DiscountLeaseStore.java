@@ -0,0 +1,83 @@
+package com.example.digigoods.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves discount uses between the {@code discounts} rows and the leases of
+ * {@link DiscountLeaseManager}.
+ *
+ * <p>Blocks are leased while a checkout waits for them, and that checkout, like every
+ * other one waiting for the same lease, already holds a connection of the application's
+ * pool. The store therefore uses a small pool of its own, configured by
+ * {@code discount.lease.pool-size}: a refill never needs a second connection from the
+ * pool it would be waiting on, so a busy pool cannot starve or deadlock the refills.
+ */
+@Component
+public class DiscountLeaseStore implements AutoCloseable {
+
+  private final HikariDataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  public DiscountLeaseStore(DataSourceProperties properties,
+                            @Value("${discount.lease.pool-size:2}") int poolSize) {
+    this.dataSource = properties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    this.dataSource.setPoolName("discount-lease");
+    this.dataSource.setMaximumPoolSize(poolSize);
+    this.dataSource.setMinimumIdle(0);
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(
+        new DataSourceTransactionManager(dataSource));
+  }
+
+  /**
+   * Take up to {@code maxUses} uses off a discount row in a transaction of its own.
+   *
+   * @param discountId the discount ID
+   * @param maxUses the most uses to take
+   * @return the number of uses taken, 0 if the row has none left or does not exist
+   */
+  public int lease(long discountId, int maxUses) {
+    Integer granted = transactionTemplate.execute(status -> {
+      Integer remaining = jdbcTemplate.query(
+          "select remaining_uses from discounts where id = ? for update",
+          result -> result.next() ? result.getInt(1) : null,
+          discountId);
+      if (remaining == null) {
+        return 0;
+      }
+      int uses = Math.min(maxUses, Math.max(remaining, 0));
+      if (uses > 0) {
+        jdbcTemplate.update(
+            "update discounts set remaining_uses = remaining_uses - ? where id = ?",
+            uses, discountId);
+      }
+      return uses;
+    });
+    return granted == null ? 0 : granted;
+  }
+
+  /**
+   * Add unused uses back to a discount row.
+   *
+   * @param discountId the discount ID
+   * @param uses the number of uses to add
+   */
+  public void giveBack(long discountId, int uses) {
+    jdbcTemplate.update("update discounts set remaining_uses = remaining_uses + ? where id = ?",
+        uses, discountId);
+  }
+
+  @Override
+  public void close() {
+    dataSource.close();
+  }
+}
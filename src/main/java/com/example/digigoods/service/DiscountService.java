@@ -1,11 +1,20 @@
 package com.example.digigoods.service;
 
+import com.example.digigoods.dto.DiscountView;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
 import com.example.digigoods.exception.InvalidDiscountException;
 import com.example.digigoods.model.Discount;
 import com.example.digigoods.repository.DiscountRepository;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for discount operations.
@@ -14,18 +23,36 @@ import org.springframework.stereotype.Service;
 public class DiscountService {
 
   private final DiscountRepository discountRepository;
+  private final DiscountLeaseManager discountLeaseManager;
 
-  public DiscountService(DiscountRepository discountRepository) {
+  public DiscountService(DiscountRepository discountRepository,
+                         DiscountLeaseManager discountLeaseManager) {
     this.discountRepository = discountRepository;
+    this.discountLeaseManager = discountLeaseManager;
   }
 
   /**
    * Get all discounts from the database.
    *
-   * @return list of all discounts
+   * <p>Loaded with two set-based queries, one for the discounts and one for the IDs of
+   * their applicable products, instead of loading a product collection per discount.
+   *
+   * @return list of all discounts in ID order
    */
-  public List<Discount> getAllDiscounts() {
-    return discountRepository.findAll();
+  @Transactional(readOnly = true)
+  public List<DiscountView> getAllDiscounts() {
+    List<DiscountView> discounts = discountRepository.findAllViews();
+    Map<Long, DiscountView> byId = new HashMap<>();
+    for (DiscountView discount : discounts) {
+      byId.put(discount.getId(), discount);
+    }
+    for (Object[] link : discountRepository.findAllApplicableProductLinks()) {
+      DiscountView discount = byId.get((Long) link[0]);
+      if (discount != null) {
+        discount.getApplicableProductIds().add((Long) link[1]);
+      }
+    }
+    return discounts;
   }
 
   /**
@@ -36,6 +63,24 @@ public class DiscountService {
    * @throws InvalidDiscountException if any discount is invalid
    */
   public List<Discount> validateAndGetDiscounts(List<String> discountCodes) {
+    CheckoutValidation validation = new CheckoutValidation();
+    List<Discount> discounts = findValidDiscounts(discountCodes, validation);
+    if (!validation.isValid()) {
+      throw new InvalidDiscountException(validation.getViolations().get(0).message());
+    }
+    return discounts;
+  }
+
+  /**
+   * Get discounts by their codes, recording every unknown, repeated or unusable code
+   * instead of throwing at the first one.
+   *
+   * @param discountCodes the list of discount codes
+   * @param validation the validation to record invalid discounts in
+   * @return list of the valid discounts
+   */
+  public List<Discount> findValidDiscounts(List<String> discountCodes,
+                                           CheckoutValidation validation) {
     if (discountCodes == null || discountCodes.isEmpty()) {
       return List.of();
     }
@@ -44,52 +89,68 @@ public class DiscountService {
 
     // Check if all codes were found
     if (discounts.size() != discountCodes.size()) {
-      List<String> foundCodes = discounts.stream()
+      Set<String> foundCodes = discounts.stream()
           .map(Discount::getCode)
-          .toList();
+          .collect(Collectors.toSet());
 
-      String missingCode = discountCodes.stream()
+      discountCodes.stream()
           .filter(code -> !foundCodes.contains(code))
-          .findFirst()
-          .orElse("unknown");
-
-      throw new InvalidDiscountException(missingCode, "discount code not found");
+          .distinct()
+          .forEach(code -> rejectDiscount(validation, code, "discount code not found"));
     }
 
+    // Each code can only be applied once per order
+    Set<String> seenCodes = new HashSet<>();
+    discountCodes.stream()
+        .filter(code -> !seenCodes.add(code))
+        .distinct()
+        .forEach(code -> rejectDiscount(validation, code, "discount code is used more than once"));
+
     // Validate each discount
     LocalDate today = LocalDate.now();
+    List<Discount> validDiscounts = new ArrayList<>(discounts.size());
     for (Discount discount : discounts) {
-      validateDiscount(discount, today);
+      String reason = invalidReason(discount, today);
+      if (reason == null) {
+        validDiscounts.add(discount);
+      } else {
+        rejectDiscount(validation, discount.getCode(), reason);
+      }
     }
 
-    return discounts;
+    return validDiscounts;
   }
 
   /**
-   * Update remaining uses for discounts.
+   * Consume one use of each discount from this node's lease.
    *
    * @param discounts the list of discounts to update
+   * @throws InvalidDiscountException if any discount ran out of uses meanwhile
    */
   public void updateDiscountUsage(List<Discount> discounts) {
     for (Discount discount : discounts) {
-      discount.setRemainingUses(discount.getRemainingUses() - 1);
-      discountRepository.save(discount);
+      discountLeaseManager.consumeUse(discount);
     }
   }
 
-  private void validateDiscount(Discount discount, LocalDate today) {
+  private String invalidReason(Discount discount, LocalDate today) {
     // Check if discount is expired
     if (today.isBefore(discount.getValidFrom())) {
-      throw new InvalidDiscountException(discount.getCode(), "discount is not yet valid");
+      return "discount is not yet valid";
     }
 
     if (today.isAfter(discount.getValidUntil())) {
-      throw new InvalidDiscountException(discount.getCode(), "discount has expired");
+      return "discount has expired";
     }
 
     // Check if discount has remaining uses
-    if (discount.getRemainingUses() <= 0) {
-      throw new InvalidDiscountException(discount.getCode(), "discount has no remaining uses");
+    if (!discountLeaseManager.hasAvailableUses(discount)) {
+      return "discount has no remaining uses";
     }
+    return null;
+  }
+
+  private static void rejectDiscount(CheckoutValidation validation, String code, String reason) {
+    validation.reject(Reason.INVALID_DISCOUNT, "Invalid discount code '" + code + "': " + reason);
   }
 }
@@ -0,0 +1,101 @@
+package com.example.digigoods.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel that tracks deadlines in fixed-size time slots.
+ *
+ * <p>Scheduling is O(1): an item is appended to the bucket of its deadline tick. Each
+ * call to {@link #advance(long)} only visits the buckets of the ticks that elapsed since
+ * the previous call, keeping items whose deadline lies more than one wheel rotation away.
+ *
+ * @param <T> type of the scheduled items
+ */
+final class HashedTimerWheel<T> {
+
+  private final long tickMillis;
+  private final long startMillis;
+  private final int mask;
+  private final List<List<Timeout<T>>> buckets;
+  private long lastTick;
+  private int size;
+
+  HashedTimerWheel(long tickMillis, int wheelSize, long startMillis) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("tickMillis must be positive");
+    }
+    if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+      throw new IllegalArgumentException("wheelSize must be a power of two");
+    }
+    this.tickMillis = tickMillis;
+    this.startMillis = startMillis;
+    this.mask = wheelSize - 1;
+    this.buckets = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      buckets.add(new ArrayList<>());
+    }
+    this.lastTick = 0;
+  }
+
+  /**
+   * Schedule an item to expire at the given deadline.
+   *
+   * <p>Deadlines that already passed fire on the next tick.
+   *
+   * @param item the item to schedule
+   * @param deadlineMillis the deadline in epoch milliseconds
+   */
+  synchronized void schedule(T item, long deadlineMillis) {
+    long deadlineTick = Math.max(tickOf(deadlineMillis), lastTick + 1);
+    buckets.get((int) (deadlineTick & mask)).add(new Timeout<>(item, deadlineTick));
+    size++;
+  }
+
+  /**
+   * Advance the wheel to the given time and collect every expired item.
+   *
+   * @param nowMillis the current time in epoch milliseconds
+   * @return expired items in deadline order per bucket
+   */
+  synchronized List<T> advance(long nowMillis) {
+    long nowTick = tickOf(nowMillis);
+    if (nowTick <= lastTick) {
+      return List.of();
+    }
+
+    List<T> expired = new ArrayList<>();
+    // Visiting more than one rotation would only revisit the same buckets
+    long ticksToVisit = Math.min(nowTick - lastTick, buckets.size());
+    for (long tick = nowTick - ticksToVisit + 1; tick <= nowTick; tick++) {
+      Iterator<Timeout<T>> iterator = buckets.get((int) (tick & mask)).iterator();
+      while (iterator.hasNext()) {
+        Timeout<T> timeout = iterator.next();
+        if (timeout.deadlineTick() <= nowTick) {
+          expired.add(timeout.item());
+          iterator.remove();
+          size--;
+        }
+      }
+    }
+    lastTick = nowTick;
+    return expired;
+  }
+
+  /**
+   * Number of items that have not expired yet.
+   *
+   * @return pending item count
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  private long tickOf(long millis) {
+    return Math.floorDiv(millis - startMillis, tickMillis);
+  }
+
+  private record Timeout<T>(T item, long deadlineTick) {
+  }
+}
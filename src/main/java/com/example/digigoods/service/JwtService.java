@@ -1,25 +1,38 @@
 package com.example.digigoods.service;
 
+import com.example.digigoods.security.AuthenticatedUser;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import java.time.Instant;
 import java.util.Date;
-import java.util.function.Function;
 import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
  * Service for JWT token operations.
+ *
+ * <p>The signing key and parser are built once. Verified tokens are cached until they
+ * expire, so a client reusing its token skips the signature check on later requests.
  */
 @Service
 public class JwtService {
 
-  @Value("${jwt.secret:mySecretKey}")
-  private String secret;
+  private final Long expiration;
+  private final SecretKey signingKey;
+  private final JwtParser parser;
+  private final VerifiedTokenCache verifiedTokens;
 
-  @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
-  private Long expiration;
+  public JwtService(@Value("${jwt.secret:mySecretKey}") String secret,
+                    @Value("${jwt.expiration:86400000}") Long expiration, // 24 hours in ms
+                    @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries) {
+    this.expiration = expiration;
+    this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+    this.parser = Jwts.parser().verifyWith(signingKey).build();
+    this.verifiedTokens = new VerifiedTokenCache(cacheMaxEntries);
+  }
 
   /**
    * Generate JWT token for a user.
@@ -34,10 +47,32 @@ public class JwtService {
         .claim("userId", userId)
         .issuedAt(new Date())
         .expiration(new Date(System.currentTimeMillis() + expiration))
-        .signWith(getSigningKey())
+        .signWith(signingKey)
         .compact();
   }
 
+  /**
+   * Verify a JWT token and read the user it was issued to.
+   *
+   * @param token the JWT token
+   * @return the authenticated user
+   * @throws io.jsonwebtoken.JwtException if the token is expired, malformed or forged
+   * @throws IllegalArgumentException if the token is empty
+   */
+  public AuthenticatedUser verify(String token) {
+    Instant now = Instant.now();
+    AuthenticatedUser cached = verifiedTokens.get(token, now);
+    if (cached != null) {
+      return cached;
+    }
+
+    Claims claims = parser.parseSignedClaims(token).getPayload();
+    AuthenticatedUser user = new AuthenticatedUser(claims.get("userId", Long.class),
+        claims.getSubject(), claims.getExpiration().toInstant());
+    verifiedTokens.put(token, user, now);
+    return user;
+  }
+
   /**
    * Extract username from JWT token.
    *
@@ -45,7 +80,7 @@ public class JwtService {
    * @return username
    */
   public String extractUsername(String token) {
-    return extractClaim(token, Claims::getSubject);
+    return verify(token).getUsername();
   }
 
   /**
@@ -55,7 +90,7 @@ public class JwtService {
    * @return user ID
    */
   public Long extractUserId(String token) {
-    return extractClaim(token, claims -> claims.get("userId", Long.class));
+    return verify(token).getUserId();
   }
 
   /**
@@ -65,7 +100,7 @@ public class JwtService {
    * @return true if expired, false otherwise
    */
   public boolean isTokenExpired(String token) {
-    return extractExpiration(token).before(new Date());
+    return verify(token).isExpired(Instant.now());
   }
 
   /**
@@ -76,28 +111,7 @@ public class JwtService {
    * @return true if valid, false otherwise
    */
   public boolean validateToken(String token, String username) {
-    final String extractedUsername = extractUsername(token);
-    return (extractedUsername.equals(username) && !isTokenExpired(token));
-  }
-
-  private Date extractExpiration(String token) {
-    return extractClaim(token, Claims::getExpiration);
-  }
-
-  private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-    final Claims claims = extractAllClaims(token);
-    return claimsResolver.apply(claims);
-  }
-
-  private Claims extractAllClaims(String token) {
-    return Jwts.parser()
-        .verifyWith(getSigningKey())
-        .build()
-        .parseSignedClaims(token)
-        .getPayload();
-  }
-
-  private SecretKey getSigningKey() {
-    return Keys.hmacShaKeyFor(secret.getBytes());
+    AuthenticatedUser user = verify(token);
+    return user.getUsername().equals(username) && !user.isExpired(Instant.now());
   }
 }
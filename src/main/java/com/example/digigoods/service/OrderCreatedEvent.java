@@ -0,0 +1,29 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.dto.OrderExportLine;
+
+/**
+ * Published by the outbox relay, after the fact, for every order that was committed.
+ *
+ * <p>Listeners run on the relay thread and should hand slow work off. Events reach
+ * in-process listeners at most once; consumers that must not miss any read the order
+ * event stream, which can be resumed from an offset.
+ */
+public class OrderCreatedEvent {
+
+  private final long offset;
+  private final OrderExportLine order;
+
+  public OrderCreatedEvent(long offset, OrderExportLine order) {
+    this.offset = offset;
+    this.order = order;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public OrderExportLine getOrder() {
+    return order;
+  }
+}
@@ -0,0 +1,264 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.model.OutboxEvent;
+import com.example.digigoods.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams order events to server-sent event subscribers.
+ *
+ * <p>Every event carries its outbox offset as its ID. While it has subscribers, each
+ * instance follows the published outbox by offset on a thread of its own, so they get the
+ * events published by every instance's relay. It polls every
+ * {@code outbox.stream.poll-millis}, and at once when the relay of this instance published
+ * something.
+ *
+ * <p>Each subscriber has a bounded buffer and a virtual thread that sends from it, so a slow
+ * client never holds up the others and no lock is held while writing. A subscriber that
+ * resumes after an offset, or whose buffer overflowed, first reads the published events it
+ * missed from the outbox in batches, and then continues from its buffer, without gaps or
+ * repeats. Events are kept for {@code outbox.retention-hours}.
+ */
+@Component
+public class OrderEventStream {
+
+  private static final Logger log = LoggerFactory.getLogger(OrderEventStream.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final ObjectMapper objectMapper;
+  private final long timeoutMillis;
+  private final int replayBatchSize;
+  private final long pollMillis;
+  private final int bufferSize;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final Semaphore wakeUps = new Semaphore(0);
+  private Thread follower;
+  private volatile boolean running;
+
+  public OrderEventStream(OutboxEventRepository outboxEventRepository,
+                          ObjectMapper objectMapper,
+                          @Value("${outbox.stream.timeout-millis:1800000}") long timeoutMillis,
+                          @Value("${outbox.stream.replay-batch-size:500}") int replayBatchSize,
+                          @Value("${outbox.stream.poll-millis:1000}") long pollMillis,
+                          @Value("${outbox.stream.buffer-size:256}") int bufferSize) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.objectMapper = objectMapper;
+    this.timeoutMillis = timeoutMillis;
+    this.replayBatchSize = replayBatchSize;
+    this.pollMillis = pollMillis;
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Start following the outbox.
+   */
+  @PostConstruct
+  public void start() {
+    running = true;
+    follower = new Thread(this::follow, "order-event-follower");
+    follower.setDaemon(true);
+    follower.start();
+  }
+
+  /**
+   * Stop following the outbox and end every stream.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    wakeUps.release();
+    follower.join(TimeUnit.SECONDS.toMillis(10));
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+  }
+
+  /**
+   * Subscribe to order events.
+   *
+   * @param afterOffset the offset of the last event already seen, or null for new events
+   *                    only
+   * @return the emitter that streams the events
+   */
+  public SseEmitter subscribe(Long afterOffset) {
+    long offset = afterOffset != null ? afterOffset : currentOffset();
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    Subscriber subscriber = new Subscriber(emitter, offset);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(error -> subscribers.remove(subscriber));
+
+    // Subscribe before catching up, so events followed meanwhile are buffered, not missed
+    subscribers.add(subscriber);
+    Thread.startVirtualThread(subscriber::run);
+    wakeUp();
+    return emitter;
+  }
+
+  /**
+   * Follow the outbox now rather than at the next poll, since the relay published events.
+   *
+   * <p>Only a hint: the events themselves are read from the outbox, like those published
+   * by the relays of other instances.
+   *
+   * @param event the published event
+   */
+  @EventListener
+  public void onOrderCreated(OrderCreatedEvent event) {
+    wakeUp();
+  }
+
+  private void wakeUp() {
+    if (wakeUps.availablePermits() == 0) {
+      wakeUps.release();
+    }
+  }
+
+  private long currentOffset() {
+    Long maxOffset = outboxEventRepository.findMaxOffset();
+    return maxOffset == null ? 0 : maxOffset;
+  }
+
+  private void follow() {
+    Long followOffset = null;
+    while (running) {
+      int read = 0;
+      try {
+        if (subscribers.isEmpty()) {
+          // Nothing to follow for; a new subscriber catches up on what was missed meanwhile
+          followOffset = null;
+        } else {
+          if (followOffset == null) {
+            // From where the earliest subscriber starts, so none of them is left a gap
+            followOffset = subscribers.stream()
+                .mapToLong(subscriber -> subscriber.startOffset)
+                .min().orElse(0);
+          }
+          List<OutboxEvent> events = outboxEventRepository.findPublishedAfter(followOffset,
+              PageRequest.of(0, replayBatchSize));
+          for (OutboxEvent event : events) {
+            if (OrderOutbox.ORDER_CREATED.equals(event.getEventType())) {
+              OrderCreatedEvent orderCreated = OrderOutbox.read(event, objectMapper);
+              subscribers.forEach(subscriber -> subscriber.offer(orderCreated));
+            }
+            followOffset = event.getEventOffset();
+          }
+          read = events.size();
+          if (read == 0 && currentOffset() < followOffset) {
+            // The outbox went back, for example restored from a backup. Read it again from
+            // the start; subscribers skip what they have already sent
+            followOffset = 0L;
+          }
+        }
+      } catch (RuntimeException e) {
+        log.warn("Could not follow order events, retrying later", e);
+      }
+
+      if (read < replayBatchSize) {
+        try {
+          wakeUps.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+          wakeUps.drainPermits();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          running = false;
+        }
+      }
+    }
+  }
+
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<OrderCreatedEvent> buffer;
+    private final long startOffset;
+    // Set when the buffer dropped an event; the sender then reads the outbox instead
+    private volatile boolean behind = true;
+    // Only touched by the sender thread
+    private long lastOffset;
+
+    private Subscriber(SseEmitter emitter, long lastOffset) {
+      this.emitter = emitter;
+      this.buffer = new ArrayBlockingQueue<>(bufferSize);
+      this.startOffset = lastOffset;
+      this.lastOffset = lastOffset;
+    }
+
+    private void offer(OrderCreatedEvent event) {
+      if (!buffer.offer(event)) {
+        behind = true;
+      }
+    }
+
+    private void run() {
+      try {
+        while (subscribers.contains(this)) {
+          if (behind) {
+            // Cleared first, so an overflow during the catch-up triggers another one; every
+            // event dropped until now is committed and read here
+            behind = false;
+            buffer.clear();
+            catchUp();
+            continue;
+          }
+          OrderCreatedEvent event = buffer.poll(pollMillis, TimeUnit.MILLISECONDS);
+          if (event != null) {
+            send(event);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        emitter.complete();
+      } catch (RuntimeException e) {
+        log.warn("Could not replay order events", e);
+        emitter.completeWithError(e);
+      }
+    }
+
+    private void catchUp() {
+      boolean more = true;
+      while (more) {
+        List<OutboxEvent> events = outboxEventRepository.findPublishedAfter(lastOffset,
+            PageRequest.of(0, replayBatchSize));
+        for (OutboxEvent event : events) {
+          if (OrderOutbox.ORDER_CREATED.equals(event.getEventType())) {
+            send(OrderOutbox.read(event, objectMapper));
+          }
+          lastOffset = Math.max(lastOffset, event.getEventOffset());
+        }
+        more = events.size() == replayBatchSize && subscribers.contains(this);
+      }
+    }
+
+    private void send(OrderCreatedEvent event) {
+      if (event.getOffset() <= lastOffset) {
+        return;
+      }
+      try {
+        emitter.send(SseEmitter.event()
+            .id(Long.toString(event.getOffset()))
+            .name(OrderOutbox.ORDER_CREATED)
+            .data(event.getOrder(), MediaType.APPLICATION_JSON));
+        lastOffset = event.getOffset();
+      } catch (IOException | IllegalStateException e) {
+        // The client went away; the emitter reports it through onError or onCompletion
+        subscribers.remove(this);
+      }
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.dto.OrderExportLine;
+import com.example.digigoods.repository.OrderRepository;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for exporting orders.
+ */
+@Service
+public class OrderExportService {
+
+  private final OrderRepository orderRepository;
+  private final int fetchSize;
+
+  public OrderExportService(OrderRepository orderRepository,
+                            @Value("${export.orders.fetch-size:1000}") int fetchSize) {
+    this.orderRepository = orderRepository;
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Visit every order placed in a date range without loading the orders into memory.
+   *
+   * @param from the first day of the range, inclusive
+   * @param to the last day of the range, exclusive
+   * @param action the action to run for each order
+   */
+  @Transactional(readOnly = true)
+  public void forEachOrder(LocalDate from, LocalDate to, Consumer<OrderExportLine> action) {
+    orderRepository.forEachOrder(from.atStartOfDay(), to.atStartOfDay(), fetchSize, action);
+  }
+}
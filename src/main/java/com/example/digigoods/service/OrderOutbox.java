@@ -0,0 +1,96 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.dto.OrderExportLine;
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.Order;
+import com.example.digigoods.model.OrderLine;
+import com.example.digigoods.model.OutboxEvent;
+import com.example.digigoods.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes order events to the outbox in the transaction that creates the order.
+ *
+ * <p>An event is stored if and only if its order is committed. {@link OutboxRelay} publishes
+ * it afterwards, and is woken up when the transaction commits.
+ */
+@Component
+public class OrderOutbox {
+
+  static final String ORDER_CREATED = "order-created";
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final ObjectMapper objectMapper;
+  private final OutboxRelay outboxRelay;
+
+  public OrderOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+                     OutboxRelay outboxRelay) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.objectMapper = objectMapper;
+    this.outboxRelay = outboxRelay;
+  }
+
+  /**
+   * Record that an order was created. Must be called in the transaction that saved it.
+   *
+   * @param order the saved order
+   */
+  public void record(Order order) {
+    List<Long> productIds = new ArrayList<>();
+    for (OrderLine line : order.getLines()) {
+      for (int i = 0; i < line.getQuantity(); i++) {
+        productIds.add(line.getProduct().getId());
+      }
+    }
+    List<String> discountCodes = order.getAppliedDiscounts().stream()
+        .map(Discount::getCode)
+        .sorted()
+        .toList();
+    OrderExportLine payload = new OrderExportLine(order.getId(), order.getUser().getId(),
+        order.getOrderDate(), order.getOriginalSubtotal().toBigDecimal(),
+        order.getFinalPrice().toBigDecimal(), productIds, new ArrayList<>(discountCodes));
+
+    outboxEventRepository.save(new OutboxEvent(ORDER_CREATED, order.getId(),
+        write(payload), LocalDateTime.now()));
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          outboxRelay.wakeUp();
+        }
+      });
+    }
+  }
+
+  /**
+   * Read a published order event back.
+   *
+   * @param event the published outbox event
+   * @param objectMapper the object mapper to read the payload with
+   * @return the order event
+   */
+  static OrderCreatedEvent read(OutboxEvent event, ObjectMapper objectMapper) {
+    try {
+      return new OrderCreatedEvent(event.getEventOffset(),
+          objectMapper.readValue(event.getPayload(), OrderExportLine.class));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not read order event " + event.getId(), e);
+    }
+  }
+
+  private String write(OrderExportLine payload) {
+    try {
+      return objectMapper.writeValueAsString(payload);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize order event", e);
+    }
+  }
+}
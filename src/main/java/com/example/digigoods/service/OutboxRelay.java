@@ -0,0 +1,179 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.model.OutboxEvent;
+import com.example.digigoods.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Background relay that publishes outbox events.
+ *
+ * <p>The relay claims the oldest unpublished events in batches, skipping rows another
+ * instance has locked, numbers them after the highest offset published so far and commits.
+ * Only then are they handed to in-process listeners as {@link OrderCreatedEvent}s. These
+ * only reach listeners on the instance that claimed the batch, so {@link OrderEventStream}
+ * reads the events from the outbox itself and takes the event as a hint to do so. Two
+ * relays that number a batch at the same time collide on the unique offset and the later
+ * one retries, so offsets always grow in commit order.
+ *
+ * <p>The relay runs when woken up by a committed order, and every
+ * {@code outbox.relay.poll-millis} otherwise, so events written by other instances are
+ * picked up too.
+ */
+@Component
+public class OutboxRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int batchSize;
+  private final long pollMillis;
+  private final Duration retention;
+  private final Semaphore wakeUps = new Semaphore(0);
+  private Thread worker;
+  private volatile boolean running;
+
+  public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                     ObjectMapper objectMapper,
+                     ApplicationEventPublisher eventPublisher,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${outbox.relay.enabled:true}") boolean enabled,
+                     @Value("${outbox.relay.batch-size:100}") int batchSize,
+                     @Value("${outbox.relay.poll-millis:1000}") long pollMillis,
+                     @Value("${outbox.retention-hours:72}") long retentionHours) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.pollMillis = pollMillis;
+    this.retention = Duration.ofHours(retentionHours);
+  }
+
+  /**
+   * Start the relay when it is enabled.
+   */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    worker = new Thread(this::run, "outbox-relay");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Stop the relay after its current batch.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (worker != null) {
+      wakeUps.release();
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  /**
+   * Let the relay run now rather than at its next poll.
+   */
+  public void wakeUp() {
+    if (running && wakeUps.availablePermits() == 0) {
+      wakeUps.release();
+    }
+  }
+
+  /**
+   * Delete published events older than {@code outbox.retention-hours}. Consumers cannot
+   * resume from before that.
+   */
+  @Scheduled(fixedDelayString = "${outbox.cleanup-millis:600000}")
+  public void deleteExpired() {
+    LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+    Integer deleted = transactionTemplate.execute(
+        status -> outboxEventRepository.deleteAllPublishedBefore(cutoff));
+    if (deleted != null && deleted > 0) {
+      log.debug("Deleted {} published outbox events", deleted);
+    }
+  }
+
+  /**
+   * Publish the next batch of unpublished events now.
+   *
+   * @return number of events published
+   */
+  public int relayBatch() {
+    List<OutboxEvent> events = transactionTemplate.execute(status -> claimBatch());
+    for (OutboxEvent event : events) {
+      if (OrderOutbox.ORDER_CREATED.equals(event.getEventType())) {
+        eventPublisher.publishEvent(OrderOutbox.read(event, objectMapper));
+      }
+    }
+    return events.size();
+  }
+
+  private List<OutboxEvent> claimBatch() {
+    List<OutboxEvent> events =
+        outboxEventRepository.findUnpublishedForUpdate(PageRequest.of(0, batchSize));
+    if (events.isEmpty()) {
+      return events;
+    }
+
+    Long maxOffset = outboxEventRepository.findMaxOffset();
+    long offset = maxOffset == null ? 0 : maxOffset;
+    LocalDateTime now = LocalDateTime.now();
+    for (OutboxEvent event : events) {
+      event.setEventOffset(++offset);
+      event.setPublishedAt(now);
+    }
+    return events;
+  }
+
+  private void run() {
+    while (running) {
+      int published;
+      try {
+        published = relayBatch();
+      } catch (DataIntegrityViolationException e) {
+        log.debug("Another relay published first, numbering the batch again");
+        continue;
+      } catch (RuntimeException e) {
+        log.warn("Could not publish outbox events, retrying later", e);
+        published = 0;
+      }
+
+      if (published < batchSize) {
+        try {
+          wakeUps.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+          wakeUps.drainPermits();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          running = false;
+        }
+      }
+    }
+  }
+}
@@ -1,14 +1,22 @@
 package com.example.digigoods.service;
 
+import com.example.digigoods.exception.CheckoutViolation.Reason;
 import com.example.digigoods.exception.InsufficientStockException;
 import com.example.digigoods.exception.ProductNotFoundException;
 import com.example.digigoods.model.Product;
 import com.example.digigoods.repository.ProductRepository;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for product operations.
@@ -17,32 +25,60 @@ import org.springframework.stereotype.Service;
 public class ProductService {
 
   private final ProductRepository productRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int defaultPageSize;
+  private final int maxPageSize;
+  private final int streamFetchSize;
 
-  public ProductService(ProductRepository productRepository) {
+  public ProductService(ProductRepository productRepository,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${catalog.page.default-size:100}") int defaultPageSize,
+                        @Value("${catalog.page.max-size:1000}") int maxPageSize,
+                        @Value("${catalog.stream.fetch-size:500}") int streamFetchSize) {
     this.productRepository = productRepository;
+    this.eventPublisher = eventPublisher;
+    this.defaultPageSize = defaultPageSize;
+    this.maxPageSize = maxPageSize;
+    this.streamFetchSize = streamFetchSize;
   }
 
   /**
    * Get products by their IDs and validate they exist.
    *
-   * @param productIds the list of product IDs
-   * @return list of products
+   * @param productIds the list of product IDs (with duplicates for quantity)
+   * @return list of products, one per distinct ID
    * @throws ProductNotFoundException if any product is not found
    */
   public List<Product> getProductsByIds(List<Long> productIds) {
+    CheckoutValidation validation = new CheckoutValidation();
+    List<Product> products = findProductsByIds(productIds, validation);
+    if (!validation.isValid()) {
+      throw new ProductNotFoundException(validation.getViolations().get(0).message());
+    }
+    return products;
+  }
+
+  /**
+   * Get products by their IDs, recording the IDs that do not exist instead of throwing.
+   *
+   * @param productIds the list of product IDs (with duplicates for quantity)
+   * @param validation the validation to record missing products in
+   * @return list of the products found, one per distinct ID
+   */
+  public List<Product> findProductsByIds(List<Long> productIds, CheckoutValidation validation) {
     List<Product> products = productRepository.findAllByIdIn(productIds);
 
-    if (products.size() != productIds.size()) {
+    if (products.size() != productIds.stream().distinct().count()) {
       // Find missing product IDs
-      List<Long> foundIds = products.stream()
+      Set<Long> foundIds = products.stream()
           .map(Product::getId)
-          .collect(Collectors.toList());
+          .collect(Collectors.toSet());
 
       List<Long> missingIds = productIds.stream()
           .filter(id -> !foundIds.contains(id))
           .collect(Collectors.toList());
 
-      throw new ProductNotFoundException("Products not found with IDs: " + missingIds);
+      validation.reject(Reason.PRODUCT_NOT_FOUND, "Products not found with IDs: " + missingIds);
     }
 
     return products;
@@ -53,42 +89,106 @@ public class ProductService {
    *
    * @return list of all products
    */
+  @Transactional(readOnly = true)
   public List<Product> getAllProducts() {
     return productRepository.findAll();
   }
 
+  /**
+   * Resolve a requested page size against the configured default and maximum.
+   *
+   * @param limit the requested page size, or null for the default
+   * @return the page size to use
+   */
+  public int pageSize(Integer limit) {
+    return limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+  }
+
+  /**
+   * Get one page of products in ID order, using the last ID of the previous page as cursor.
+   *
+   * @param afterId the last product ID of the previous page, or null for the first page
+   * @param limit the requested page size, capped at the configured maximum
+   * @return list of products
+   */
+  @Transactional(readOnly = true)
+  public List<Product> getProductsPage(Long afterId, Integer limit) {
+    return productRepository.findByIdGreaterThanOrderByIdAsc(
+        afterId == null ? 0L : afterId, Limit.of(pageSize(limit)));
+  }
+
+  /**
+   * Visit every product in ID order without loading the catalog into memory.
+   *
+   * @param action the action to run for each product
+   */
+  @Transactional(readOnly = true)
+  public void forEachProduct(Consumer<Product> action) {
+    productRepository.forEachProduct(streamFetchSize, action);
+  }
+
   /**
    * Validate and update stock for products.
    *
+   * <p>All lines are decremented with one guarded, batched update, so the stock check
+   * and the write happen atomically in the database instead of in Java.
+   *
    * @param productIds the list of product IDs (with duplicates for quantity)
    * @throws InsufficientStockException if any product has insufficient stock
+   * @throws ProductNotFoundException if any product is not found
    */
+  @Transactional
   public void validateAndUpdateStock(List<Long> productIds) {
     // Count quantities for each product
-    Map<Long, Long> productQuantities = productIds.stream()
-        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-    // Get all unique products
-    List<Product> products = getProductsByIds(productQuantities.keySet().stream()
-        .collect(Collectors.toList()));
-
-    // Validate stock availability
-    for (Product product : products) {
-      Long requestedQuantity = productQuantities.get(product.getId());
-      if (product.getStock() < requestedQuantity) {
-        throw new InsufficientStockException(
-            product.getId(),
-            requestedQuantity.intValue(),
-            product.getStock()
-        );
+    Map<Long, Integer> productQuantities = productIds.stream()
+        .collect(Collectors.groupingBy(Function.identity(),
+            Collectors.summingInt(id -> 1)));
+
+    decrementStock(productQuantities);
+  }
+
+  /**
+   * Atomically take the given quantities out of stock.
+   *
+   * @param productQuantities requested quantity per product ID
+   * @throws InsufficientStockException if any product has insufficient stock
+   * @throws ProductNotFoundException if any product is not found
+   */
+  @Transactional
+  public void decrementStock(Map<Long, Integer> productQuantities) {
+    List<Long> failedIds = productRepository.decrementStock(productQuantities);
+
+    if (!failedIds.isEmpty()) {
+      // Throwing rolls back the lines that were decremented in the same batch. The stock is
+      // read from the table, since products loaded earlier in the transaction are stale
+      Map<Long, Integer> currentStock = productRepository.findCurrentStock(failedIds);
+      List<Long> missingIds = failedIds.stream()
+          .filter(id -> !currentStock.containsKey(id))
+          .toList();
+      if (!missingIds.isEmpty()) {
+        throw new ProductNotFoundException("Products not found with IDs: " + missingIds);
       }
+      Long productId = Collections.min(failedIds);
+      throw new InsufficientStockException(
+          productId,
+          productQuantities.get(productId),
+          currentStock.get(productId)
+      );
     }
 
-    // Update stock
-    for (Product product : products) {
-      Long requestedQuantity = productQuantities.get(product.getId());
-      product.setStock(product.getStock() - requestedQuantity.intValue());
-      productRepository.save(product);
+    if (!productQuantities.isEmpty()) {
+      eventPublisher.publishEvent(CatalogChangedEvent.stockOnly());
     }
   }
+
+  /**
+   * Put previously taken quantities back into stock.
+   *
+   * @param productQuantities quantity to return per product ID
+   */
+  @Transactional
+  public void restoreStock(Map<Long, Integer> productQuantities) {
+    productRepository.incrementStock(productQuantities);
+    eventPublisher.publishEvent(CatalogChangedEvent.stockOnly());
+  }
 }
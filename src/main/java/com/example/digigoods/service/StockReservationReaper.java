@@ -0,0 +1,43 @@
+package com.example.digigoods.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background task that returns the stock of expired reservations.
+ */
+@Component
+public class StockReservationReaper {
+
+  private static final Logger log = LoggerFactory.getLogger(StockReservationReaper.class);
+
+  private final StockReservationService stockReservationService;
+  private final Duration retryDelay;
+
+  public StockReservationReaper(StockReservationService stockReservationService,
+                                @Value("${reservation.tick-millis:1000}") long tickMillis) {
+    this.stockReservationService = stockReservationService;
+    this.retryDelay = Duration.ofMillis(tickMillis * 10);
+  }
+
+  /**
+   * Advance the expiry wheel and release every reservation that timed out.
+   */
+  @Scheduled(fixedDelayString = "${reservation.tick-millis:1000}")
+  public void releaseExpiredReservations() {
+    for (String reservationId : stockReservationService.pollExpired()) {
+      try {
+        stockReservationService.expire(reservationId);
+      } catch (RuntimeException e) {
+        log.warn("Could not release expired reservation {}, retrying later", reservationId, e);
+        stockReservationService.scheduleExpiry(reservationId,
+            LocalDateTime.now().plus(retryDelay));
+      }
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.dto.ReservationResponse;
+import com.example.digigoods.exception.InsufficientStockException;
+import com.example.digigoods.exception.InvalidReservationException;
+import com.example.digigoods.model.StockHold;
+import com.example.digigoods.repository.StockHoldRepository;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for two-phase stock reservations.
+ *
+ * <p>Reserving takes stock out of the products table right away and records the held
+ * lines in {@code stock_holds}. A checkout then confirms the reservation instead of
+ * decrementing stock again, while a release or expiry puts the stock back. Expiry is
+ * driven by an in-memory {@link HashedTimerWheel}; the table is only read on startup to
+ * re-arm timers for holds that survived a restart.
+ */
+@Service
+public class StockReservationService {
+
+  private static final int WHEEL_SIZE = 512;
+
+  private final StockHoldRepository stockHoldRepository;
+  private final ProductService productService;
+  private final long holdMinutes;
+  private final HashedTimerWheel<String> expiryWheel;
+
+  public StockReservationService(StockHoldRepository stockHoldRepository,
+                                 ProductService productService,
+                                 @Value("${reservation.hold-minutes:15}") long holdMinutes,
+                                 @Value("${reservation.tick-millis:1000}") long tickMillis) {
+    this.stockHoldRepository = stockHoldRepository;
+    this.productService = productService;
+    this.holdMinutes = holdMinutes;
+    this.expiryWheel = new HashedTimerWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+  }
+
+  /**
+   * Hold stock for the given products.
+   *
+   * @param userId the ID of the user owning the reservation
+   * @param productIds the list of product IDs (with duplicates for quantity)
+   * @return reservation response with the reservation ID and its expiry
+   * @throws InsufficientStockException if any product has insufficient stock
+   */
+  @Transactional
+  public ReservationResponse reserve(Long userId, List<Long> productIds) {
+    Map<Long, Integer> quantities = countQuantities(productIds);
+    productService.decrementStock(quantities);
+
+    String reservationId = UUID.randomUUID().toString();
+    LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(holdMinutes);
+    List<StockHold> holds = quantities.entrySet().stream()
+        .map(entry -> new StockHold(reservationId, entry.getKey(), userId, entry.getValue(),
+            expiresAt))
+        .toList();
+    stockHoldRepository.saveAll(holds);
+
+    scheduleExpiry(reservationId, expiresAt);
+    return new ReservationResponse(reservationId, expiresAt);
+  }
+
+  /**
+   * Turn a reservation into a sale; the held stock stays taken.
+   *
+   * @param reservationId the reservation ID
+   * @param userId the ID of the user placing the order
+   * @param productIds the ordered product IDs, which must match the reservation exactly
+   * @throws InvalidReservationException if the reservation cannot be used for this order
+   */
+  @Transactional
+  public void confirm(String reservationId, Long userId, List<Long> productIds) {
+    List<StockHold> holds = findOwnedHolds(reservationId, userId);
+
+    if (holds.get(0).getExpiresAt().isBefore(LocalDateTime.now())) {
+      throw new InvalidReservationException(reservationId, "reservation has expired");
+    }
+
+    Map<Long, Integer> heldQuantities = holds.stream()
+        .collect(Collectors.toMap(StockHold::getProductId, StockHold::getQuantity));
+    if (!heldQuantities.equals(countQuantities(productIds))) {
+      throw new InvalidReservationException(reservationId,
+          "ordered products do not match the reservation");
+    }
+
+    if (stockHoldRepository.deleteAllByReservationId(reservationId) != holds.size()) {
+      throw new InvalidReservationException(reservationId, "reservation was already released");
+    }
+  }
+
+  /**
+   * Release a reservation and put its stock back.
+   *
+   * @param reservationId the reservation ID
+   * @param userId the ID of the user owning the reservation
+   * @throws InvalidReservationException if the reservation does not exist
+   */
+  @Transactional
+  public void release(String reservationId, Long userId) {
+    restoreHolds(reservationId, findOwnedHolds(reservationId, userId));
+  }
+
+  /**
+   * Release a reservation whose timer fired, unless it was confirmed or released already.
+   *
+   * @param reservationId the reservation ID
+   */
+  @Transactional
+  public void expire(String reservationId) {
+    List<StockHold> holds = stockHoldRepository.findAllByReservationId(reservationId);
+    if (holds.isEmpty()) {
+      return;
+    }
+
+    LocalDateTime expiresAt = holds.get(0).getExpiresAt();
+    if (expiresAt.isAfter(LocalDateTime.now())) {
+      scheduleExpiry(reservationId, expiresAt);
+      return;
+    }
+
+    restoreHolds(reservationId, holds);
+  }
+
+  /**
+   * Re-arm expiry timers for every hold stored in the database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void scheduleStoredHolds() {
+    stockHoldRepository.findAll().stream()
+        .collect(Collectors.toMap(StockHold::getReservationId, StockHold::getExpiresAt,
+            (first, second) -> first.isBefore(second) ? first : second))
+        .forEach(this::scheduleExpiry);
+  }
+
+  List<String> pollExpired() {
+    return pollExpired(System.currentTimeMillis());
+  }
+
+  List<String> pollExpired(long nowMillis) {
+    return expiryWheel.advance(nowMillis);
+  }
+
+  void scheduleExpiry(String reservationId, LocalDateTime expiresAt) {
+    expiryWheel.schedule(reservationId,
+        expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+  }
+
+  private List<StockHold> findOwnedHolds(String reservationId, Long userId) {
+    List<StockHold> holds = stockHoldRepository.findAllByReservationId(reservationId);
+    if (holds.isEmpty() || !holds.get(0).getUserId().equals(userId)) {
+      throw new InvalidReservationException(reservationId, "reservation not found");
+    }
+    return holds.stream()
+        .sorted(Comparator.comparing(StockHold::getProductId))
+        .toList();
+  }
+
+  private void restoreHolds(String reservationId, List<StockHold> holds) {
+    // Only the transaction that actually deletes the holds may return their stock
+    if (stockHoldRepository.deleteAllByReservationId(reservationId) == holds.size()) {
+      productService.restoreStock(holds.stream()
+          .collect(Collectors.toMap(StockHold::getProductId, StockHold::getQuantity)));
+    }
+  }
+
+  private Map<Long, Integer> countQuantities(List<Long> productIds) {
+    return productIds.stream()
+        .collect(Collectors.groupingBy(Function.identity(), Collectors.summingInt(id -> 1)));
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.digigoods.service;
+
+import com.example.digigoods.security.AuthenticatedUser;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified.
+ *
+ * <p>Entries are keyed by the full token string, so only a byte-identical token can hit.
+ * An entry is never served after its token expires. When the cache is full, expired
+ * entries are swept first and arbitrary entries are evicted if that is not enough; a
+ * token evicted early is simply verified again.
+ */
+final class VerifiedTokenCache {
+
+  private final int maxEntries;
+  private final Map<String, AuthenticatedUser> entries = new ConcurrentHashMap<>();
+
+  VerifiedTokenCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  AuthenticatedUser get(String token, Instant now) {
+    AuthenticatedUser user = entries.get(token);
+    if (user != null && user.isExpired(now)) {
+      entries.remove(token, user);
+      return null;
+    }
+    return user;
+  }
+
+  void put(String token, AuthenticatedUser user, Instant now) {
+    if (maxEntries <= 0) {
+      return;
+    }
+    if (entries.size() >= maxEntries) {
+      evict(now);
+    }
+    entries.put(token, user);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evict(Instant now) {
+    entries.values().removeIf(user -> user.isExpired(now));
+    Iterator<String> tokens = entries.keySet().iterator();
+    while (entries.size() >= maxEntries && tokens.hasNext()) {
+      tokens.next();
+      tokens.remove();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.example.digigoods;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Integration tests for the actuator endpoints.
+ *
+ * <p>Tests do not export metrics by default, so the Prometheus registry is switched back on.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class ActuatorIntegrationTest {
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+  }
+
+  @Test
+  @DisplayName("Given the prometheus endpoint, when scraping it, then expose the checkout meters")
+  void givenPrometheusEndpoint_whenScraping_thenExposeCheckoutMeters() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString(
+            "checkout_stage_seconds_bucket{stage=\"product_validation\"")))
+        .andExpect(content().string(containsString(
+            "checkout_stage_seconds_bucket{stage=\"commit\",le=\"+Inf\"}")))
+        .andExpect(content().string(containsString(
+            "checkout_rejections_total{reason=\"insufficient_stock\"}")))
+        .andExpect(content().string(containsString("checkout_in_flight ")));
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.digigoods.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import javax.sql.DataSource;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Tests for LiquibaseFastPath, applying the application changelog to a fresh H2 database.
+ */
+class LiquibaseFastPathTest {
+
+  private static final String CHANGE_LOG = "classpath:db/changelog/db.changelog-master.yaml";
+
+  private final LiquibaseFastPath fastPath = new LiquibaseFastPath(true, true);
+  private DataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+  }
+
+  @Test
+  @DisplayName("Given an updated database, when starting with the same changelog, "
+      + "then skip Liquibase")
+  void givenUpdatedDatabase_whenStartingWithSameChangelog_thenSkipLiquibase()
+      throws LiquibaseException {
+    // Arrange
+    RecordingLiquibase first = start(null);
+
+    // Act
+    RecordingLiquibase second = start(null);
+
+    // Assert
+    assertTrue(first.ran);
+    assertFalse(second.ran);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    assertEquals(fastPath.checksum(first), jdbcTemplate.queryForObject(
+        "SELECT checksum FROM changelog_checksums", String.class));
+  }
+
+  @Test
+  @DisplayName("Given an updated database, when starting with other contexts, "
+      + "then run Liquibase")
+  void givenUpdatedDatabase_whenStartingWithOtherContexts_thenRunLiquibase()
+      throws LiquibaseException {
+    // Arrange
+    start(null);
+
+    // Act
+    RecordingLiquibase second = start("test");
+    RecordingLiquibase third = start("test");
+
+    // Assert
+    assertTrue(second.ran);
+    assertFalse(third.ran);
+  }
+
+  private RecordingLiquibase start(String contexts) throws LiquibaseException {
+    RecordingLiquibase liquibase = new RecordingLiquibase();
+    liquibase.setDataSource(dataSource);
+    liquibase.setChangeLog(CHANGE_LOG);
+    liquibase.setContexts(contexts);
+    liquibase.setResourceLoader(new DefaultResourceLoader());
+    fastPath.postProcessBeforeInitialization(liquibase, "liquibase");
+    liquibase.afterPropertiesSet();
+    fastPath.postProcessAfterInitialization(liquibase, "liquibase");
+    return liquibase;
+  }
+
+  private static class RecordingLiquibase extends SpringLiquibase {
+
+    private boolean ran;
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+      ran = shouldRun;
+      super.afterPropertiesSet();
+    }
+  }
+}
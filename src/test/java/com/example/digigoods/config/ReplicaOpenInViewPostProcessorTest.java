@@ -0,0 +1,61 @@
+package com.example.digigoods.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Tests for ReplicaOpenInViewPostProcessor.
+ */
+class ReplicaOpenInViewPostProcessorTest {
+
+  private final ReplicaOpenInViewPostProcessor postProcessor =
+      new ReplicaOpenInViewPostProcessor();
+
+  @Test
+  @DisplayName("Given no replicas, when processing the environment, then leave open-in-view "
+      + "alone")
+  void givenNoReplicas_whenProcessingEnvironment_thenLeaveOpenInViewAlone() {
+    // Arrange
+    MockEnvironment environment = new MockEnvironment();
+
+    // Act
+    postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+    // Assert
+    assertNull(environment.getProperty(ReplicaOpenInViewPostProcessor.OPEN_IN_VIEW));
+  }
+
+  @Test
+  @DisplayName("Given replicas, when processing the environment, then turn off open-in-view")
+  void givenReplicas_whenProcessingEnvironment_thenTurnOffOpenInView() {
+    // Arrange
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("datasource.replicas.urls", "jdbc:h2:mem:replica");
+
+    // Act
+    postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+    // Assert
+    assertEquals("false", environment.getProperty(ReplicaOpenInViewPostProcessor.OPEN_IN_VIEW));
+  }
+
+  @Test
+  @DisplayName("Given replicas and open-in-view on, when processing the environment, then "
+      + "fail")
+  void givenReplicasAndOpenInView_whenProcessingEnvironment_thenFail() {
+    // Arrange
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("datasource.replicas.urls", "jdbc:h2:mem:replica")
+        .withProperty(ReplicaOpenInViewPostProcessor.OPEN_IN_VIEW, "true");
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class,
+        () -> postProcessor.postProcessEnvironment(environment, new SpringApplication()));
+  }
+}
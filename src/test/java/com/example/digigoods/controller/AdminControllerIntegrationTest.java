@@ -0,0 +1,346 @@
+package com.example.digigoods.controller;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.digigoods.logging.RequestLoggingFilter;
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Order;
+import com.example.digigoods.model.OutboxEvent;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.model.User;
+import com.example.digigoods.repository.DiscountRepository;
+import com.example.digigoods.repository.OrderRepository;
+import com.example.digigoods.repository.OutboxEventRepository;
+import com.example.digigoods.repository.ProductRepository;
+import com.example.digigoods.repository.UserRepository;
+import com.example.digigoods.service.OrderOutbox;
+import com.example.digigoods.service.OutboxRelay;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Integration tests for AdminController.
+ *
+ * <p>Not transactional: the export and the event stream read committed rows on another
+ * thread, so test data is committed and removed again after each test.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+class AdminControllerIntegrationTest {
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  private MockMvc mockMvc;
+  private final List<MvcResult> streams = new ArrayList<>();
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private DiscountRepository discountRepository;
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private OutboxEventRepository outboxEventRepository;
+
+  @Autowired
+  private OrderOutbox orderOutbox;
+
+  @Autowired
+  private OutboxRelay outboxRelay;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private Product product1;
+  private Product product2;
+  private Order discountedOrder;
+  private Order plainOrder;
+
+  @BeforeEach
+  void setUp() {
+    // Set up MockMvc
+    mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+    // Set up test data
+    User user = new User();
+    user.setUsername("exportuser");
+    user.setPassword("password");
+    user = userRepository.save(user);
+
+    product1 = productRepository.save(new Product(null, "Export 1", Money.of("10.00"), 5));
+    product2 = productRepository.save(new Product(null, "Export 2", Money.of("20.00"), 5));
+
+    Discount discount = new Discount();
+    discount.setCode("EXPORT10");
+    discount.setPercentage(new BigDecimal("10.00"));
+    discount.setType(DiscountType.GENERAL);
+    discount.setValidFrom(LocalDate.now().minusDays(1));
+    discount.setValidUntil(LocalDate.now().plusDays(1));
+    discount.setRemainingUses(10);
+    discount.setApplicableProducts(new HashSet<>());
+    discount = discountRepository.save(discount);
+
+    discountedOrder = saveOrder(user, List.of(product1, product2), Set.of(discount), "27.00");
+    plainOrder = saveOrder(user, List.of(product1, product1), Set.of(), "20.00");
+  }
+
+  @AfterEach
+  void tearDown() {
+    // Ends the streams, so they stop following the outbox for later tests
+    streams.forEach(result -> result.getRequest().getAsyncContext().complete());
+    outboxEventRepository.deleteAll();
+    orderRepository.deleteAll();
+    discountRepository.deleteAll();
+    productRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("Given orders in range, when exporting, then stream one line per order")
+  void givenOrdersInRange_whenExporting_thenStreamOneLinePerOrder() throws Exception {
+    // Act
+    MvcResult result = mockMvc.perform(get("/admin/orders/export")
+            .param("from", LocalDate.now().toString())
+            .param("to", LocalDate.now().plusDays(1).toString()))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Assert
+    String body = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn().getResponse().getContentAsString();
+    List<JsonNode> lines = body.lines().map(this::readLine).toList();
+    assertEquals(2, lines.size());
+
+    JsonNode first = lines.get(0);
+    assertEquals(discountedOrder.getId(), first.get("orderId").asLong());
+    assertEquals(Set.of(product1.getId(), product2.getId()), Set.of(
+        first.get("productIds").get(0).asLong(), first.get("productIds").get(1).asLong()));
+    assertEquals("EXPORT10", first.get("discountCodes").get(0).asText());
+    assertEquals(0, new BigDecimal("27.00").compareTo(first.get("finalPrice").decimalValue()));
+
+    JsonNode second = lines.get(1);
+    assertEquals(plainOrder.getId(), second.get("orderId").asLong());
+    assertEquals(product1.getId(), second.get("productIds").get(0).asLong());
+    assertEquals(product1.getId(), second.get("productIds").get(1).asLong());
+    assertEquals(2, second.get("productIds").size());
+    assertEquals(0, second.get("discountCodes").size());
+  }
+
+  @Test
+  @DisplayName("Given no orders in range, when exporting, then stream nothing")
+  void givenNoOrdersInRange_whenExporting_thenStreamNothing() throws Exception {
+    // Act
+    MvcResult result = mockMvc.perform(get("/admin/orders/export")
+            .param("from", LocalDate.now().minusDays(7).toString())
+            .param("to", LocalDate.now().toString()))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Assert
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  @DisplayName("Given an empty range, when exporting, then return bad request")
+  void givenEmptyRange_whenExporting_thenReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/admin/orders/export")
+            .param("from", LocalDate.now().toString())
+            .param("to", LocalDate.now().toString()))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("Given a last event ID, when streaming order events, then resume after it and "
+      + "follow new events")
+  void givenLastEventId_whenStreamingOrderEvents_thenResumeAfterItAndFollowNewEvents()
+      throws Exception {
+    // Arrange
+    long firstOffset = publish(discountedOrder);
+    long secondOffset = publish(plainOrder);
+
+    // Act
+    MvcResult result = stream(get("/admin/orders/events")
+        .header("Last-Event-ID", firstOffset));
+    await().atMost(Duration.ofSeconds(5))
+        .until(() -> hasEvent(result, secondOffset));
+    long thirdOffset = publish(discountedOrder);
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5))
+        .until(() -> hasEvent(result, thirdOffset));
+    String body = result.getResponse().getContentAsString();
+    assertFalse(hasEvent(result, firstOffset));
+    assertTrue(body.contains("event:order-created\n"));
+    assertTrue(body.contains("\"orderId\":" + plainOrder.getId()));
+    assertTrue(body.indexOf("id:" + secondOffset + "\n")
+        < body.indexOf("id:" + thirdOffset + "\n"));
+  }
+
+  @Test
+  @DisplayName("Given no offset, when streaming order events, then stream only new events")
+  void givenNoOffset_whenStreamingOrderEvents_thenStreamOnlyNewEvents() throws Exception {
+    // Arrange
+    long oldOffset = publish(discountedOrder);
+
+    // Act
+    MvcResult result = stream(get("/admin/orders/events"));
+    long newOffset = publish(plainOrder);
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5))
+        .until(() -> hasEvent(result, newOffset));
+    assertFalse(hasEvent(result, oldOffset));
+  }
+
+  @Test
+  @DisplayName("Given an event published by another instance, when streaming order events, "
+      + "then follow it from the outbox")
+  void givenEventPublishedElsewhere_whenStreamingOrderEvents_thenFollowItFromOutbox()
+      throws Exception {
+    // Arrange
+    MvcResult result = stream(get("/admin/orders/events"));
+
+    // Act
+    long offset = publishElsewhere(plainOrder);
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5))
+        .until(() -> hasEvent(result, offset));
+  }
+
+  private MvcResult stream(MockHttpServletRequestBuilder builder) throws Exception {
+    MvcResult result = mockMvc.perform(builder)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    streams.add(result);
+    return result;
+  }
+
+  private long publish(Order order) {
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(status -> orderOutbox.record(order));
+    outboxRelay.relayBatch();
+    return outboxEventRepository.findMaxOffset();
+  }
+
+  // Numbers the event the way another instance's relay would, without a local event
+  private long publishElsewhere(Order order) {
+    return new TransactionTemplate(transactionManager).execute(status -> {
+      orderOutbox.record(order);
+      Long maxOffset = outboxEventRepository.findMaxOffset();
+      long offset = maxOffset == null ? 1 : maxOffset + 1;
+      OutboxEvent event = outboxEventRepository
+          .findUnpublishedForUpdate(PageRequest.of(0, 1)).get(0);
+      event.setEventOffset(offset);
+      event.setPublishedAt(LocalDateTime.now());
+      return offset;
+    });
+  }
+
+  private boolean hasEvent(MvcResult result, long offset) throws Exception {
+    return result.getResponse().getContentAsString().contains("id:" + offset + "\n");
+  }
+
+  @Test
+  @DisplayName("Given debug logging switched on for a user, when that user logs, then log at "
+      + "DEBUG until switched off")
+  void givenDebugLoggingOnForUser_whenUserLogs_thenLogAtDebugUntilSwitchedOff()
+      throws Exception {
+    // Arrange
+    Logger logger = LoggerFactory.getLogger(AdminController.class);
+    MDC.put(RequestLoggingFilter.USER, "exportuser");
+
+    try {
+      // Act & Assert
+      mockMvc.perform(put("/admin/logging/debug/users/exportuser").param("minutes", "5"))
+          .andExpect(status().isNoContent());
+      assertTrue(logger.isDebugEnabled());
+
+      mockMvc.perform(delete("/admin/logging/debug/users/exportuser"))
+          .andExpect(status().isNoContent());
+      assertFalse(logger.isDebugEnabled());
+    } finally {
+      MDC.remove(RequestLoggingFilter.USER);
+    }
+  }
+
+  private Order saveOrder(User user, List<Product> products, Set<Discount> discounts,
+                          String finalPrice) {
+    Order order = new Order();
+    order.setUser(user);
+    for (Product product : Set.copyOf(products)) {
+      int quantity = Collections.frequency(products, product);
+      order.addLine(product, quantity, product.getPrice());
+    }
+    order.setAppliedDiscounts(new HashSet<>(discounts));
+    order.setOriginalSubtotal(Money.of("30.00"));
+    order.setFinalPrice(Money.of(finalPrice));
+    return orderRepository.save(order);
+  }
+
+  private JsonNode readLine(String line) {
+    try {
+      return objectMapper.readTree(line);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
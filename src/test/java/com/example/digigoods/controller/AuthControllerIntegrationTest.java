@@ -1,5 +1,6 @@
 package com.example.digigoods.controller;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -15,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -72,6 +74,28 @@ class AuthControllerIntegrationTest {
         .andExpect(jsonPath("$.userId").exists());
   }
 
+  @Test
+  @DisplayName("Given a hash with an old cost factor, when logging in, then rehash the password")
+  void givenHashWithOldCostFactor_whenLoggingIn_thenRehashPassword() throws Exception {
+    // Arrange
+    User legacyUser = new User();
+    legacyUser.setUsername("legacyuser");
+    legacyUser.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+    userRepository.save(legacyUser);
+    LoginRequest loginRequest = new LoginRequest("legacyuser", "password");
+
+    // Act
+    mockMvc.perform(post("/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(loginRequest)))
+        .andExpect(status().isOk());
+
+    // Assert
+    String storedHash = userRepository.findByUsername("legacyuser").orElseThrow().getPassword();
+    assertTrue(storedHash.startsWith("$2a$10$"));
+    assertTrue(passwordEncoder.matches("password", storedHash));
+  }
+
   @Test
   @DisplayName("Given invalid credentials, when logging in, then return unauthorized")
   void givenInvalidCredentials_whenLoggingIn_thenReturnUnauthorized() throws Exception {
@@ -1,5 +1,7 @@
 package com.example.digigoods.controller;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -7,11 +9,18 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.example.digigoods.model.Discount;
 import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
 import com.example.digigoods.repository.DiscountRepository;
+import com.example.digigoods.repository.ProductRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -45,6 +54,12 @@ class DiscountControllerIntegrationTest {
   @Autowired
   private DiscountRepository discountRepository;
 
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
   private Discount discount1;
   private Discount discount2;
 
@@ -114,4 +129,51 @@ class DiscountControllerIntegrationTest {
         .andExpect(jsonPath("$").isArray())
         .andExpect(jsonPath("$.length()").value(0));
   }
+
+  @Test
+  @DisplayName("Given a matching ETag, when getting discounts, then return not modified")
+  void givenMatchingEtag_whenGettingDiscounts_thenReturnNotModified() throws Exception {
+    // Arrange
+    String etag = mockMvc.perform(get("/discounts"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader("ETag");
+
+    // Act & Assert
+    mockMvc.perform(get("/discounts").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  @DisplayName("Given discounts with applicable products, when getting discounts, "
+      + "then return product ids from two queries")
+  void givenDiscountsWithProducts_whenGettingDiscounts_thenReturnProductIdsFromTwoQueries()
+      throws Exception {
+    // Arrange
+    Product product1 = productRepository.save(new Product(null, "Book", Money.of("10.00"), 5));
+    Product product2 = productRepository.save(new Product(null, "Album", Money.of("5.00"), 5));
+    discount2.setApplicableProducts(new HashSet<>(Set.of(product1, product2)));
+    for (int i = 0; i < 5; i++) {
+      Discount discount = new Discount(null, "EXTRA" + i, new BigDecimal("5.00"),
+          DiscountType.PRODUCT_SPECIFIC, LocalDate.now(), LocalDate.now().plusDays(1), 1,
+          new HashSet<>(Set.of(product1)), null);
+      discountRepository.save(discount);
+    }
+    entityManager.flush();
+    entityManager.clear();
+    Statistics statistics = entityManager.getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    // Act
+    mockMvc.perform(get("/discounts"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(7))
+        .andExpect(jsonPath("$[0].applicableProductIds.length()").value(0))
+        .andExpect(jsonPath("$[1].applicableProductIds",
+            containsInAnyOrder(product1.getId().intValue(), product2.getId().intValue())))
+        .andExpect(jsonPath("$[1].applicableProducts").doesNotExist());
+
+    // Assert
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
 }
@@ -1,14 +1,23 @@
 package com.example.digigoods.controller;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.digigoods.model.Money;
 import com.example.digigoods.model.Product;
 import com.example.digigoods.repository.ProductRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.math.BigDecimal;
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,7 +27,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -56,13 +67,13 @@ class ProductControllerIntegrationTest {
     // Create test products
     product1 = new Product();
     product1.setName("Test Product 1");
-    product1.setPrice(new BigDecimal("100.00"));
+    product1.setPrice(Money.of("100.00"));
     product1.setStock(10);
     product1 = productRepository.save(product1);
 
     product2 = new Product();
     product2.setName("Test Product 2");
-    product2.setPrice(new BigDecimal("50.00"));
+    product2.setPrice(Money.of("50.00"));
     product2.setStock(5);
     product2 = productRepository.save(product2);
   }
@@ -101,4 +112,139 @@ class ProductControllerIntegrationTest {
         .andExpect(jsonPath("$").isArray())
         .andExpect(jsonPath("$.length()").value(0));
   }
+
+  @Test
+  @DisplayName("Given a full page, when getting products, then link to the next page")
+  void givenFullPage_whenGettingProducts_thenLinkToNextPage() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products").param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].id").value(product1.getId()))
+        .andExpect(header().string("Link", containsString(
+            "afterId=" + product1.getId() + "&limit=1>; rel=\"next\"")));
+
+    mockMvc.perform(get("/products")
+            .param("afterId", product1.getId().toString())
+            .param("limit", "5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].id").value(product2.getId()))
+        .andExpect(header().doesNotExist("Link"));
+  }
+
+  @Test
+  @DisplayName("Given a matching ETag, when getting products, then return not modified")
+  void givenMatchingEtag_whenGettingProducts_thenReturnNotModified() throws Exception {
+    // Arrange
+    String etag = mockMvc.perform(get("/products"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "no-cache"))
+        .andReturn().getResponse().getHeader("ETag");
+
+    // Act & Assert
+    mockMvc.perform(get("/products").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().bytes(new byte[0]));
+  }
+
+  @Test
+  @DisplayName("Given a product changes, when getting products, then return a new ETag")
+  void givenProductChanges_whenGettingProducts_thenReturnNewEtag() throws Exception {
+    // Arrange
+    String etag = mockMvc.perform(get("/products"))
+        .andReturn().getResponse().getHeader("ETag");
+    product1.setStock(3);
+    productRepository.saveAndFlush(product1);
+
+    // Act & Assert
+    mockMvc.perform(get("/products").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", not(etag)))
+        .andExpect(jsonPath("$[0].stock").value(3));
+  }
+
+  @Test
+  @DisplayName("Given gzip is accepted, when getting products, then return compressed body")
+  void givenGzipAccepted_whenGettingProducts_thenReturnCompressedBody() throws Exception {
+    // Act
+    MvcResult result = mockMvc.perform(get("/products").header("Accept-Encoding", "gzip"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+        .andExpect(header().string("ETag", endsWith("-gzip\"")))
+        .andReturn();
+
+    // Assert
+    byte[] json;
+    try (GZIPInputStream gzip = new GZIPInputStream(
+        new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+      json = gzip.readAllBytes();
+    }
+    assertEquals(2, objectMapper.readTree(json).size());
+  }
+
+  @Test
+  @DisplayName("Given gzip with a partial q-value, when getting products, then compress")
+  void givenGzipWithPartialQuality_whenGettingProducts_thenCompress() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products").header("Accept-Encoding", "br, gzip;q=0.5"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andExpect(header().string("ETag", endsWith("-gzip\"")));
+  }
+
+  @Test
+  @DisplayName("Given gzip with q=0, when getting products, then return plain body")
+  void givenGzipRefused_whenGettingProducts_thenReturnPlainBody() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products").header("Accept-Encoding", "*, GZIP; Q=0.000"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Content-Encoding"))
+        .andExpect(header().string("ETag", not(endsWith("-gzip\""))))
+        .andExpect(jsonPath("$.length()").value(2));
+  }
+
+  @Test
+  @DisplayName("Given any coding is accepted, when getting products, then compress")
+  void givenWildcardAccepted_whenGettingProducts_thenCompress() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products").header("Accept-Encoding", "*"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"));
+  }
+
+  @Test
+  @DisplayName("Given any coding is refused, when getting products, then return plain body")
+  void givenWildcardRefused_whenGettingProducts_thenReturnPlainBody() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products").header("Accept-Encoding", "identity, *;q=0"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Content-Encoding"))
+        .andExpect(jsonPath("$.length()").value(2));
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @DisplayName("Given stream mode, when getting products, then stream the whole catalog")
+  void givenStreamMode_whenGettingProducts_thenStreamWholeCatalog() throws Exception {
+    // Products are committed here, the stream reads them on another thread
+    try {
+      // Act
+      MvcResult result = mockMvc.perform(get("/products").param("stream", "true"))
+          .andExpect(request().asyncStarted())
+          .andReturn();
+
+      // Assert
+      mockMvc.perform(asyncDispatch(result))
+          .andExpect(status().isOk())
+          .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+          .andExpect(jsonPath("$.length()").value(2))
+          .andExpect(jsonPath("$[0].id").value(product1.getId()))
+          .andExpect(jsonPath("$[0].price").value(100.00))
+          .andExpect(jsonPath("$[1].name").value("Test Product 2"));
+    } finally {
+      productRepository.deleteAll();
+    }
+  }
 }
@@ -0,0 +1,215 @@
+package com.example.digigoods.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests for ReplicaRoutingDataSource, with two H2 databases standing in for the primary
+ * and its replica. Each holds a row naming it.
+ */
+class ReplicaRoutingDataSourceTest {
+
+  private FailingDataSource replica;
+  private ReplicaRoutingDataSource routingDataSource;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+  private final List<Long> commits = new ArrayList<>();
+  private final List<Set<Long>> writers = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    DataSource primary = database("primary");
+    replica = new FailingDataSource(database("replica"));
+    routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), 5000,
+        (commitMillis, userIds) -> {
+          commits.add(commitMillis);
+          writers.add(userIds);
+        });
+
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ReadConsistency.clear();
+  }
+
+  @Test
+  @DisplayName("Given an unchecked replica, when reading, then use the primary")
+  void givenUncheckedReplica_whenReading_thenUsePrimary() {
+    // Act
+    String database = readOnly.execute(status -> currentDatabase());
+
+    // Assert
+    assertEquals("primary", database);
+  }
+
+  @Test
+  @DisplayName("Given a caught up replica, when reading, then use the replica")
+  void givenCaughtUpReplica_whenReading_thenUseReplica() {
+    // Arrange
+    routingDataSource.checkReplicas();
+
+    // Act
+    String database = readOnly.execute(status -> currentDatabase());
+
+    // Assert
+    assertEquals("replica", database);
+  }
+
+  @Test
+  @DisplayName("Given a caught up replica, when writing, then use the primary and report the "
+      + "commit")
+  void givenCaughtUpReplica_whenWriting_thenUsePrimaryAndReportCommit() {
+    // Arrange
+    routingDataSource.checkReplicas();
+    long before = System.currentTimeMillis();
+
+    // Act
+    String database = readWrite.execute(status -> currentDatabase());
+
+    // Assert
+    assertEquals("primary", database);
+    assertEquals(1, commits.size());
+    assertTrue(commits.get(0) >= before);
+    assertEquals(Set.of(), writers.get(0));
+  }
+
+  @Test
+  @DisplayName("Given a write on behalf of a user, when committing, then report the user with "
+      + "the commit")
+  void givenWriteOnBehalfOfUser_whenCommitting_thenReportUserWithCommit() {
+    // Act
+    readWrite.executeWithoutResult(status -> {
+      currentDatabase();
+      ReadConsistency.writingFor(7L);
+    });
+
+    // Assert
+    assertEquals(List.of(Set.of(7L)), writers);
+    assertEquals(Set.of(), ReadConsistency.writersOfCurrentTransaction());
+  }
+
+  @Test
+  @DisplayName("Given explicit credentials, when reading, then open the routed connection "
+      + "with them")
+  void givenExplicitCredentials_whenReading_thenOpenRoutedConnectionWithThem()
+      throws SQLException {
+    // Arrange
+    routingDataSource.checkReplicas();
+
+    // Act
+    String database = readOnly.execute(status -> {
+      try (Connection connection = routingDataSource.getConnection("sa", "")) {
+        return new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+            .queryForObject("select name from database_name", String.class);
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    // Assert
+    assertEquals("replica", database);
+  }
+
+  @Test
+  @DisplayName("Given a write the replica has not replayed, when reading, then use the primary")
+  void givenWriteReplicaHasNotReplayed_whenReading_thenUsePrimary() {
+    // Arrange
+    routingDataSource.checkReplicas();
+    ReadConsistency.requireWritesUpTo(System.currentTimeMillis() + 1000);
+
+    // Act
+    String database = readOnly.execute(status -> currentDatabase());
+
+    // Assert
+    assertEquals("primary", database);
+  }
+
+  @Test
+  @DisplayName("Given a failing replica, when reading, then fall back to the primary until "
+      + "the replica is checked again")
+  void givenFailingReplica_whenReading_thenFallBackToPrimaryUntilChecked() {
+    // Arrange
+    routingDataSource.checkReplicas();
+    replica.failing = true;
+
+    // Act
+    String database = readOnly.execute(status -> currentDatabase());
+
+    // Assert
+    assertEquals("primary", database);
+    replica.failing = false;
+    assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+    routingDataSource.checkReplicas();
+    assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+  }
+
+  @Test
+  @DisplayName("Given an unreachable replica, when checking, then keep reading from the primary")
+  void givenUnreachableReplica_whenChecking_thenKeepReadingFromPrimary() {
+    // Arrange
+    replica.failing = true;
+
+    // Act
+    routingDataSource.checkReplicas();
+
+    // Assert
+    assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+  }
+
+  private String currentDatabase() {
+    return jdbcTemplate.queryForObject("select name from database_name", String.class);
+  }
+
+  private static DataSource database(String name) {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table if not exists database_name (name varchar(16))");
+    jdbcTemplate.update("delete from database_name");
+    jdbcTemplate.update("insert into database_name values (?)", name);
+    return dataSource;
+  }
+
+  private static final class FailingDataSource extends DelegatingDataSource {
+
+    private volatile boolean failing;
+
+    private FailingDataSource(DataSource target) {
+      super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      if (failing) {
+        throw new SQLException("Replica is down");
+      }
+      return super.getConnection();
+    }
+  }
+}
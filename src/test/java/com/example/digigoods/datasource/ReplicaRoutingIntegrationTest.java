@@ -0,0 +1,137 @@
+package com.example.digigoods.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.digigoods.dto.LoginRequest;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.model.User;
+import com.example.digigoods.repository.ProductRepository;
+import com.example.digigoods.repository.UserRepository;
+import com.example.digigoods.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Integration tests for read replica routing. The test database doubles as its own
+ * replica, so a read sees the same rows wherever it is routed.
+ */
+@SpringBootTest(properties = "datasource.replicas.urls=jdbc:h2:mem:testdb")
+@ActiveProfiles("test")
+class ReplicaRoutingIntegrationTest {
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+  @Autowired
+  private ProductService productService;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private WebApplicationContext webApplicationContext;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockitoSpyBean
+  private ReadYourWritesInterceptor readYourWritesInterceptor;
+
+  @Value("${spring.jpa.open-in-view}")
+  private boolean openInView;
+
+  @AfterEach
+  void tearDown() {
+    productRepository.deleteAll();
+    userRepository.findByUsername("replicauser").ifPresent(userRepository::delete);
+  }
+
+  @Test
+  @DisplayName("Given replicas, when the application starts, then route through a lazy "
+      + "DataSource")
+  void givenReplicas_whenApplicationStarts_thenRouteThroughLazyDataSource() {
+    // Assert
+    LazyConnectionDataSourceProxy proxy =
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+    assertEquals(replicaRoutingDataSource, proxy.getTargetDataSource());
+  }
+
+  @Test
+  @DisplayName("Given a caught up replica, when reading products, then see the committed "
+      + "products")
+  void givenCaughtUpReplica_whenReadingProducts_thenSeeCommittedProducts() {
+    // Arrange
+    productRepository.save(new Product(null, "Replicated", Money.of("10.00"), 5));
+    replicaRoutingDataSource.checkReplicas();
+
+    // Act & Assert
+    assertEquals(1, productService.getAllProducts().size());
+  }
+
+  @Test
+  @DisplayName("Given replicas, when the application starts, then turn off open-in-view")
+  void givenReplicas_whenApplicationStarts_thenTurnOffOpenInView() {
+    // Assert
+    assertFalse(openInView);
+  }
+
+  @Test
+  @DisplayName("Given a read-only and then a read-write transaction in one request, when "
+      + "the request runs, then write on the primary")
+  void givenReadThenWriteInOneRequest_whenRequestRuns_thenWriteOnPrimary() throws Exception {
+    // Arrange: logging in reads the user read-only, then stores the rehashed password
+    User user = new User();
+    user.setUsername("replicauser");
+    user.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+    userRepository.save(user);
+    replicaRoutingDataSource.checkReplicas();
+    List<Thread> primaryWriters = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      primaryWriters.add(Thread.currentThread());
+      return invocation.callRealMethod();
+    }).when(readYourWritesInterceptor).writeCommitted(anyLong(), any());
+    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+    // Act
+    mockMvc.perform(post("/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new LoginRequest("replicauser", "password"))))
+        .andExpect(status().isOk());
+
+    // Assert: MockMvc runs the request on this thread
+    assertTrue(primaryWriters.contains(Thread.currentThread()));
+    assertTrue(userRepository.findByUsername("replicauser").orElseThrow().getPassword()
+        .startsWith("$2a$10$"));
+  }
+}
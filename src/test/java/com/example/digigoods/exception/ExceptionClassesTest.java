@@ -123,6 +123,44 @@ class ExceptionClassesTest {
     }
   }
 
+  @Nested
+  @DisplayName("InvalidReservationException Tests")
+  class InvalidReservationExceptionTest {
+
+    @Test
+    @DisplayName("Given custom message, when creating exception, "
+        + "then message should be set correctly")
+    void givenCustomMessage_whenCreatingException_thenMessageShouldBeSetCorrectly() {
+      // Arrange
+      String customMessage = "Custom invalid reservation message";
+
+      // Act
+      InvalidReservationException exception = new InvalidReservationException(customMessage);
+
+      // Assert
+      assertEquals(customMessage, exception.getMessage());
+      assertTrue(exception instanceof RuntimeException);
+    }
+
+    @Test
+    @DisplayName("Given reservation ID and reason, when creating exception, "
+        + "then formatted message should be created")
+    void givenReservationIdAndReason_whenCreatingException_thenFormattedMessageShouldBeCreated() {
+      // Arrange
+      String reservationId = "abc-123";
+      String reason = "reservation has expired";
+
+      // Act
+      InvalidReservationException exception = new InvalidReservationException(
+          reservationId, reason);
+
+      // Assert
+      String expectedMessage = "Invalid reservation 'abc-123': reservation has expired";
+      assertEquals(expectedMessage, exception.getMessage());
+      assertTrue(exception instanceof RuntimeException);
+    }
+  }
+
   @Nested
   @DisplayName("MissingJwtTokenException Tests")
   class MissingJwtTokenExceptionTest {
@@ -234,6 +272,7 @@ class ExceptionClassesTest {
       assertTrue(new ExcessiveDiscountException() instanceof RuntimeException);
       assertTrue(new InsufficientStockException("test") instanceof RuntimeException);
       assertTrue(new InvalidDiscountException("test") instanceof RuntimeException);
+      assertTrue(new InvalidReservationException("test") instanceof RuntimeException);
       assertTrue(new MissingJwtTokenException() instanceof RuntimeException);
       assertTrue(new ProductNotFoundException("test") instanceof RuntimeException);
       assertTrue(new UnauthorizedAccessException() instanceof RuntimeException);
@@ -246,6 +285,7 @@ class ExceptionClassesTest {
       assertNotNull(new ExcessiveDiscountException().getMessage());
       assertNotNull(new InsufficientStockException("test").getMessage());
       assertNotNull(new InvalidDiscountException("test").getMessage());
+      assertNotNull(new InvalidReservationException("test").getMessage());
       assertNotNull(new MissingJwtTokenException().getMessage());
       assertNotNull(new ProductNotFoundException("test").getMessage());
       assertNotNull(new UnauthorizedAccessException().getMessage());
@@ -0,0 +1,72 @@
+package com.example.digigoods.logging;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+class DebugLogSwitchTest {
+
+  private final DebugLogSwitch debugLogSwitch =
+      new DebugLogSwitch(List.of("test.switched"), 15, 60);
+  private final Logger switched = (Logger) LoggerFactory.getLogger("test.switched.Service");
+  private final Logger other = (Logger) LoggerFactory.getLogger("test.switchedOther");
+
+  @BeforeEach
+  void setUp() {
+    switched.setLevel(Level.INFO);
+    other.setLevel(Level.INFO);
+    debugLogSwitch.register();
+  }
+
+  @AfterEach
+  void tearDown() {
+    debugLogSwitch.unregister();
+    switched.setLevel(null);
+    other.setLevel(null);
+    MDC.clear();
+  }
+
+  @Test
+  @DisplayName("Given debug switched on for a user, when logging, then log that user's "
+      + "requests at DEBUG in switched loggers only")
+  void givenDebugOnForUser_whenLogging_thenLogThatUsersRequestsAtDebugInSwitchedLoggersOnly() {
+    // Arrange
+    debugLogSwitch.enableForUser("alice", null);
+
+    // Act & Assert
+    MDC.put(RequestLoggingFilter.USER, "alice");
+    assertTrue(switched.isDebugEnabled());
+    assertFalse(switched.isTraceEnabled());
+    assertFalse(other.isDebugEnabled());
+    MDC.put(RequestLoggingFilter.USER, "bob");
+    assertFalse(switched.isDebugEnabled());
+
+    debugLogSwitch.disableForUser("alice");
+    MDC.put(RequestLoggingFilter.USER, "alice");
+    assertFalse(switched.isDebugEnabled());
+  }
+
+  @Test
+  @DisplayName("Given an expired switch for a request, when logging, then keep the level")
+  void givenExpiredSwitchForRequest_whenLogging_thenKeepLevel() {
+    // Arrange
+    debugLogSwitch.enableForRequest("request-1", Duration.ZERO);
+    debugLogSwitch.enableForRequest("request-2", Duration.ofMinutes(1));
+
+    // Act & Assert
+    MDC.put(RequestLoggingFilter.REQUEST_ID, "request-1");
+    assertFalse(switched.isDebugEnabled());
+    MDC.put(RequestLoggingFilter.REQUEST_ID, "request-2");
+    assertTrue(switched.isDebugEnabled());
+  }
+}
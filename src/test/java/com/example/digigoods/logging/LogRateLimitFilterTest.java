@@ -0,0 +1,62 @@
+package com.example.digigoods.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LogRateLimitFilterTest {
+
+  private final LoggerContext loggerContext = new LoggerContext();
+  private final LogRateLimitFilter filter = new LogRateLimitFilter();
+  private Logger chatty;
+  private Logger quiet;
+
+  @BeforeEach
+  void setUp() {
+    chatty = loggerContext.getLogger("test.chatty");
+    chatty.setLevel(Level.INFO);
+    quiet = loggerContext.getLogger("test.quiet");
+    quiet.setLevel(Level.INFO);
+    filter.setEventsPerSecond(10);
+    filter.setSampleEvery(5);
+    filter.start();
+  }
+
+  @Test
+  @DisplayName("Given a logger over its limit, when logging, then keep one event in sampleEvery")
+  void givenLoggerOverLimit_whenLogging_thenKeepOneEventInSampleEvery() {
+    // Act
+    long kept = IntStream.range(0, 30)
+        .mapToObj(i -> filter.decide(null, chatty, Level.INFO, "event {}", null, null))
+        .filter(reply -> reply == FilterReply.NEUTRAL)
+        .count();
+
+    // Assert
+    assertEquals(14, kept);
+    assertEquals(FilterReply.NEUTRAL,
+        filter.decide(null, quiet, Level.INFO, "event {}", null, null));
+  }
+
+  @Test
+  @DisplayName("Given a logger over its limit, when logging errors or checking levels, "
+      + "then never drop them")
+  void givenLoggerOverLimit_whenLoggingErrorsOrCheckingLevels_thenNeverDropThem() {
+    // Arrange
+    IntStream.range(0, 30)
+        .forEach(i -> filter.decide(null, chatty, Level.INFO, "event {}", null, null));
+
+    // Act & Assert
+    assertEquals(FilterReply.NEUTRAL,
+        filter.decide(null, chatty, Level.ERROR, "failure", null, null));
+    assertEquals(FilterReply.NEUTRAL, filter.decide(null, chatty, Level.INFO, null, null, null));
+    assertEquals(FilterReply.NEUTRAL,
+        filter.decide(null, chatty, Level.DEBUG, "disabled anyway", null, null));
+  }
+}
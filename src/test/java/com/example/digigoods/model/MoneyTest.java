@@ -0,0 +1,37 @@
+package com.example.digigoods.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+  @Test
+  @DisplayName("Given a half cent, when taking a percentage, then round away from zero")
+  void givenHalfCent_whenTakingPercentage_thenRoundAwayFromZero() {
+    // Act & Assert
+    assertEquals(Money.ofCents(1), Money.ofCents(1).percentage(5000));
+    assertEquals(Money.ofCents(-1), Money.ofCents(-1).percentage(5000));
+    assertEquals(Money.ofCents(0), Money.ofCents(1).percentage(4999));
+  }
+
+  @Test
+  @DisplayName("Given a discounted amount, when expressing it as a percentage, then round HALF_UP")
+  void givenDiscountedAmount_whenExpressingAsPercentage_thenRoundHalfUp() {
+    // Act & Assert
+    assertEquals(3333, Money.of("1.00").percentageOf(Money.of("3.00")));
+    assertEquals(6667, Money.of("2.00").percentageOf(Money.of("3.00")));
+  }
+
+  @Test
+  @DisplayName("Given a decimal amount, when converting, then keep two decimal places")
+  void givenDecimalAmount_whenConverting_thenKeepTwoDecimalPlaces() {
+    // Act & Assert
+    assertEquals(new BigDecimal("12.50"), Money.of(new BigDecimal("12.5")).toBigDecimal());
+    assertEquals(1250, Money.basisPoints(new BigDecimal("12.50")));
+    assertThrows(ArithmeticException.class, () -> Money.of("0.001"));
+  }
+}
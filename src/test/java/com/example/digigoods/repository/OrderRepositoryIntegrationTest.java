@@ -0,0 +1,112 @@
+package com.example.digigoods.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Order;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.model.User;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for persisting orders.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class OrderRepositoryIntegrationTest {
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private DiscountRepository discountRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  private User user;
+  private List<Product> products;
+  private Set<Discount> discounts;
+
+  @BeforeEach
+  void setUp() {
+    user = new User();
+    user.setUsername("orderuser");
+    user.setPassword("password");
+    user = userRepository.save(user);
+
+    products = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      products.add(productRepository.save(
+          new Product(null, "Product " + i, Money.of("1.00"), 10)));
+    }
+
+    discounts = new HashSet<>();
+    for (int i = 0; i < 3; i++) {
+      discounts.add(discountRepository.save(new Discount(null, "ORDER" + i,
+          new BigDecimal("1.00"), DiscountType.GENERAL, LocalDate.now(),
+          LocalDate.now().plusDays(1), 10, new HashSet<>(), null)));
+    }
+    entityManager.flush();
+  }
+
+  @Test
+  @DisplayName("Given a large cart, when saving an order, then batch the inserts per table")
+  void givenLargeCart_whenSavingOrder_thenBatchInsertsPerTable() {
+    // Arrange
+    // The first order initializes the id pools, which takes extra sequence calls
+    orderRepository.saveAndFlush(newOrder(products.subList(0, 1)));
+    Order order = newOrder(products);
+    Statistics statistics = entityManager.getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    // Act
+    orderRepository.saveAndFlush(order);
+
+    // Assert
+    // One insert per table, plus a sequence call for orders or lines if a pool ran out
+    assertTrue(statistics.getPrepareStatementCount() <= 5,
+        "statements: " + statistics.getPrepareStatementCount());
+    assertEquals(41, statistics.getEntityInsertCount());
+    entityManager.clear();
+    Order saved = orderRepository.findById(order.getId()).orElseThrow();
+    assertEquals(40, saved.getLines().size());
+    assertEquals(3, saved.getAppliedDiscounts().size());
+  }
+
+  private Order newOrder(List<Product> cart) {
+    Order order = new Order();
+    order.setUser(user);
+    cart.forEach(product -> order.addLine(product, 2, product.getPrice()));
+    order.setAppliedDiscounts(new HashSet<>(discounts));
+    order.setOriginalSubtotal(Money.of("80.00"));
+    order.setFinalPrice(Money.of("77.62"));
+    return order;
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.digigoods.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.digigoods.exception.InsufficientStockException;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.service.ProductService;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the stock fragment of ProductRepository and the stock updates of
+ * ProductService built on it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ProductRepositoryIntegrationTest {
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ProductService productService;
+
+  private Product product1;
+  private Product product2;
+
+  @BeforeEach
+  void setUp() {
+    productRepository.deleteAll();
+    product1 = productRepository.save(new Product(null, "Product 1", Money.of("10.00"), 5));
+    product2 = productRepository.save(new Product(null, "Product 2", Money.of("20.00"), 1));
+    entityManager.flush();
+  }
+
+  @Test
+  @DisplayName("Given enough stock, when decrementing stock, then update every row")
+  void givenEnoughStock_whenDecrementingStock_thenUpdateEveryRow() {
+    // Act
+    List<Long> failedIds = productRepository.decrementStock(
+        Map.of(product1.getId(), 2, product2.getId(), 1));
+
+    // Assert
+    assertTrue(failedIds.isEmpty());
+    entityManager.clear();
+    assertEquals(3, productRepository.findById(product1.getId()).orElseThrow().getStock());
+    assertEquals(0, productRepository.findById(product2.getId()).orElseThrow().getStock());
+  }
+
+  @Test
+  @DisplayName("Given one short line, when decrementing stock, then report only that product")
+  void givenOneShortLine_whenDecrementingStock_thenReportOnlyThatProduct() {
+    // Act
+    List<Long> failedIds = productRepository.decrementStock(
+        Map.of(product1.getId(), 1, product2.getId(), 2, -1L, 1));
+
+    // Assert
+    assertEquals(List.of(-1L, product2.getId()), failedIds);
+    entityManager.clear();
+    assertEquals(4, productRepository.findById(product1.getId()).orElseThrow().getStock());
+    assertEquals(1, productRepository.findById(product2.getId()).orElseThrow().getStock());
+  }
+
+  @Test
+  @DisplayName("Given a product whose stock changed after it was loaded, when taking more "
+      + "than is left, then report the current stock")
+  void givenStockChangedAfterLoading_whenTakingMoreThanLeft_thenReportCurrentStock() {
+    // Arrange: the product is managed with stock 5 while another checkout leaves 1
+    productRepository.findAllByIdIn(List.of(product1.getId()));
+    jdbcTemplate.update("UPDATE products SET stock = 1 WHERE id = ?", product1.getId());
+
+    // Act
+    InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+        () -> productService.decrementStock(Map.of(product1.getId(), 2)));
+
+    // Assert
+    assertEquals("Insufficient stock for product " + product1.getId()
+        + ". Requested: 2, Available: 1", exception.getMessage());
+    assertEquals(Map.of(product1.getId(), 1),
+        productRepository.findCurrentStock(List.of(product1.getId(), -1L)));
+  }
+}
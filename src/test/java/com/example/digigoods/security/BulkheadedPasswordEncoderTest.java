@@ -0,0 +1,86 @@
+package com.example.digigoods.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.digigoods.exception.LoginCapacityExceededException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BulkheadedPasswordEncoderTest {
+
+  @Test
+  @DisplayName("Given an encoded password, when matching, then delegate on the hashing pool")
+  void givenEncodedPassword_whenMatching_thenDelegateOnHashingPool() {
+    // Arrange
+    try (BulkheadedPasswordEncoder encoder =
+             new BulkheadedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1)) {
+      String encoded = encoder.encode("secret");
+
+      // Act & Assert
+      assertTrue(encoder.matches("secret", encoded));
+      assertFalse(encoder.matches("wrong", encoded));
+    }
+  }
+
+  @Test
+  @DisplayName("Given a full hashing queue, when matching, then reject immediately")
+  void givenFullHashingQueue_whenMatching_thenRejectImmediately() throws Exception {
+    // Arrange
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blocking = new BlockingPasswordEncoder(started, release);
+    try (BulkheadedPasswordEncoder encoder = new BulkheadedPasswordEncoder(blocking, 1, 1)) {
+      final CompletableFuture<Boolean> running =
+          CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+      started.await();
+      CompletableFuture<Boolean> queued =
+          CompletableFuture.supplyAsync(() -> encoder.matches("b", "b"));
+      while (!queued.isDone() && !hasQueuedTask(encoder)) {
+        Thread.onSpinWait();
+      }
+
+      // Act & Assert
+      assertThrows(LoginCapacityExceededException.class, () -> encoder.matches("c", "c"));
+      release.countDown();
+      assertTrue(running.get());
+      assertTrue(queued.get());
+    }
+  }
+
+  private boolean hasQueuedTask(BulkheadedPasswordEncoder encoder) {
+    return encoder.queuedTasks() > 0;
+  }
+
+  private static final class BlockingPasswordEncoder implements PasswordEncoder {
+
+    private final CountDownLatch started;
+    private final CountDownLatch release;
+
+    private BlockingPasswordEncoder(CountDownLatch started, CountDownLatch release) {
+      this.started = started;
+      this.release = release;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return rawPassword.toString();
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return rawPassword.toString().equals(encodedPassword);
+    }
+  }
+}
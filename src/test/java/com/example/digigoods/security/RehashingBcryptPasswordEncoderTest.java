@@ -0,0 +1,31 @@
+package com.example.digigoods.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class RehashingBcryptPasswordEncoderTest {
+
+  private final RehashingBcryptPasswordEncoder encoder = new RehashingBcryptPasswordEncoder(5);
+
+  @Test
+  @DisplayName("Given a hash with the configured cost, when checking, then keep it")
+  void givenHashWithConfiguredCost_whenChecking_thenKeepIt() {
+    assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret")));
+  }
+
+  @Test
+  @DisplayName("Given a hash with a lower cost, when checking, then rehash it")
+  void givenHashWithLowerCost_whenChecking_thenRehashIt() {
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+  }
+
+  @Test
+  @DisplayName("Given a hash with a higher cost, when checking, then rehash it")
+  void givenHashWithHigherCost_whenChecking_thenRehashIt() {
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.digigoods.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.digigoods.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatusCacheTest {
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Test
+  @DisplayName("Given a disabled cache, when checking a user, then trust the token")
+  void givenDisabledCache_whenCheckingUser_thenTrustToken() {
+    // Arrange
+    UserStatusCache cache = new UserStatusCache(userRepository, false, 30, 100);
+
+    // Act & Assert
+    assertTrue(cache.isActive(1L));
+    verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  @DisplayName("Given an enabled cache, when checking a user twice, then query once")
+  void givenEnabledCache_whenCheckingUserTwice_thenQueryOnce() {
+    // Arrange
+    UserStatusCache cache = new UserStatusCache(userRepository, true, 30, 100);
+    when(userRepository.existsById(1L)).thenReturn(true);
+
+    // Act
+    cache.isActive(1L);
+    boolean active = cache.isActive(1L);
+
+    // Assert
+    assertTrue(active);
+    verify(userRepository, times(1)).existsById(1L);
+  }
+
+  @Test
+  @DisplayName("Given an invalidated user, when checking it, then query the new status")
+  void givenInvalidatedUser_whenChecking_thenQueryNewStatus() {
+    // Arrange
+    UserStatusCache cache = new UserStatusCache(userRepository, true, 30, 100);
+    when(userRepository.existsById(1L)).thenReturn(true, false);
+    cache.isActive(1L);
+
+    // Act
+    cache.invalidate(1L);
+    boolean active = cache.isActive(1L);
+
+    // Assert
+    assertFalse(active);
+  }
+}
@@ -0,0 +1,307 @@
+package com.example.digigoods.service;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.CheckoutTicketResponse;
+import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.CheckoutCapacityExceededException;
+import com.example.digigoods.exception.CheckoutTicketNotFoundException;
+import com.example.digigoods.exception.IdempotencyKeyConflictException;
+import com.example.digigoods.exception.InsufficientStockException;
+import com.example.digigoods.exception.UnauthorizedAccessException;
+import com.example.digigoods.model.CheckoutTicketStatus;
+import com.example.digigoods.repository.CheckoutTicketRepository;
+import com.example.digigoods.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for AsyncCheckoutService.
+ *
+ * <p>Not transactional: tickets are stored and processed in transactions of their own. The
+ * checkout itself is mocked.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AsyncCheckoutServiceIntegrationTest {
+
+  private static final Long USER_ID = 1L;
+
+  @Autowired
+  private CheckoutTicketRepository checkoutTicketRepository;
+
+  @Autowired
+  private IdempotencyRecordRepository idempotencyRecordRepository;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private CheckoutService checkoutService;
+  private CheckoutIdempotencyService checkoutIdempotencyService;
+  private AsyncCheckoutService asyncCheckoutService;
+  private CheckoutRequest request;
+
+  @BeforeEach
+  void setUp() {
+    checkoutService = mock(CheckoutService.class);
+    checkoutIdempotencyService = new CheckoutIdempotencyService(idempotencyRecordRepository,
+        checkoutTicketRepository, transactionManager, 24, 60, 100);
+    asyncCheckoutService = service(false, 10);
+    request = new CheckoutRequest(USER_ID, List.of(1L, 2L), List.of("SUMMER20"));
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    asyncCheckoutService.stop();
+    checkoutTicketRepository.deleteAll();
+    idempotencyRecordRepository.deleteAll();
+  }
+
+  private AsyncCheckoutService service(boolean enabled, int queueCapacity) {
+    return new AsyncCheckoutService(checkoutService, checkoutTicketRepository,
+        checkoutIdempotencyService, objectMapper, transactionManager, new SimpleMeterRegistry(),
+        enabled, 2, 10, 2, queueCapacity, 24, 2, 0);
+  }
+
+  @Test
+  @DisplayName("Given a checkout, when submitting it, then store a pending ticket")
+  void givenCheckout_whenSubmitting_thenStorePendingTicket() {
+    // Act
+    CheckoutTicketResponse ticket = asyncCheckoutService.submit(request, USER_ID, null);
+
+    // Assert
+    assertEquals(CheckoutTicketStatus.PENDING, ticket.getStatus());
+    assertEquals(CheckoutTicketStatus.PENDING,
+        asyncCheckoutService.getTicket(ticket.getTicket(), USER_ID).getStatus());
+  }
+
+  @Test
+  @DisplayName("Given a pending ticket, when processing it, then complete it with the order")
+  void givenPendingTicket_whenProcessing_thenCompleteWithOrder() {
+    // Arrange
+    when(checkoutService.processCheckout(eq(request), eq(USER_ID)))
+        .thenReturn(new OrderResponse("Order created successfully!", new BigDecimal("120.00")));
+    String ticketId = asyncCheckoutService.submit(request, USER_ID, null).getTicket();
+
+    // Act
+    asyncCheckoutService.process(ticketId);
+
+    // Assert
+    CheckoutTicketResponse ticket = asyncCheckoutService.getTicket(ticketId, USER_ID);
+    assertEquals(CheckoutTicketStatus.COMPLETED, ticket.getStatus());
+    assertEquals("Order created successfully!", ticket.getMessage());
+    assertEquals(0, new BigDecimal("120.00").compareTo(ticket.getFinalPrice()));
+  }
+
+  @Test
+  @DisplayName("Given a rejected checkout, when processing it, then fail the ticket with the "
+      + "status the synchronous checkout would have returned")
+  void givenRejectedCheckout_whenProcessing_thenFailTicketWithStatus() {
+    // Arrange
+    when(checkoutService.processCheckout(any(), eq(USER_ID)))
+        .thenThrow(new InsufficientStockException(1L, 2, 1));
+    String ticketId = asyncCheckoutService.submit(request, USER_ID, null).getTicket();
+
+    // Act
+    asyncCheckoutService.process(ticketId);
+
+    // Assert
+    CheckoutTicketResponse ticket = asyncCheckoutService.getTicket(ticketId, USER_ID);
+    assertEquals(CheckoutTicketStatus.FAILED, ticket.getStatus());
+    assertEquals(400, ticket.getErrorStatus());
+    assertTrue(ticket.getMessage().contains("Insufficient stock"));
+  }
+
+  @Test
+  @DisplayName("Given a connection timeout, when processing a ticket, then keep it pending and "
+      + "complete it on the retry")
+  void givenConnectionTimeout_whenProcessing_thenKeepPendingAndCompleteOnRetry() {
+    // Arrange
+    when(checkoutService.processCheckout(any(), eq(USER_ID)))
+        .thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager",
+            new SQLTransientConnectionException("Connection is not available")))
+        .thenReturn(new OrderResponse("Order created successfully!", new BigDecimal("120.00")));
+    String ticketId = asyncCheckoutService.submit(request, USER_ID, null).getTicket();
+    asyncCheckoutService.process(ticketId);
+    assertEquals(CheckoutTicketStatus.PENDING,
+        asyncCheckoutService.getTicket(ticketId, USER_ID).getStatus());
+
+    // Act
+    asyncCheckoutService.process(ticketId);
+
+    // Assert
+    assertEquals(CheckoutTicketStatus.COMPLETED,
+        asyncCheckoutService.getTicket(ticketId, USER_ID).getStatus());
+  }
+
+  @Test
+  @DisplayName("Given transient failures on every attempt, when processing a ticket, then fail "
+      + "it with 503 after the last attempt")
+  void givenTransientFailuresOnEveryAttempt_whenProcessing_thenFailWith503() {
+    // Arrange
+    when(checkoutService.processCheckout(any(), eq(USER_ID)))
+        .thenThrow(new QueryTimeoutException("Lock wait timeout"));
+    String ticketId = asyncCheckoutService.submit(request, USER_ID, null).getTicket();
+    asyncCheckoutService.process(ticketId);
+
+    // Act
+    asyncCheckoutService.process(ticketId);
+
+    // Assert
+    CheckoutTicketResponse ticket = asyncCheckoutService.getTicket(ticketId, USER_ID);
+    assertEquals(CheckoutTicketStatus.FAILED, ticket.getStatus());
+    assertEquals(503, ticket.getErrorStatus());
+  }
+
+  @Test
+  @DisplayName("Given a checkout for another user, when submitting it, then reject it")
+  void givenCheckoutForAnotherUser_whenSubmitting_thenReject() {
+    // Act & Assert
+    assertThrows(UnauthorizedAccessException.class,
+        () -> asyncCheckoutService.submit(request, 2L, null));
+    assertEquals(0, checkoutTicketRepository.count());
+  }
+
+  @Test
+  @DisplayName("Given a repeated idempotency key, when submitting, then return the first ticket")
+  void givenRepeatedIdempotencyKey_whenSubmitting_thenReturnFirstTicket() {
+    // Arrange
+    CheckoutTicketResponse first = asyncCheckoutService.submit(request, USER_ID, "key-1");
+    CheckoutRequest other = new CheckoutRequest(USER_ID, List.of(3L), List.of());
+
+    // Act
+    CheckoutTicketResponse second = asyncCheckoutService.submit(request, USER_ID, "key-1");
+
+    // Assert
+    assertEquals(first.getTicket(), second.getTicket());
+    assertEquals(1, checkoutTicketRepository.count());
+    assertThrows(IdempotencyKeyConflictException.class,
+        () -> asyncCheckoutService.submit(other, USER_ID, "key-1"));
+  }
+
+  @Test
+  @DisplayName("Given a key used for a ticket, when checking out synchronously with it, then "
+      + "wait for the ticket and replay its order instead of ordering again")
+  void givenKeyUsedForTicket_whenCheckingOutSynchronously_thenReplayTicketsOrder() {
+    // Arrange
+    when(checkoutService.processCheckout(eq(request), eq(USER_ID)))
+        .thenReturn(new OrderResponse("Order created successfully!", new BigDecimal("120.00")));
+    AtomicInteger syncOrders = new AtomicInteger();
+    String ticketId = asyncCheckoutService.submit(request, USER_ID, "key-1").getTicket();
+
+    // Act & Assert: pending, then completed
+    assertThrows(IdempotencyKeyConflictException.class, () ->
+        checkoutIdempotencyService.checkout("key-1", request, USER_ID, syncCheckout(syncOrders)));
+    asyncCheckoutService.process(ticketId);
+    OrderResponse replayed = checkoutIdempotencyService.checkout("key-1", request, USER_ID,
+        syncCheckout(syncOrders));
+
+    assertEquals("Order created successfully!", replayed.getMessage());
+    assertEquals(0, new BigDecimal("120.00").compareTo(replayed.getFinalPrice()));
+    assertEquals(0, syncOrders.get());
+  }
+
+  @Test
+  @DisplayName("Given a key used by a synchronous checkout, when submitting a ticket with it, "
+      + "then complete the ticket with that order instead of ordering again")
+  void givenKeyUsedSynchronously_whenSubmittingTicket_thenCompleteTicketWithThatOrder() {
+    // Arrange
+    AtomicInteger syncOrders = new AtomicInteger();
+    checkoutIdempotencyService.checkout("key-1", request, USER_ID, syncCheckout(syncOrders));
+
+    // Act
+    CheckoutTicketResponse ticket = asyncCheckoutService.submit(request, USER_ID, "key-1");
+
+    // Assert
+    assertEquals(CheckoutTicketStatus.COMPLETED, ticket.getStatus());
+    assertEquals(0, new BigDecimal("120.00").compareTo(ticket.getFinalPrice()));
+    assertEquals(ticket.getTicket(),
+        asyncCheckoutService.submit(request, USER_ID, "key-1").getTicket());
+    assertEquals(1, syncOrders.get());
+    verify(checkoutService, never()).processCheckout(any(), any());
+  }
+
+  // Like CheckoutService, hands the response over in the transaction of the order
+  private Function<Consumer<OrderResponse>, OrderResponse> syncCheckout(AtomicInteger orders) {
+    return beforeCommit -> new TransactionTemplate(transactionManager).execute(status -> {
+      orders.incrementAndGet();
+      OrderResponse response = new OrderResponse("Order created successfully!",
+          new BigDecimal("120.00"));
+      beforeCommit.accept(response);
+      return response;
+    });
+  }
+
+  @Test
+  @DisplayName("Given a full queue, when submitting, then reject without storing a ticket")
+  void givenFullQueue_whenSubmitting_thenRejectWithoutStoringTicket() {
+    // Arrange
+    asyncCheckoutService = service(false, 1);
+    asyncCheckoutService.submit(request, USER_ID, null);
+
+    // Act & Assert
+    assertThrows(CheckoutCapacityExceededException.class,
+        () -> asyncCheckoutService.submit(request, USER_ID, null));
+    assertEquals(1, checkoutTicketRepository.count());
+  }
+
+  @Test
+  @DisplayName("Given another user's ticket, when getting it, then throw not found")
+  void givenAnotherUsersTicket_whenGettingIt_thenThrowNotFound() {
+    // Arrange
+    String ticketId = asyncCheckoutService.submit(request, USER_ID, null).getTicket();
+
+    // Act & Assert
+    assertThrows(CheckoutTicketNotFoundException.class,
+        () -> asyncCheckoutService.getTicket(ticketId, 2L));
+  }
+
+  @Test
+  @DisplayName("Given tickets left pending by a previous run, when starting, then process them")
+  void givenTicketsLeftPending_whenStarting_thenProcessThem() {
+    // Arrange
+    when(checkoutService.processCheckout(any(), eq(USER_ID)))
+        .thenReturn(new OrderResponse("Order created successfully!", new BigDecimal("120.00")));
+    String ticketId = asyncCheckoutService.submit(request, USER_ID, null).getTicket();
+    asyncCheckoutService = service(true, 10);
+
+    // Act
+    asyncCheckoutService.start();
+
+    // Assert
+    await().atMost(Duration.ofSeconds(5)).until(() ->
+        asyncCheckoutService.getTicket(ticketId, USER_ID).getStatus()
+            == CheckoutTicketStatus.COMPLETED);
+  }
+}
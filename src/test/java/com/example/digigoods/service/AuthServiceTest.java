@@ -8,9 +8,7 @@ import static org.mockito.Mockito.when;
 
 import com.example.digigoods.dto.LoginRequest;
 import com.example.digigoods.dto.LoginResponse;
-import com.example.digigoods.model.User;
-import com.example.digigoods.repository.UserRepository;
-import java.util.Optional;
+import com.example.digigoods.security.UserAccount;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,6 +19,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 
 @ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
@@ -31,23 +30,19 @@ class AuthServiceTest {
   @Mock
   private JwtService jwtService;
 
-  @Mock
-  private UserRepository userRepository;
-
   @InjectMocks
   private AuthService authService;
 
   private LoginRequest loginRequest;
-  private User user;
+  private Authentication authentication;
 
   @BeforeEach
   void setUp() {
     loginRequest = new LoginRequest("testuser", "password");
-    
-    user = new User();
-    user.setId(1L);
-    user.setUsername("testuser");
-    user.setPassword("encodedPassword");
+
+    UserAccount account = new UserAccount(1L, "testuser", "encodedPassword");
+    authentication = UsernamePasswordAuthenticationToken.authenticated(
+        account, null, account.getAuthorities());
   }
 
   @Test
@@ -55,7 +50,8 @@ class AuthServiceTest {
   void givenValidCredentials_whenLoggingIn_thenReturnLoginResponse() {
     // Arrange
     String expectedToken = "jwt.token.here";
-    when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+    when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        .thenReturn(authentication);
     when(jwtService.generateToken(1L, "testuser")).thenReturn(expectedToken);
 
     // Act
@@ -80,23 +76,12 @@ class AuthServiceTest {
     assertThrows(BadCredentialsException.class, () -> authService.login(loginRequest));
   }
 
-  @Test
-  @DisplayName("Given user not found after authentication, when logging in, then throw exception")
-  void givenUserNotFoundAfterAuth_whenLoggingIn_thenThrowException() {
-    // Arrange
-    when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
-
-    // Act & Assert
-    RuntimeException exception = assertThrows(RuntimeException.class,
-        () -> authService.login(loginRequest));
-    assertEquals("User not found", exception.getMessage());
-  }
-
   @Test
   @DisplayName("Given authentication succeeds, when logging in, then auth with correct token")
   void givenAuthSucceeds_whenLoggingIn_thenAuthenticateWithCorrectToken() {
     // Arrange
-    when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+    when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        .thenReturn(authentication);
     when(jwtService.generateToken(1L, "testuser")).thenReturn("token");
 
     // Act
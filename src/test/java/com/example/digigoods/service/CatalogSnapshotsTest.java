@@ -0,0 +1,142 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CatalogSnapshotsTest {
+
+  private final CatalogSnapshots snapshots =
+      new CatalogSnapshots(new ObjectMapper(), 2, 60_000, 60_000);
+
+  @Test
+  @DisplayName("Given a cached page, when getting it again, then do not reload it")
+  void givenCachedPage_whenGettingAgain_thenDoNotReload() {
+    // Arrange
+    AtomicInteger loads = new AtomicInteger();
+    CatalogSnapshots.Snapshot first = snapshots.productsPage(null, 10, () -> {
+      loads.incrementAndGet();
+      return List.of(product(1L, 5));
+    });
+
+    // Act
+    CatalogSnapshots.Snapshot second = snapshots.productsPage(null, 10, () -> {
+      loads.incrementAndGet();
+      return List.of(product(1L, 5));
+    });
+
+    // Assert
+    assertSame(first, second);
+    assertEquals(1, loads.get());
+    assertNull(second.getNextAfterId());
+    assertNotEquals(second.getEtag(false), second.getEtag(true));
+  }
+
+  @Test
+  @DisplayName("Given a change event, when getting a page, then rebuild it with a new ETag")
+  void givenChangeEvent_whenGettingPage_thenRebuildWithNewEtag() {
+    // Arrange
+    CatalogSnapshots.Snapshot before = snapshots.productsPage(null, 1,
+        () -> List.of(product(1L, 5)));
+    snapshots.onCatalogChanged(new CatalogChangedEvent());
+
+    // Act
+    CatalogSnapshots.Snapshot after = snapshots.productsPage(null, 1,
+        () -> List.of(product(1L, 4)));
+
+    // Assert
+    assertNotSame(before, after);
+    assertNotEquals(before.getEtag(false), after.getEtag(false));
+    assertEquals(1L, after.getNextAfterId());
+  }
+
+  @Test
+  @DisplayName("Given a full cache, when getting a new page, then evict the least used page")
+  void givenFullCache_whenGettingNewPage_thenEvictLeastUsedPage() {
+    // Arrange
+    snapshots.productsPage(null, 10, List::of);
+    snapshots.productsPage(null, 10, List::of);
+    snapshots.productsPage(1L, 10, List::of);
+    AtomicInteger loads = new AtomicInteger();
+
+    // Act
+    for (int i = 0; i < 2; i++) {
+      snapshots.productsPage(2L, 10, () -> {
+        loads.incrementAndGet();
+        return List.of();
+      });
+    }
+    snapshots.productsPage(null, 10, () -> {
+      loads.incrementAndGet();
+      return List.of();
+    });
+
+    // Assert
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  @DisplayName("Given a stock change, when getting a recent page, then keep serving it")
+  void givenStockChange_whenGettingRecentPage_thenKeepServingIt() {
+    // Arrange
+    CatalogSnapshots.Snapshot before = snapshots.productsPage(null, 1,
+        () -> List.of(product(1L, 5)));
+    snapshots.onCatalogChanged(CatalogChangedEvent.stockOnly());
+
+    // Act
+    CatalogSnapshots.Snapshot after = snapshots.productsPage(null, 1,
+        () -> List.of(product(1L, 4)));
+
+    // Assert
+    assertSame(before, after);
+  }
+
+  @Test
+  @DisplayName("Given a stock change, when the page is old enough, then rebuild it")
+  void givenStockChange_whenPageOldEnough_thenRebuildIt() throws Exception {
+    // Arrange
+    CatalogSnapshots refreshing = new CatalogSnapshots(new ObjectMapper(), 2, 60_000, 1);
+    CatalogSnapshots.Snapshot before = refreshing.productsPage(null, 1,
+        () -> List.of(product(1L, 5)));
+    Thread.sleep(5);
+    refreshing.onCatalogChanged(CatalogChangedEvent.stockOnly());
+
+    // Act
+    CatalogSnapshots.Snapshot after = refreshing.productsPage(null, 1,
+        () -> List.of(product(1L, 4)));
+
+    // Assert
+    assertNotEquals(before.getEtag(false), after.getEtag(false));
+  }
+
+  @Test
+  @DisplayName("Given an expired page, when getting it, then reload it without any event")
+  void givenExpiredPage_whenGettingIt_thenReloadWithoutEvent() throws Exception {
+    // Arrange
+    CatalogSnapshots expiring = new CatalogSnapshots(new ObjectMapper(), 2, 1, 60_000);
+    CatalogSnapshots.Snapshot before = expiring.productsPage(null, 1,
+        () -> List.of(product(1L, 5)));
+    Thread.sleep(5);
+
+    // Act
+    CatalogSnapshots.Snapshot after = expiring.productsPage(null, 1,
+        () -> List.of(product(1L, 4)));
+
+    // Assert
+    assertNotEquals(before.getEtag(false), after.getEtag(false));
+  }
+
+  private static Product product(Long id, int stock) {
+    return new Product(id, "Product " + id, Money.of("10.00"), stock);
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.CheckoutRejectedException;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.model.User;
+import com.example.digigoods.repository.OrderRepository;
+import com.example.digigoods.repository.ProductRepository;
+import com.example.digigoods.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Integration tests for group-commit mode of CheckoutBatcher.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:groupcommit",
+    "checkout.group-commit.enabled=true",
+    "checkout.group-commit.max-batch-size=2",
+    "checkout.group-commit.linger-micros=2000000",
+    "checkout.group-commit.workers=1"
+})
+@ActiveProfiles("test")
+class CheckoutBatcherIntegrationTest {
+
+  @Autowired
+  private CheckoutBatcher checkoutBatcher;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private User user;
+  private Product scarceProduct;
+  private Product plentifulProduct;
+
+  @BeforeEach
+  void setUp() {
+    user = userRepository.save(new User(null, "batchuser", "secret"));
+    scarceProduct = productRepository.save(
+        new Product(null, "Scarce", Money.of("10.00"), 0));
+    plentifulProduct = productRepository.save(
+        new Product(null, "Plentiful", Money.of("20.00"), 10));
+  }
+
+  @AfterEach
+  void tearDown() {
+    orderRepository.deleteAll();
+    productRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("Given one failing checkout in a batch, when committing, then commit the other")
+  void givenOneFailingCheckoutInBatch_whenCommitting_thenCommitTheOther() {
+    // Arrange
+    CheckoutRequest failing = new CheckoutRequest(user.getId(),
+        List.of(plentifulProduct.getId(), scarceProduct.getId()), List.of());
+    CheckoutRequest succeeding = new CheckoutRequest(user.getId(),
+        List.of(plentifulProduct.getId()), List.of());
+
+    // Act
+    CompletableFuture<OrderResponse> failed = CompletableFuture.supplyAsync(
+        () -> checkoutBatcher.checkout(failing, user.getId()));
+    CompletableFuture<OrderResponse> succeeded = CompletableFuture.supplyAsync(
+        () -> checkoutBatcher.checkout(succeeding, user.getId()));
+
+    // Assert
+    assertEquals(new BigDecimal("20.00"), succeeded.join().getFinalPrice());
+    CompletionException exception = assertThrows(
+        CompletionException.class, failed::join);
+    CheckoutRejectedException rejection =
+        assertInstanceOf(CheckoutRejectedException.class, exception.getCause());
+    assertTrue(rejection.hasReason(Reason.INSUFFICIENT_STOCK));
+    assertEquals(1, orderRepository.count());
+    assertEquals(9, productRepository.findById(plentifulProduct.getId()).orElseThrow().getStock());
+    assertEquals(2.0, meterRegistry.get("checkout.batch.size").summary().max());
+  }
+}
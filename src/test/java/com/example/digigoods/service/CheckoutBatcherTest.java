@@ -0,0 +1,132 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.CheckoutCapacityExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class CheckoutBatcherTest {
+
+  private final CheckoutService checkoutService = mock(CheckoutService.class);
+  private final PlatformTransactionManager transactionManager =
+      mock(PlatformTransactionManager.class);
+  private final CheckoutRequest request = new CheckoutRequest(1L, List.of(1L), List.of());
+
+  @Test
+  @DisplayName("Given all permits taken, when checking out, then reject after the timeout")
+  void givenAllPermitsTaken_whenCheckingOut_thenRejectAfterTimeout() throws Exception {
+    // Arrange
+    CheckoutBatcher batcher = newBatcher(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    OrderResponse response = new OrderResponse("Order created successfully!", BigDecimal.TEN);
+    when(checkoutService.processCheckout(any(), anyLong(), any())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return response;
+    });
+    final CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(
+        () -> batcher.checkout(request, 1L));
+    started.await();
+
+    // Act & Assert
+    assertThrows(CheckoutCapacityExceededException.class,
+        () -> batcher.checkout(request, 1L));
+    release.countDown();
+    assertEquals(response, first.get());
+  }
+
+  @Test
+  @DisplayName("Given a finished checkout, when checking out again, then its permit is reused")
+  void givenFinishedCheckout_whenCheckingOutAgain_thenPermitIsReused() {
+    // Arrange
+    CheckoutBatcher batcher = newBatcher(1);
+    OrderResponse response = new OrderResponse("Order created successfully!", BigDecimal.TEN);
+    when(checkoutService.processCheckout(any(), anyLong(), any())).thenReturn(response);
+    batcher.checkout(request, 1L);
+
+    // Act
+    OrderResponse second = batcher.checkout(request, 1L);
+
+    // Assert
+    assertEquals(response, second);
+  }
+
+  @Test
+  @DisplayName("Given a batch that is not done in time, when checking out, then drop it")
+  void givenBatchNotDoneInTime_whenCheckingOut_thenRejectAndDropIt() throws Exception {
+    // Arrange
+    CheckoutBatcher batcher = newGroupCommitBatcher(100);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    OrderResponse response = new OrderResponse("Order created successfully!", BigDecimal.TEN);
+    when(checkoutService.processCheckout(any(), anyLong(), any())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return response;
+    });
+    batcher.start();
+    final CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(
+        () -> batcher.checkout(request, 1L));
+    started.await();
+
+    // Act & Assert
+    assertThrows(CheckoutCapacityExceededException.class,
+        () -> batcher.checkout(request, 2L));
+    ExecutionException firstFailure = assertThrows(ExecutionException.class, first::get);
+    assertInstanceOf(CheckoutCapacityExceededException.class, firstFailure.getCause());
+    release.countDown();
+    batcher.stop();
+    verify(transactionManager).commit(argThat(TransactionStatus::isRollbackOnly));
+    verify(checkoutService, times(1)).processCheckout(any(), anyLong(), any());
+  }
+
+  @Test
+  @DisplayName("Given a batch that throws an Error, when checking out, then fail the caller")
+  void givenBatchThrowingError_whenCheckingOut_thenFailTheCaller() throws Exception {
+    // Arrange
+    CheckoutBatcher batcher = newGroupCommitBatcher(5000);
+    doThrow(new AssertionError("boom")).when(checkoutService)
+        .processCheckout(any(), anyLong(), any());
+    batcher.start();
+
+    // Act & Assert
+    AssertionError error = assertThrows(AssertionError.class,
+        () -> batcher.checkout(request, 1L));
+    assertEquals("boom", error.getMessage());
+    batcher.stop();
+  }
+
+  private CheckoutBatcher newBatcher(int maxConcurrent) {
+    return new CheckoutBatcher(checkoutService, mock(PlatformTransactionManager.class),
+        new SimpleMeterRegistry(), false, 32, 500, 1024, 2, 10000, maxConcurrent, 50);
+  }
+
+  private CheckoutBatcher newGroupCommitBatcher(long timeoutMillis) {
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    return new CheckoutBatcher(checkoutService, transactionManager,
+        new SimpleMeterRegistry(), true, 1, 500, 1024, 1, timeoutMillis, 0, 50);
+  }
+}
@@ -0,0 +1,323 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.dto.OrderResponse;
+import com.example.digigoods.exception.IdempotencyKeyConflictException;
+import com.example.digigoods.exception.InsufficientStockException;
+import com.example.digigoods.exception.InvalidIdempotencyKeyException;
+import com.example.digigoods.model.IdempotencyRecord;
+import com.example.digigoods.model.IdempotencyRecordId;
+import com.example.digigoods.repository.CheckoutTicketRepository;
+import com.example.digigoods.repository.IdempotencyRecordRepository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for CheckoutIdempotencyService.
+ *
+ * <p>Not transactional: the service claims and completes keys in transactions of its own.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CheckoutIdempotencyServiceIntegrationTest {
+
+  private static final Long USER_ID = 1L;
+
+  @Autowired
+  private IdempotencyRecordRepository idempotencyRecordRepository;
+
+  @Autowired
+  private CheckoutTicketRepository checkoutTicketRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private CheckoutIdempotencyService checkoutIdempotencyService;
+  private CheckoutRequest request;
+  private AtomicInteger executions;
+  private Function<Consumer<OrderResponse>, OrderResponse> checkout;
+
+  @BeforeEach
+  void setUp() {
+    // A fresh instance per test, so no response stays cached from an earlier test
+    checkoutIdempotencyService = new CheckoutIdempotencyService(
+        idempotencyRecordRepository, checkoutTicketRepository, transactionManager, 24, 60, 100);
+    request = new CheckoutRequest(USER_ID, List.of(1L, 2L), List.of("SUMMER20"));
+    executions = new AtomicInteger();
+    // Like CheckoutService, hands the response over in the transaction of the order
+    checkout = beforeCommit -> new TransactionTemplate(transactionManager).execute(status -> {
+      executions.incrementAndGet();
+      OrderResponse response = new OrderResponse("Order created successfully!",
+          new BigDecimal("120.00"));
+      beforeCommit.accept(response);
+      return response;
+    });
+  }
+
+  @AfterEach
+  void tearDown() {
+    idempotencyRecordRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("Given a completed key, when checking out again, then replay the stored response")
+  void givenCompletedKey_whenCheckingOutAgain_thenReplayStoredResponse() {
+    // Arrange
+    OrderResponse first = checkoutIdempotencyService.checkout("key-1", request, USER_ID,
+        checkout);
+
+    // Act
+    OrderResponse second = checkoutIdempotencyService.checkout("key-1", request, USER_ID,
+        checkout);
+
+    // Assert
+    assertEquals(first, second);
+    assertEquals(1, executions.get());
+    IdempotencyRecord stored = idempotencyRecordRepository
+        .findById(new IdempotencyRecordId(USER_ID, "key-1")).orElseThrow();
+    assertEquals(0, new BigDecimal("120.00").compareTo(stored.getResponseFinalPrice()));
+  }
+
+  @Test
+  @DisplayName("Given a completed key and an empty cache, when checking out again, "
+      + "then replay the response from the table")
+  void givenCompletedKeyAndEmptyCache_whenCheckingOutAgain_thenReplayFromTable() {
+    // Arrange
+    CheckoutIdempotencyService uncached = new CheckoutIdempotencyService(
+        idempotencyRecordRepository, checkoutTicketRepository, transactionManager, 24, 60, 0);
+    OrderResponse first = uncached.checkout("key-1", request, USER_ID, checkout);
+
+    // Act
+    OrderResponse second = uncached.checkout("key-1", request, USER_ID, checkout);
+
+    // Assert
+    assertEquals(first.getMessage(), second.getMessage());
+    assertEquals(0, first.getFinalPrice().compareTo(second.getFinalPrice()));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given an in-flight key, when a duplicate arrives, then it waits for the first "
+      + "checkout and gets its response")
+  void givenInFlightKey_whenDuplicateArrives_thenWaitForFirstCheckout() throws Exception {
+    // Arrange
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Function<Consumer<OrderResponse>, OrderResponse> slowCheckout = beforeCommit -> {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return checkout.apply(beforeCommit);
+    };
+    final CompletableFuture<OrderResponse> first = CompletableFuture.supplyAsync(() ->
+        checkoutIdempotencyService.checkout("key-1", request, USER_ID, slowCheckout));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // Act
+    CompletableFuture<OrderResponse> duplicate = CompletableFuture.supplyAsync(() ->
+        checkoutIdempotencyService.checkout("key-1", request, USER_ID, checkout));
+    Thread.sleep(100);
+    assertFalse(duplicate.isDone());
+    release.countDown();
+
+    // Assert
+    assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given a key used for another checkout, when checking out, then throw conflict")
+  void givenKeyUsedForAnotherCheckout_whenCheckingOut_thenThrowConflict() {
+    // Arrange
+    checkoutIdempotencyService.checkout("key-1", request, USER_ID, checkout);
+    CheckoutRequest other = new CheckoutRequest(USER_ID, List.of(3L), List.of());
+
+    // Act & Assert
+    assertThrows(IdempotencyKeyConflictException.class,
+        () -> checkoutIdempotencyService.checkout("key-1", other, USER_ID, checkout));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given a key claimed on another node, when checking out, then throw conflict")
+  void givenKeyClaimedElsewhere_whenCheckingOut_thenThrowConflict() {
+    // Arrange
+    idempotencyRecordRepository.save(new IdempotencyRecord(USER_ID, "key-1",
+        CheckoutIdempotencyService.requestHash(request), LocalDateTime.now()));
+
+    // Act & Assert
+    assertThrows(IdempotencyKeyConflictException.class,
+        () -> checkoutIdempotencyService.checkout("key-1", request, USER_ID, checkout));
+    assertEquals(0, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given a failed checkout, when retrying with the same key, then run it again")
+  void givenFailedCheckout_whenRetryingWithSameKey_thenRunAgain() {
+    // Arrange
+    assertThrows(InsufficientStockException.class,
+        () -> checkoutIdempotencyService.checkout("key-1", request, USER_ID, beforeCommit -> {
+          throw new InsufficientStockException(1L, 2, 1);
+        }));
+
+    // Act
+    OrderResponse response = checkoutIdempotencyService.checkout("key-1", request, USER_ID,
+        checkout);
+
+    // Assert
+    assertEquals("Order created successfully!", response.getMessage());
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given a checkout that committed but then failed, when retrying with the same "
+      + "key, then replay the committed response instead of ordering again")
+  void givenCommittedCheckoutThatFailed_whenRetrying_thenReplayCommittedResponse() {
+    // Arrange
+    CheckoutIdempotencyService uncached = new CheckoutIdempotencyService(
+        idempotencyRecordRepository, checkoutTicketRepository, transactionManager, 24, 60, 0);
+    assertThrows(IllegalStateException.class,
+        () -> uncached.checkout("key-1", request, USER_ID, beforeCommit -> {
+          checkout.apply(beforeCommit);
+          throw new IllegalStateException("connection lost after commit");
+        }));
+
+    // Act
+    OrderResponse response = uncached.checkout("key-1", request, USER_ID, checkout);
+
+    // Assert
+    assertEquals(0, new BigDecimal("120.00").compareTo(response.getFinalPrice()));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given a checkout whose transaction rolled back, when retrying with the same "
+      + "key, then run it again")
+  void givenRolledBackCheckout_whenRetrying_thenRunAgain() {
+    // Arrange
+    assertThrows(InsufficientStockException.class,
+        () -> checkoutIdempotencyService.checkout("key-1", request, USER_ID, beforeCommit ->
+            new TransactionTemplate(transactionManager).execute(status -> {
+              beforeCommit.accept(new OrderResponse("Order created successfully!",
+                  BigDecimal.ONE));
+              throw new InsufficientStockException(1L, 2, 1);
+            })));
+
+    // Act
+    OrderResponse response = checkoutIdempotencyService.checkout("key-1", request, USER_ID,
+        checkout);
+
+    // Assert
+    assertEquals(0, new BigDecimal("120.00").compareTo(response.getFinalPrice()));
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given a claim left behind past the claim timeout, when checking out, "
+      + "then take it over and run the checkout")
+  void givenTimedOutClaim_whenCheckingOut_thenTakeItOver() {
+    // Arrange
+    idempotencyRecordRepository.save(new IdempotencyRecord(USER_ID, "key-1",
+        CheckoutIdempotencyService.requestHash(request), LocalDateTime.now().minusMinutes(2)));
+
+    // Act
+    OrderResponse response = checkoutIdempotencyService.checkout("key-1", request, USER_ID,
+        checkout);
+
+    // Assert
+    assertEquals("Order created successfully!", response.getMessage());
+    assertEquals(1, executions.get());
+    assertTrue(idempotencyRecordRepository
+        .findById(new IdempotencyRecordId(USER_ID, "key-1")).orElseThrow().isCompleted());
+  }
+
+  @Test
+  @DisplayName("Given a claim taken over by another checkout, when the first checkout "
+      + "completes, then roll it back with a conflict")
+  void givenClaimTakenOver_whenFirstCheckoutCompletes_thenThrowConflict() {
+    // Arrange
+    IdempotencyRecordId id = new IdempotencyRecordId(USER_ID, "key-1");
+    Function<Consumer<OrderResponse>, OrderResponse> overtaken = beforeCommit -> {
+      LocalDateTime claimedAt = idempotencyRecordRepository.findById(id).orElseThrow()
+          .getCreatedAt();
+      new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+          idempotencyRecordRepository.takeOver(USER_ID, "key-1", claimedAt,
+              claimedAt.plusSeconds(1), null));
+      return checkout.apply(beforeCommit);
+    };
+
+    // Act & Assert
+    assertThrows(IdempotencyKeyConflictException.class,
+        () -> checkoutIdempotencyService.checkout("key-1", request, USER_ID, overtaken));
+    assertFalse(idempotencyRecordRepository.findById(id).orElseThrow().isCompleted());
+  }
+
+  @Test
+  @DisplayName("Given requests differing only in how values are split, when hashing, "
+      + "then the hashes differ")
+  void givenRequestsDifferingInSplit_whenHashing_thenHashesDiffer() {
+    // Arrange
+    CheckoutRequest joined = new CheckoutRequest(USER_ID, List.of(1L), List.of("AB"));
+    CheckoutRequest split = new CheckoutRequest(USER_ID, List.of(1L), List.of("A", "B"));
+    CheckoutRequest same = new CheckoutRequest(USER_ID, List.of(1L), List.of("AB"));
+
+    // Act & Assert
+    assertEquals(64, CheckoutIdempotencyService.requestHash(joined).length());
+    assertEquals(CheckoutIdempotencyService.requestHash(joined),
+        CheckoutIdempotencyService.requestHash(same));
+    assertNotEquals(CheckoutIdempotencyService.requestHash(joined),
+        CheckoutIdempotencyService.requestHash(split));
+  }
+
+  @Test
+  @DisplayName("Given a blank key, when checking out, then throw InvalidIdempotencyKeyException")
+  void givenBlankKey_whenCheckingOut_thenThrowInvalidIdempotencyKeyException() {
+    // Act & Assert
+    assertThrows(InvalidIdempotencyKeyException.class,
+        () -> checkoutIdempotencyService.checkout(" ", request, USER_ID, checkout));
+    assertEquals(0, executions.get());
+  }
+
+  @Test
+  @DisplayName("Given an expired record, when deleting expired keys, then remove only it")
+  void givenExpiredRecord_whenDeletingExpiredKeys_thenRemoveOnlyIt() {
+    // Arrange
+    idempotencyRecordRepository.save(new IdempotencyRecord(USER_ID, "old", "hash",
+        LocalDateTime.now().minusHours(25)));
+    idempotencyRecordRepository.save(new IdempotencyRecord(USER_ID, "fresh", "hash",
+        LocalDateTime.now()));
+
+    // Act
+    checkoutIdempotencyService.deleteExpired();
+
+    // Assert
+    assertFalse(idempotencyRecordRepository.existsById(new IdempotencyRecordId(USER_ID, "old")));
+    assertTrue(idempotencyRecordRepository.existsById(new IdempotencyRecordId(USER_ID, "fresh")));
+  }
+}
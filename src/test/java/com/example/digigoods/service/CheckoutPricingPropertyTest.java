@@ -0,0 +1,189 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.digigoods.dto.CheckoutRequest;
+import com.example.digigoods.exception.CheckoutRejectedException;
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.model.User;
+import com.example.digigoods.repository.DiscountRepository;
+import com.example.digigoods.repository.OrderRepository;
+import com.example.digigoods.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Compares checkout pricing against the original BigDecimal algorithm on random carts.
+ */
+@ExtendWith(MockitoExtension.class)
+class CheckoutPricingPropertyTest {
+
+  private static final BigDecimal HUNDRED = new BigDecimal("100.00");
+  private static final BigDecimal MAX_DISCOUNT_PERCENTAGE = new BigDecimal("75.00");
+  private static final int ITERATIONS = 2000;
+
+  @Mock
+  private ProductService productService;
+
+  @Mock
+  private DiscountService discountService;
+
+  @Mock
+  private OrderRepository orderRepository;
+
+  @Mock
+  private OrderOutbox orderOutbox;
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private StockReservationService stockReservationService;
+
+  @Spy
+  private DiscountApplicabilityIndex discountApplicabilityIndex =
+      new DiscountApplicabilityIndex(mock(DiscountRepository.class));
+
+  @Spy
+  private CheckoutMetrics checkoutMetrics = new CheckoutMetrics(new SimpleMeterRegistry());
+
+  @InjectMocks
+  private CheckoutService checkoutService;
+
+  @Test
+  @DisplayName("Given random carts, when checking out, then price them like the BigDecimal code")
+  void givenRandomCarts_whenCheckingOut_thenPriceThemLikeBigDecimalCode() {
+    // Arrange
+    Random random = new Random(20240611L);
+    User user = new User();
+    user.setId(1L);
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
+
+    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+      List<Product> products = randomProducts(random);
+      List<Long> productIds = randomCart(random, products);
+      List<Discount> discounts = randomDiscounts(random, products);
+      List<String> codes = discounts.stream().map(Discount::getCode).toList();
+      CheckoutRequest request = new CheckoutRequest(1L, productIds, codes);
+
+      when(productService.findProductsByIds(eq(productIds), any())).thenReturn(products);
+      when(discountService.findValidDiscounts(eq(codes), any())).thenReturn(discounts);
+
+      // Act & Assert
+      BigDecimal expected = legacyFinalPrice(productIds, products, discounts);
+      if (expected == null) {
+        assertThrows(CheckoutRejectedException.class,
+            () -> checkoutService.processCheckout(request, 1L), "iteration " + iteration);
+      } else {
+        assertEquals(expected, checkoutService.processCheckout(request, 1L).getFinalPrice(),
+            "iteration " + iteration);
+      }
+    }
+  }
+
+  private List<Product> randomProducts(Random random) {
+    int count = 1 + random.nextInt(6);
+    List<Product> products = new ArrayList<>(count);
+    for (long id = 1; id <= count; id++) {
+      products.add(new Product(id, "Product " + id, Money.ofCents(1 + random.nextInt(500_000)),
+          100));
+    }
+    return products;
+  }
+
+  private List<Long> randomCart(Random random, List<Product> products) {
+    int lines = 1 + random.nextInt(10);
+    List<Long> productIds = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      productIds.add(products.get(random.nextInt(products.size())).getId());
+    }
+    return productIds;
+  }
+
+  private List<Discount> randomDiscounts(Random random, List<Product> products) {
+    int count = random.nextInt(5);
+    List<Discount> discounts = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Discount discount = new Discount();
+      discount.setCode("CODE" + i);
+      discount.setPercentage(BigDecimal.valueOf(1 + random.nextInt(6000), 2));
+      if (random.nextBoolean()) {
+        discount.setType(DiscountType.GENERAL);
+      } else {
+        discount.setType(DiscountType.PRODUCT_SPECIFIC);
+        discount.setApplicableProducts(new HashSet<>(products.stream()
+            .filter(product -> random.nextBoolean())
+            .toList()));
+      }
+      discounts.add(discount);
+    }
+    return discounts;
+  }
+
+  /**
+   * The pricing code as it was written with BigDecimal, or null if it rejected the cart.
+   */
+  private BigDecimal legacyFinalPrice(List<Long> productIds, List<Product> products,
+                                      List<Discount> discounts) {
+    Map<Long, Product> productMap = products.stream()
+        .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+    BigDecimal originalSubtotal = productIds.stream()
+        .map(productMap::get)
+        .map(product -> product.getPrice().toBigDecimal())
+        .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+    BigDecimal total = BigDecimal.ZERO;
+    for (Long productId : productIds) {
+      Product product = productMap.get(productId);
+      BigDecimal itemPrice = product.getPrice().toBigDecimal();
+      BigDecimal totalDiscountPercentage = discounts.stream()
+          .filter(d -> d.getType() == DiscountType.PRODUCT_SPECIFIC)
+          .filter(discount -> discount.getApplicableProducts().contains(product))
+          .map(Discount::getPercentage)
+          .reduce(BigDecimal.ZERO, BigDecimal::add);
+      if (totalDiscountPercentage.compareTo(BigDecimal.ZERO) > 0) {
+        BigDecimal discountAmount = itemPrice.multiply(totalDiscountPercentage)
+            .divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        itemPrice = itemPrice.subtract(discountAmount);
+      }
+      total = total.add(itemPrice);
+    }
+
+    BigDecimal finalPrice = total;
+    for (Discount discount : discounts) {
+      if (discount.getType() == DiscountType.GENERAL) {
+        BigDecimal discountAmount = finalPrice.multiply(discount.getPercentage())
+            .divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        finalPrice = finalPrice.subtract(discountAmount);
+      }
+    }
+
+    BigDecimal discountPercentage = originalSubtotal.subtract(finalPrice).multiply(HUNDRED)
+        .divide(originalSubtotal, 2, RoundingMode.HALF_UP);
+    return discountPercentage.compareTo(MAX_DISCOUNT_PERCENTAGE) > 0 ? null : finalPrice;
+  }
+}
@@ -4,30 +4,40 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.example.digigoods.dto.CheckoutRequest;
 import com.example.digigoods.dto.OrderResponse;
-import com.example.digigoods.exception.ExcessiveDiscountException;
+import com.example.digigoods.exception.CheckoutRejectedException;
+import com.example.digigoods.exception.CheckoutViolation;
+import com.example.digigoods.exception.CheckoutViolation.Reason;
 import com.example.digigoods.exception.UnauthorizedAccessException;
 import com.example.digigoods.model.Discount;
 import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
 import com.example.digigoods.model.Order;
+import com.example.digigoods.model.OrderLine;
 import com.example.digigoods.model.Product;
 import com.example.digigoods.model.User;
+import com.example.digigoods.repository.DiscountRepository;
 import com.example.digigoods.repository.OrderRepository;
 import com.example.digigoods.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,9 +52,24 @@ class CheckoutServiceTest {
   @Mock
   private OrderRepository orderRepository;
 
+  @Mock
+  private OrderOutbox orderOutbox;
+
   @Mock
   private UserRepository userRepository;
 
+  @Mock
+  private StockReservationService stockReservationService;
+
+  @Spy
+  private DiscountApplicabilityIndex discountApplicabilityIndex =
+      new DiscountApplicabilityIndex(mock(DiscountRepository.class));
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Spy
+  private CheckoutMetrics checkoutMetrics = new CheckoutMetrics(meterRegistry);
+
   @InjectMocks
   private CheckoutService checkoutService;
 
@@ -62,8 +87,8 @@ class CheckoutServiceTest {
     checkoutRequest.setProductIds(List.of(1L, 2L));
     checkoutRequest.setDiscountCodes(List.of("GENERAL20"));
 
-    product1 = new Product(1L, "Product 1", new BigDecimal("100.00"), 10);
-    product2 = new Product(2L, "Product 2", new BigDecimal("50.00"), 5);
+    product1 = new Product(1L, "Product 1", Money.of("100.00"), 10);
+    product2 = new Product(2L, "Product 2", Money.of("50.00"), 5);
 
     generalDiscount = new Discount();
     generalDiscount.setCode("GENERAL20");
@@ -87,11 +112,11 @@ class CheckoutServiceTest {
     List<Product> products = List.of(product1, product2);
     List<Discount> discounts = List.of(generalDiscount);
 
-    when(productService.getProductsByIds(checkoutRequest.getProductIds()))
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
         .thenReturn(products);
-    when(discountService.validateAndGetDiscounts(checkoutRequest.getDiscountCodes()))
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
         .thenReturn(discounts);
-    when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
 
     // Act
     OrderResponse response = checkoutService.processCheckout(checkoutRequest, 1L);
@@ -99,7 +124,8 @@ class CheckoutServiceTest {
     // Assert
     assertEquals("Order created successfully!", response.getMessage());
     assertEquals(new BigDecimal("120.00"), response.getFinalPrice());
-    verify(orderRepository).save(any(Order.class));
+    verify(orderRepository).saveAndFlush(any(Order.class));
+    verify(orderOutbox).record(any(Order.class));
     verify(productService).validateAndUpdateStock(checkoutRequest.getProductIds());
     verify(discountService).updateDiscountUsage(discounts);
   }
@@ -130,16 +156,17 @@ class CheckoutServiceTest {
 
     checkoutRequest.setProductIds(List.of(1L));
 
-    when(productService.getProductsByIds(checkoutRequest.getProductIds()))
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
         .thenReturn(products);
-    when(discountService.validateAndGetDiscounts(checkoutRequest.getDiscountCodes()))
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
         .thenReturn(discounts);
 
     // Act & Assert
-    assertThrows(ExcessiveDiscountException.class,
+    assertThrows(CheckoutRejectedException.class,
         () -> checkoutService.processCheckout(checkoutRequest, 1L));
 
-    verify(orderRepository, never()).save(any());
+    verify(orderRepository, never()).saveAndFlush(any());
+    verify(orderOutbox, never()).record(any());
   }
 
   @Test
@@ -150,11 +177,11 @@ class CheckoutServiceTest {
 
     checkoutRequest.setDiscountCodes(List.of("PRODUCT10"));
 
-    when(productService.getProductsByIds(checkoutRequest.getProductIds()))
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
         .thenReturn(products);
-    when(discountService.validateAndGetDiscounts(checkoutRequest.getDiscountCodes()))
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
         .thenReturn(discounts);
-    when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
 
     // Act
     OrderResponse response = checkoutService.processCheckout(checkoutRequest, 1L);
@@ -171,11 +198,11 @@ class CheckoutServiceTest {
 
     checkoutRequest.setDiscountCodes(List.of());
 
-    when(productService.getProductsByIds(checkoutRequest.getProductIds()))
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
         .thenReturn(products);
-    when(discountService.validateAndGetDiscounts(checkoutRequest.getDiscountCodes()))
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
         .thenReturn(discounts);
-    when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
 
     // Act
     OrderResponse response = checkoutService.processCheckout(checkoutRequest, 1L);
@@ -200,11 +227,11 @@ class CheckoutServiceTest {
 
     checkoutRequest.setProductIds(List.of(1L));
 
-    when(productService.getProductsByIds(checkoutRequest.getProductIds()))
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
         .thenReturn(products);
-    when(discountService.validateAndGetDiscounts(checkoutRequest.getDiscountCodes()))
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
         .thenReturn(discounts);
-    when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
 
     // Act
     OrderResponse response = checkoutService.processCheckout(checkoutRequest, 1L);
@@ -231,10 +258,10 @@ class CheckoutServiceTest {
     List<Product> products = List.of(product1, product2);
     List<Discount> discounts = List.of();
 
-    when(productService.getProductsByIds(List.of(1L, 1L, 2L))).thenReturn(products);
-    when(discountService.validateAndGetDiscounts(checkoutRequest.getDiscountCodes()))
+    when(productService.findProductsByIds(eq(List.of(1L, 1L, 2L)), any())).thenReturn(products);
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
         .thenReturn(discounts);
-    when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
 
     // Act
     OrderResponse response = checkoutService.processCheckout(checkoutRequest, 1L);
@@ -242,4 +269,160 @@ class CheckoutServiceTest {
     // Assert
     assertEquals(new BigDecimal("250.00"), response.getFinalPrice());
   }
+
+  @Test
+  void processCheckout_withReservation_confirmsReservationInsteadOfTakingStock() {
+    // Arrange
+    checkoutRequest.setReservationId("reservation-1");
+    List<Product> products = List.of(product1, product2);
+    List<Discount> discounts = List.of(generalDiscount);
+
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
+        .thenReturn(products);
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
+        .thenReturn(discounts);
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
+
+    // Act
+    checkoutService.processCheckout(checkoutRequest, 1L);
+
+    // Assert
+    verify(stockReservationService).confirm("reservation-1", 1L, List.of(1L, 2L));
+    verify(productService, never()).validateAndUpdateStock(anyList());
+  }
+
+  @Test
+  void processCheckout_repeatedProduct_savesOneLinePerProductWithQuantity() {
+    // Arrange
+    checkoutRequest.setProductIds(List.of(1L, 2L, 1L));
+    checkoutRequest.setDiscountCodes(List.of());
+    product1.setPrice(Money.of("19.99"));
+
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
+        .thenReturn(List.of(product1, product2));
+    when(discountService.findValidDiscounts(eq(List.of()), any())).thenReturn(List.of());
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
+
+    // Act
+    checkoutService.processCheckout(checkoutRequest, 1L);
+
+    // Assert
+    ArgumentCaptor<Order> order = ArgumentCaptor.forClass(Order.class);
+    verify(orderRepository).saveAndFlush(order.capture());
+    List<OrderLine> lines = order.getValue().getLines();
+    assertEquals(2, lines.size());
+    assertEquals(product1, lines.get(0).getProduct());
+    assertEquals(2, lines.get(0).getQuantity());
+    assertEquals(Money.of("19.99"), lines.get(0).getUnitPrice());
+    assertEquals(product2, lines.get(1).getProduct());
+    assertEquals(1, lines.get(1).getQuantity());
+    assertEquals(Money.of("89.98"), order.getValue().getOriginalSubtotal());
+  }
+
+  @Test
+  void processCheckout_validRequest_timesEveryStage() {
+    // Arrange
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
+        .thenReturn(List.of(product1, product2));
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
+        .thenReturn(List.of(generalDiscount));
+    when(userRepository.getReferenceById(1L)).thenReturn(user);
+
+    // Act
+    checkoutService.processCheckout(checkoutRequest, 1L);
+
+    // Assert
+    for (CheckoutMetrics.Stage stage : CheckoutMetrics.Stage.values()) {
+      assertEquals(1, meterRegistry.get("checkout.stage")
+          .tag("stage", stage.name().toLowerCase(Locale.ROOT)).timer().count(), stage.name());
+    }
+    assertEquals(0.0, meterRegistry.get("checkout.in.flight").gauge().value());
+  }
+
+  @Test
+  void processCheckout_excessiveDiscount_countsRejection() {
+    // Arrange
+    Discount excessiveDiscount = new Discount();
+    excessiveDiscount.setPercentage(new BigDecimal("80.00"));
+    excessiveDiscount.setType(DiscountType.GENERAL);
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
+        .thenReturn(List.of(product1, product2));
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
+        .thenReturn(List.of(excessiveDiscount));
+
+    // Act
+    assertThrows(CheckoutRejectedException.class,
+        () -> checkoutService.processCheckout(checkoutRequest, 1L));
+
+    // Assert
+    assertEquals(1.0, meterRegistry.get("checkout.rejections")
+        .tag("reason", "excessive_discount").counter().count());
+    assertEquals(0.0, meterRegistry.get("checkout.rejections")
+        .tag("reason", "invalid_discount").counter().count());
+    assertEquals(1, meterRegistry.get("checkout.stage")
+        .tag("stage", "max_discount_rule").timer().count());
+    assertEquals(0, meterRegistry.get("checkout.stage").tag("stage", "commit").timer().count());
+    assertEquals(0.0, meterRegistry.get("checkout.in.flight").gauge().value());
+  }
+
+  @Test
+  void processCheckout_severalViolations_rejectsWithAllOfThem() {
+    // Arrange
+    checkoutRequest.setProductIds(List.of(2L, 2L, 2L, 2L, 2L, 2L));
+    checkoutRequest.setDiscountCodes(List.of("EXPIRED", "HUGE80"));
+    Discount excessiveDiscount = new Discount();
+    excessiveDiscount.setCode("HUGE80");
+    excessiveDiscount.setPercentage(new BigDecimal("80.00"));
+    excessiveDiscount.setType(DiscountType.GENERAL);
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
+        .thenReturn(List.of(product2));
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
+        .thenAnswer(invocation -> {
+          CheckoutValidation validation = invocation.getArgument(1);
+          validation.reject(Reason.INVALID_DISCOUNT,
+              "Invalid discount code 'EXPIRED': discount has expired");
+          return List.of(excessiveDiscount);
+        });
+
+    // Act
+    CheckoutRejectedException exception = assertThrows(CheckoutRejectedException.class,
+        () -> checkoutService.processCheckout(checkoutRequest, 1L));
+
+    // Assert
+    assertEquals(List.of(Reason.INSUFFICIENT_STOCK, Reason.INVALID_DISCOUNT,
+            Reason.EXCESSIVE_DISCOUNT),
+        exception.getViolations().stream().map(CheckoutViolation::reason).toList());
+    assertEquals("Insufficient stock for product 2. Requested: 6, Available: 5",
+        exception.getViolations().get(0).message());
+    verify(productService, never()).validateAndUpdateStock(anyList());
+    verify(orderRepository, never()).saveAndFlush(any(Order.class));
+    assertEquals(1.0, meterRegistry.get("checkout.rejections")
+        .tag("reason", "insufficient_stock").counter().count());
+    assertEquals(1.0, meterRegistry.get("checkout.rejections")
+        .tag("reason", "invalid_discount").counter().count());
+    assertEquals(1.0, meterRegistry.get("checkout.rejections")
+        .tag("reason", "excessive_discount").counter().count());
+  }
+
+  @Test
+  void processCheckout_missingProduct_rejectsBeforePricing() {
+    // Arrange
+    checkoutRequest.setProductIds(List.of(1L, 3L));
+    when(productService.findProductsByIds(eq(checkoutRequest.getProductIds()), any()))
+        .thenAnswer(invocation -> {
+          CheckoutValidation validation = invocation.getArgument(1);
+          validation.reject(Reason.PRODUCT_NOT_FOUND, "Products not found with IDs: [3]");
+          return List.of(product1);
+        });
+    when(discountService.findValidDiscounts(eq(checkoutRequest.getDiscountCodes()), any()))
+        .thenReturn(List.of(generalDiscount));
+
+    // Act
+    CheckoutRejectedException exception = assertThrows(CheckoutRejectedException.class,
+        () -> checkoutService.processCheckout(checkoutRequest, 1L));
+
+    // Assert
+    assertEquals("Products not found with IDs: [3]", exception.getMessage());
+    assertEquals(0, meterRegistry.get("checkout.stage").tag("stage", "subtotal").timer().count());
+  }
 }
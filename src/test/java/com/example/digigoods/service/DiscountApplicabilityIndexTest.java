@@ -0,0 +1,174 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.DiscountType;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.repository.DiscountRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class DiscountApplicabilityIndexTest {
+
+  @Mock
+  private DiscountRepository discountRepository;
+
+  private DiscountApplicabilityIndex discountApplicabilityIndex;
+  private Discount tenPercent;
+  private Discount fivePercent;
+
+  @BeforeEach
+  void setUp() {
+    discountApplicabilityIndex = new DiscountApplicabilityIndex(discountRepository);
+    tenPercent = productDiscount(1L, "10.00");
+    fivePercent = productDiscount(2L, "5.00");
+  }
+
+  @Test
+  @DisplayName("Given indexed discounts, when pricing products, then sum the applicable ones")
+  void givenIndexedDiscounts_whenPricingProducts_thenSumApplicableOnes() {
+    // Arrange
+    when(discountRepository.findAllVersions()).thenReturn(versions(0L, 0L));
+    when(discountRepository.findAllApplicableProductLinks()).thenReturn(List.of(
+        new Object[] {1L, 100L}, new Object[] {2L, 100L}, new Object[] {2L, 200L}));
+    discountApplicabilityIndex.rebuild();
+
+    // Act
+    DiscountApplicabilityIndex.ApplicableDiscounts applicable =
+        discountApplicabilityIndex.forDiscounts(List.of(tenPercent, fivePercent));
+
+    // Assert
+    assertEquals(1500, applicable.totalBasisPoints(100L));
+    assertEquals(500, applicable.totalBasisPoints(200L));
+    assertEquals(0, applicable.totalBasisPoints(300L));
+  }
+
+  @Test
+  @DisplayName("Given a discount missing from the index, when pricing, then use its products")
+  void givenDiscountMissingFromIndex_whenPricing_thenUseItsProducts() {
+    // Arrange
+    Product product = new Product(300L, "Product", Money.of("10.00"), 1);
+    fivePercent.setApplicableProducts(new HashSet<>(List.of(product)));
+
+    // Act
+    DiscountApplicabilityIndex.ApplicableDiscounts applicable =
+        discountApplicabilityIndex.forDiscounts(List.of(fivePercent));
+
+    // Assert
+    assertEquals(500, applicable.totalBasisPoints(300L));
+    assertEquals(0, applicable.totalBasisPoints(100L));
+  }
+
+  @Test
+  @DisplayName("Given a discount changed since the rebuild, when pricing, then use its products")
+  void givenDiscountChangedSinceRebuild_whenPricing_thenUseItsProducts() {
+    // Arrange
+    when(discountRepository.findAllVersions()).thenReturn(versions(0L, 0L));
+    when(discountRepository.findAllApplicableProductLinks()).thenReturn(List.of(
+        new Object[] {1L, 100L}, new Object[] {2L, 200L}));
+    discountApplicabilityIndex.rebuild();
+    fivePercent.setVersion(1L);
+    fivePercent.setApplicableProducts(
+        new HashSet<>(List.of(new Product(100L, "Product", Money.of("10.00"), 1))));
+
+    // Act
+    DiscountApplicabilityIndex.ApplicableDiscounts applicable =
+        discountApplicabilityIndex.forDiscounts(List.of(tenPercent, fivePercent));
+
+    // Assert
+    assertEquals(1500, applicable.totalBasisPoints(100L));
+    assertEquals(0, applicable.totalBasisPoints(200L));
+  }
+
+  @Test
+  @DisplayName("Given a discount without products, when pricing, then do not load its products")
+  void givenDiscountWithoutProducts_whenPricing_thenDoNotLoadItsProducts() {
+    // Arrange
+    when(discountRepository.findAllVersions()).thenReturn(versions(0L, 0L));
+    when(discountRepository.findAllApplicableProductLinks())
+        .thenReturn(List.<Object[]>of(new Object[] {1L, 100L}));
+    discountApplicabilityIndex.rebuild();
+    fivePercent.setApplicableProducts(null);
+
+    // Act
+    DiscountApplicabilityIndex.ApplicableDiscounts applicable =
+        discountApplicabilityIndex.forDiscounts(List.of(tenPercent, fivePercent));
+
+    // Assert
+    assertEquals(1000, applicable.totalBasisPoints(100L));
+    assertEquals(0, applicable.totalBasisPoints(200L));
+  }
+
+  @Test
+  @DisplayName("Given unchanged versions, when refreshing, then keep the index")
+  void givenUnchangedVersions_whenRefreshing_thenKeepIndex() {
+    // Arrange
+    when(discountRepository.findAllVersions()).thenReturn(versions(0L));
+    when(discountRepository.findAllApplicableProductLinks())
+        .thenReturn(List.<Object[]>of(new Object[] {1L, 100L}));
+    discountApplicabilityIndex.rebuild();
+
+    // Act
+    discountApplicabilityIndex.refreshIfChanged();
+
+    // Assert
+    verify(discountRepository, times(1)).findAllApplicableProductLinks();
+  }
+
+  @Test
+  @DisplayName("Given swapped links and a new version, when refreshing, then rebuild the index")
+  void givenSwappedLinksAndNewVersion_whenRefreshing_thenRebuildIndex() {
+    // Arrange
+    when(discountRepository.findAllVersions())
+        .thenReturn(versions(0L, 0L), versions(1L, 1L), versions(1L, 1L));
+    when(discountRepository.findAllApplicableProductLinks())
+        .thenReturn(List.of(new Object[] {1L, 100L}, new Object[] {2L, 200L}))
+        .thenReturn(List.of(new Object[] {1L, 200L}, new Object[] {2L, 100L}));
+    discountApplicabilityIndex.rebuild();
+    tenPercent.setVersion(1L);
+    fivePercent.setVersion(1L);
+
+    // Act
+    discountApplicabilityIndex.refreshIfChanged();
+
+    // Assert
+    tenPercent.setApplicableProducts(null);
+    fivePercent.setApplicableProducts(null);
+    DiscountApplicabilityIndex.ApplicableDiscounts applicable =
+        discountApplicabilityIndex.forDiscounts(List.of(tenPercent, fivePercent));
+    assertEquals(500, applicable.totalBasisPoints(100L));
+    assertEquals(1000, applicable.totalBasisPoints(200L));
+  }
+
+  private static List<Object[]> versions(Long... versions) {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < versions.length; i++) {
+      rows.add(new Object[] {(long) i + 1, versions[i]});
+    }
+    return rows;
+  }
+
+  private Discount productDiscount(Long id, String percentage) {
+    Discount discount = new Discount();
+    discount.setId(id);
+    discount.setCode("CODE" + id);
+    discount.setPercentage(new BigDecimal(percentage));
+    discount.setType(DiscountType.PRODUCT_SPECIFIC);
+    discount.setVersion(0L);
+    return discount;
+  }
+}
@@ -0,0 +1,125 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.digigoods.exception.InvalidDiscountException;
+import com.example.digigoods.model.Discount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+class DiscountLeaseManagerTest {
+
+  @Mock
+  private DiscountLeaseStore discountLeaseStore;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  private DiscountLeaseManager discountLeaseManager;
+  private Discount discount;
+
+  @BeforeEach
+  void setUp() {
+    discountLeaseManager = new DiscountLeaseManager(discountLeaseStore, eventPublisher, 3, 300);
+
+    discount = new Discount();
+    discount.setId(1L);
+    discount.setCode("PROMO");
+    discount.setRemainingUses(10);
+  }
+
+  @Test
+  @DisplayName("Given several orders, when consuming uses, then lease the row once per block")
+  void givenSeveralOrders_whenConsumingUses_thenLeaseRowOncePerBlock() {
+    // Arrange
+    when(discountLeaseStore.lease(1L, 3)).thenReturn(3);
+
+    // Act
+    for (int i = 0; i < 4; i++) {
+      discountLeaseManager.consumeUse(discount);
+    }
+
+    // Assert
+    verify(discountLeaseStore, times(2)).lease(1L, 3);
+  }
+
+  @Test
+  @DisplayName("Given fewer uses than a block, when consuming uses, then lease what is left")
+  void givenFewerUsesThanBlock_whenConsumingUses_thenLeaseWhatIsLeft() {
+    // Arrange
+    when(discountLeaseStore.lease(1L, 3)).thenReturn(1, 0);
+
+    // Act
+    discountLeaseManager.consumeUse(discount);
+
+    // Assert
+    assertThrows(InvalidDiscountException.class, () -> discountLeaseManager.consumeUse(discount));
+  }
+
+  @Test
+  @DisplayName("Given uses left in lease, when checking availability, then ignore the row")
+  void givenUsesLeftInLease_whenCheckingAvailability_thenIgnoreTheRow() {
+    // Arrange
+    when(discountLeaseStore.lease(1L, 3)).thenReturn(3);
+    discountLeaseManager.consumeUse(discount);
+    discount.setRemainingUses(0);
+
+    // Act
+    boolean available = discountLeaseManager.hasAvailableUses(discount);
+
+    // Assert
+    assertTrue(available);
+  }
+
+  @Test
+  @DisplayName("Given no lease and empty row, when checking availability, then return false")
+  void givenNoLeaseAndEmptyRow_whenCheckingAvailability_thenReturnFalse() {
+    // Arrange
+    discount.setRemainingUses(0);
+
+    // Act & Assert
+    assertFalse(discountLeaseManager.hasAvailableUses(discount));
+  }
+
+  @Test
+  @DisplayName("Given unused leased uses, when shutting down, then return them to the row")
+  void givenUnusedLeasedUses_whenShuttingDown_thenReturnThemToTheRow() {
+    // Arrange
+    when(discountLeaseStore.lease(1L, 3)).thenReturn(3);
+    discountLeaseManager.consumeUse(discount);
+
+    // Act
+    discountLeaseManager.returnAllLeases();
+
+    // Assert
+    verify(discountLeaseStore).giveBack(1L, 2);
+  }
+
+  @Test
+  @DisplayName("Given lease not expired, when sweeping leases, then keep the lease")
+  void givenLeaseNotExpired_whenSweepingLeases_thenKeepTheLease() {
+    // Arrange
+    when(discountLeaseStore.lease(1L, 3)).thenReturn(3);
+    discountLeaseManager.consumeUse(discount);
+
+    // Act
+    discountLeaseManager.returnExpiredLeases();
+
+    // Assert
+    verify(discountLeaseStore, never()).giveBack(anyLong(), anyInt());
+  }
+}
@@ -1,12 +1,16 @@
 package com.example.digigoods.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.example.digigoods.dto.DiscountView;
+import com.example.digigoods.exception.CheckoutViolation;
 import com.example.digigoods.exception.InvalidDiscountException;
 import com.example.digigoods.model.Discount;
 import com.example.digigoods.model.DiscountType;
@@ -29,6 +33,9 @@ class DiscountServiceTest {
   @Mock
   private DiscountRepository discountRepository;
 
+  @Mock
+  private DiscountLeaseManager discountLeaseManager;
+
   @InjectMocks
   private DiscountService discountService;
 
@@ -82,6 +89,7 @@ class DiscountServiceTest {
     // Arrange
     List<String> discountCodes = List.of("VALID20");
     when(discountRepository.findAllByCodeIn(discountCodes)).thenReturn(List.of(validDiscount));
+    when(discountLeaseManager.hasAvailableUses(validDiscount)).thenReturn(true);
 
     // Act
     List<Discount> result = discountService.validateAndGetDiscounts(discountCodes);
@@ -151,6 +159,7 @@ class DiscountServiceTest {
     List<String> discountCodes = List.of("NOUSES20");
     when(discountRepository.findAllByCodeIn(discountCodes))
         .thenReturn(List.of(noUsesDiscount));
+    when(discountLeaseManager.hasAvailableUses(noUsesDiscount)).thenReturn(false);
 
     // Act & Assert
     InvalidDiscountException exception = assertThrows(
@@ -162,39 +171,34 @@ class DiscountServiceTest {
 
   @Test
   @DisplayName("Given valid discounts, when updating discount usage, "
-      + "then decrement remaining uses and save")
-  void givenValidDiscounts_whenUpdatingDiscountUsage_thenDecrementRemainingUsesAndSave() {
+      + "then consume a leased use without saving the row")
+  void givenValidDiscounts_whenUpdatingDiscountUsage_thenConsumeLeasedUse() {
     // Arrange
     List<Discount> discounts = List.of(validDiscount);
-    int originalUses = validDiscount.getRemainingUses();
 
     // Act
     discountService.updateDiscountUsage(discounts);
 
     // Assert
-    assertEquals(originalUses - 1, validDiscount.getRemainingUses());
-    verify(discountRepository).save(validDiscount);
+    verify(discountLeaseManager).consumeUse(validDiscount);
+    verify(discountRepository, never()).save(any());
   }
 
   @Test
   @DisplayName("Given multiple discounts, when updating discount usage, "
-      + "then decrement all remaining uses")
-  void givenMultipleDiscounts_whenUpdatingDiscountUsage_thenDecrementAllRemainingUses() {
+      + "then consume a use of each")
+  void givenMultipleDiscounts_whenUpdatingDiscountUsage_thenConsumeUseOfEach() {
     // Arrange
     Discount discount2 = new Discount();
     discount2.setRemainingUses(3);
     List<Discount> discounts = List.of(validDiscount, discount2);
-    int originalUses1 = validDiscount.getRemainingUses();
-    int originalUses2 = discount2.getRemainingUses();
 
     // Act
     discountService.updateDiscountUsage(discounts);
 
     // Assert
-    assertEquals(originalUses1 - 1, validDiscount.getRemainingUses());
-    assertEquals(originalUses2 - 1, discount2.getRemainingUses());
-    verify(discountRepository).save(validDiscount);
-    verify(discountRepository).save(discount2);
+    verify(discountLeaseManager).consumeUse(validDiscount);
+    verify(discountLeaseManager).consumeUse(discount2);
   }
 
   @Test
@@ -207,7 +211,7 @@ class DiscountServiceTest {
     discountService.updateDiscountUsage(emptyDiscounts);
 
     // Assert
-    verify(discountRepository, never()).save(org.mockito.ArgumentMatchers.any());
+    verify(discountLeaseManager, never()).consumeUse(any());
   }
 
   @Test
@@ -234,18 +238,67 @@ class DiscountServiceTest {
 
   @Test
   @DisplayName("Given request for all discounts, when getting all discounts, "
-      + "then return all discounts")
-  void givenRequestForAllDiscounts_whenGettingAllDiscounts_thenReturnAllDiscounts() {
+      + "then return views with applicable product ids")
+  void givenRequestForAllDiscounts_whenGettingAllDiscounts_thenReturnViewsWithProductIds() {
     // Arrange
-    List<Discount> allDiscounts = List.of(validDiscount, expiredDiscount);
-    when(discountRepository.findAll()).thenReturn(allDiscounts);
+    DiscountView general = new DiscountView(1L, "VALID10", new BigDecimal("10.00"),
+        DiscountType.GENERAL, LocalDate.now(), LocalDate.now(), 5);
+    DiscountView specific = new DiscountView(2L, "PRODUCT15", new BigDecimal("15.00"),
+        DiscountType.PRODUCT_SPECIFIC, LocalDate.now(), LocalDate.now(), 5);
+    when(discountRepository.findAllViews()).thenReturn(List.of(general, specific));
+    when(discountRepository.findAllApplicableProductLinks()).thenReturn(List.of(
+        new Object[] {2L, 7L}, new Object[] {2L, 8L}));
 
     // Act
-    List<Discount> result = discountService.getAllDiscounts();
+    List<DiscountView> result = discountService.getAllDiscounts();
 
     // Assert
     assertEquals(2, result.size());
-    assertEquals(allDiscounts, result);
-    verify(discountRepository).findAll();
+    assertEquals(List.of(), result.get(0).getApplicableProductIds());
+    assertEquals(List.of(7L, 8L), result.get(1).getApplicableProductIds());
+    verify(discountRepository, never()).findAll();
+  }
+
+  @Test
+  @DisplayName("Given several invalid discount codes, when finding valid discounts, "
+      + "then record every one of them and return the valid ones")
+  void givenSeveralInvalidCodes_whenFindingValidDiscounts_thenRecordEveryOneOfThem() {
+    // Arrange
+    List<String> discountCodes = List.of("MISSING", "EXPIRED20", "NOUSES20", "VALID20");
+    when(discountRepository.findAllByCodeIn(discountCodes))
+        .thenReturn(List.of(expiredDiscount, noUsesDiscount, validDiscount));
+    when(discountLeaseManager.hasAvailableUses(noUsesDiscount)).thenReturn(false);
+    when(discountLeaseManager.hasAvailableUses(validDiscount)).thenReturn(true);
+    CheckoutValidation validation = new CheckoutValidation();
+
+    // Act
+    List<Discount> result = discountService.findValidDiscounts(discountCodes, validation);
+
+    // Assert
+    assertEquals(List.of(validDiscount), result);
+    assertEquals(List.of(
+            "Invalid discount code 'MISSING': discount code not found",
+            "Invalid discount code 'EXPIRED20': discount has expired",
+            "Invalid discount code 'NOUSES20': discount has no remaining uses"),
+        validation.getViolations().stream().map(CheckoutViolation::message).toList());
+  }
+
+  @Test
+  @DisplayName("Given a discount code used twice, when finding valid discounts, "
+      + "then record it as used more than once")
+  void givenRepeatedCode_whenFindingValidDiscounts_thenRecordItAsUsedMoreThanOnce() {
+    // Arrange
+    List<String> discountCodes = List.of("VALID20", "VALID20");
+    when(discountRepository.findAllByCodeIn(discountCodes)).thenReturn(List.of(validDiscount));
+    when(discountLeaseManager.hasAvailableUses(validDiscount)).thenReturn(true);
+    CheckoutValidation validation = new CheckoutValidation();
+
+    // Act
+    discountService.findValidDiscounts(discountCodes, validation);
+
+    // Assert
+    assertFalse(validation.isValid());
+    assertEquals(List.of("Invalid discount code 'VALID20': discount code is used more than once"),
+        validation.getViolations().stream().map(CheckoutViolation::message).toList());
   }
 }
@@ -0,0 +1,103 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HashedTimerWheelTest {
+
+  private HashedTimerWheel<String> wheel;
+
+  @BeforeEach
+  void setUp() {
+    wheel = new HashedTimerWheel<>(100, 8, 0);
+  }
+
+  @Test
+  @DisplayName("Given item before deadline, when advancing, then keep item scheduled")
+  void givenItemBeforeDeadline_whenAdvancing_thenKeepItemScheduled() {
+    // Arrange
+    wheel.schedule("a", 500);
+
+    // Act
+    List<String> expired = wheel.advance(499);
+
+    // Assert
+    assertTrue(expired.isEmpty());
+    assertEquals(1, wheel.size());
+  }
+
+  @Test
+  @DisplayName("Given item at deadline, when advancing, then expire item once")
+  void givenItemAtDeadline_whenAdvancing_thenExpireItemOnce() {
+    // Arrange
+    wheel.schedule("a", 500);
+
+    // Act
+    List<String> expired = wheel.advance(500);
+    List<String> expiredAgain = wheel.advance(600);
+
+    // Assert
+    assertEquals(List.of("a"), expired);
+    assertTrue(expiredAgain.isEmpty());
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  @DisplayName("Given deadline beyond one rotation, when advancing, then wait for its round")
+  void givenDeadlineBeyondOneRotation_whenAdvancing_thenWaitForItsRound() {
+    // Arrange
+    wheel.schedule("far", 1_300); // tick 13 shares a bucket with tick 5
+
+    // Act
+    List<String> firstRound = wheel.advance(500);
+    List<String> secondRound = wheel.advance(1_300);
+
+    // Assert
+    assertTrue(firstRound.isEmpty());
+    assertEquals(List.of("far"), secondRound);
+  }
+
+  @Test
+  @DisplayName("Given long pause, when advancing, then expire everything that is due")
+  void givenLongPause_whenAdvancing_thenExpireEverythingThatIsDue() {
+    // Arrange
+    wheel.schedule("a", 200);
+    wheel.schedule("b", 1_500);
+    wheel.schedule("c", 10_000);
+
+    // Act
+    List<String> expired = wheel.advance(5_000);
+
+    // Assert
+    assertEquals(2, expired.size());
+    assertTrue(expired.containsAll(List.of("a", "b")));
+    assertEquals(1, wheel.size());
+  }
+
+  @Test
+  @DisplayName("Given past deadline, when scheduling, then expire on next tick")
+  void givenPastDeadline_whenScheduling_thenExpireOnNextTick() {
+    // Arrange
+    wheel.advance(1_000);
+    wheel.schedule("late", 100);
+
+    // Act
+    List<String> expired = wheel.advance(1_100);
+
+    // Assert
+    assertEquals(List.of("late"), expired);
+  }
+
+  @Test
+  @DisplayName("Given wheel size not power of two, when creating wheel, then throw exception")
+  void givenWheelSizeNotPowerOfTwo_whenCreatingWheel_thenThrowException() {
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> new HashedTimerWheel<String>(100, 6, 0));
+  }
+}
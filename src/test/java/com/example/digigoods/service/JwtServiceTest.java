@@ -3,12 +3,15 @@ package com.example.digigoods.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.example.digigoods.security.AuthenticatedUser;
+import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.springframework.test.util.ReflectionTestUtils;
 
 class JwtServiceTest {
 
@@ -16,10 +19,8 @@ class JwtServiceTest {
 
   @BeforeEach
   void setUp() {
-    jwtService = new JwtService();
-    ReflectionTestUtils.setField(jwtService, "secret",
-        "myVerySecretKeyThatIsAtLeast256BitsLongForHS256Algorithm");
-    ReflectionTestUtils.setField(jwtService, "expiration", 86400000L);
+    jwtService = new JwtService("myVerySecretKeyThatIsAtLeast256BitsLongForHS256Algorithm",
+        86400000L, 100);
   }
 
   @Test
@@ -112,4 +113,32 @@ class JwtServiceTest {
     // Assert
     assertFalse(isValid);
   }
+
+  @Test
+  @DisplayName("Given a verified token, when verifying it again, then return the cached user")
+  void givenVerifiedToken_whenVerifyingAgain_thenReturnCachedUser() {
+    // Arrange
+    String token = jwtService.generateToken(1L, "testuser");
+    AuthenticatedUser first = jwtService.verify(token);
+
+    // Act
+    AuthenticatedUser second = jwtService.verify(token);
+
+    // Assert
+    assertSame(first, second);
+    assertEquals(1L, second.getUserId());
+    assertEquals("testuser", second.getUsername());
+  }
+
+  @Test
+  @DisplayName("Given a token signed with another key, when verifying, then throw exception")
+  void givenTokenSignedWithAnotherKey_whenVerifying_thenThrowException() {
+    // Arrange
+    JwtService otherService = new JwtService(
+        "anotherSecretKeyThatIsAlsoAtLeast256BitsLongForHS256Algorithm", 86400000L, 100);
+    String token = otherService.generateToken(1L, "testuser");
+
+    // Act & Assert
+    assertThrows(SignatureException.class, () -> jwtService.verify(token));
+  }
 }
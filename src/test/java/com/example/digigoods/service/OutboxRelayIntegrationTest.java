@@ -0,0 +1,154 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.digigoods.dto.OrderExportLine;
+import com.example.digigoods.model.Discount;
+import com.example.digigoods.model.Money;
+import com.example.digigoods.model.Order;
+import com.example.digigoods.model.OutboxEvent;
+import com.example.digigoods.model.Product;
+import com.example.digigoods.model.User;
+import com.example.digigoods.repository.OutboxEventRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for OrderOutbox and OutboxRelay.
+ *
+ * <p>Not transactional: events are written and published in transactions of their own.
+ * The orders are not saved, the outbox only needs their IDs.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class OutboxRelayIntegrationTest {
+
+  @Autowired
+  private OrderOutbox orderOutbox;
+
+  @Autowired
+  private OutboxRelay outboxRelay;
+
+  @Autowired
+  private OutboxEventRepository outboxEventRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private ApplicationEvents applicationEvents;
+
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    outboxEventRepository.deleteAll();
+  }
+
+  @AfterEach
+  void tearDown() {
+    outboxEventRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("Given committed orders, when relaying, then number and publish their events")
+  void givenCommittedOrders_whenRelaying_thenNumberAndPublishEvents() {
+    // Arrange
+    transactionTemplate.executeWithoutResult(status -> {
+      orderOutbox.record(order(101L));
+      orderOutbox.record(order(102L));
+    });
+
+    // Act
+    int published = outboxRelay.relayBatch();
+
+    // Assert
+    assertEquals(2, published);
+    List<OrderCreatedEvent> events = applicationEvents.stream(OrderCreatedEvent.class).toList();
+    assertEquals(List.of(1L, 2L), events.stream().map(OrderCreatedEvent::getOffset).toList());
+
+    OrderExportLine first = events.get(0).getOrder();
+    assertEquals(101L, first.getOrderId());
+    assertEquals(7L, first.getUserId());
+    assertEquals(List.of(11L, 11L, 12L), first.getProductIds());
+    assertEquals(List.of("SUMMER20"), first.getDiscountCodes());
+    assertEquals(0, Money.of("25.00").toBigDecimal().compareTo(first.getFinalPrice()));
+    assertEquals(0, outboxRelay.relayBatch());
+  }
+
+  @Test
+  @DisplayName("Given a rolled back order, when relaying, then publish nothing")
+  void givenRolledBackOrder_whenRelaying_thenPublishNothing() {
+    // Arrange
+    transactionTemplate.executeWithoutResult(status -> {
+      orderOutbox.record(order(101L));
+      status.setRollbackOnly();
+    });
+
+    // Act
+    int published = outboxRelay.relayBatch();
+
+    // Assert
+    assertEquals(0, published);
+    assertEquals(0, outboxEventRepository.count());
+  }
+
+  @Test
+  @DisplayName("Given expired events, when deleting them, then keep the newest and continue "
+      + "numbering after it")
+  void givenExpiredEvents_whenDeletingThem_thenKeepNewestAndContinueNumbering() {
+    // Arrange
+    transactionTemplate.executeWithoutResult(status -> {
+      orderOutbox.record(order(101L));
+      orderOutbox.record(order(102L));
+    });
+    outboxRelay.relayBatch();
+    List<OutboxEvent> events = outboxEventRepository.findAll();
+    events.forEach(event -> event.setPublishedAt(LocalDateTime.now().minusDays(30)));
+    outboxEventRepository.saveAll(events);
+
+    // Act
+    outboxRelay.deleteExpired();
+
+    // Assert
+    List<OutboxEvent> remaining = outboxEventRepository.findAll();
+    assertEquals(1, remaining.size());
+    assertEquals(2L, remaining.get(0).getEventOffset());
+
+    transactionTemplate.executeWithoutResult(status -> orderOutbox.record(order(103L)));
+    outboxRelay.relayBatch();
+    assertEquals(3L, outboxEventRepository.findMaxOffset());
+  }
+
+  private Order order(Long id) {
+    User user = new User();
+    user.setId(7L);
+    Discount discount = new Discount();
+    discount.setCode("SUMMER20");
+
+    Order order = new Order();
+    order.setId(id);
+    order.setUser(user);
+    order.addLine(new Product(11L, "Product 11", Money.of("10.00"), 5), 2, Money.of("10.00"));
+    order.addLine(new Product(12L, "Product 12", Money.of("10.00"), 5), 1, Money.of("10.00"));
+    order.setAppliedDiscounts(Set.of(discount));
+    order.setOriginalSubtotal(Money.of("30.00"));
+    order.setFinalPrice(Money.of("25.00"));
+    order.setOrderDate(LocalDateTime.now());
+    return order;
+  }
+}
@@ -2,25 +2,29 @@ package com.example.digigoods.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.Mockito.times;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.example.digigoods.exception.InsufficientStockException;
 import com.example.digigoods.exception.ProductNotFoundException;
+import com.example.digigoods.model.Money;
 import com.example.digigoods.model.Product;
 import com.example.digigoods.repository.ProductRepository;
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceTest {
@@ -28,7 +32,9 @@ class ProductServiceTest {
   @Mock
   private ProductRepository productRepository;
 
-  @InjectMocks
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
   private ProductService productService;
 
   private Product product1;
@@ -36,8 +42,9 @@ class ProductServiceTest {
 
   @BeforeEach
   void setUp() {
-    product1 = new Product(1L, "Product 1", new BigDecimal("10.00"), 5);
-    product2 = new Product(2L, "Product 2", new BigDecimal("20.00"), 3);
+    productService = new ProductService(productRepository, eventPublisher, 100, 1000, 500);
+    product1 = new Product(1L, "Product 1", Money.of("10.00"), 5);
+    product2 = new Product(2L, "Product 2", Money.of("20.00"), 3);
   }
 
   @Test
@@ -56,6 +63,22 @@ class ProductServiceTest {
     verify(productRepository).findAllByIdIn(productIds);
   }
 
+  @Test
+  @DisplayName("Given repeated product IDs, when getting products by IDs, "
+      + "then return each product once")
+  void givenRepeatedProductIds_whenGettingProductsByIds_thenReturnEachProductOnce() {
+    // Arrange
+    List<Long> productIds = List.of(1L, 1L, 2L);
+    List<Product> expectedProducts = List.of(product1, product2);
+    when(productRepository.findAllByIdIn(productIds)).thenReturn(expectedProducts);
+
+    // Act
+    List<Product> actualProducts = productService.getProductsByIds(productIds);
+
+    // Assert
+    assertEquals(expectedProducts, actualProducts);
+  }
+
   @Test
   @DisplayName("Given missing product IDs, when getting products by IDs, "
       + "then throw ProductNotFoundException")
@@ -72,19 +95,20 @@ class ProductServiceTest {
 
   @Test
   @DisplayName("Given sufficient stock, when validating and updating stock, "
-      + "then update stock successfully")
-  void givenSufficientStock_whenValidatingAndUpdatingStock_thenUpdateStockSuccessfully() {
+      + "then decrement all lines in one batch")
+  void givenSufficientStock_whenValidatingAndUpdatingStock_thenDecrementInOneBatch() {
     // Arrange
     List<Long> productIds = List.of(1L, 1L, 2L); // 2 of product1, 1 of product2
-    when(productRepository.findAllByIdIn(List.of(1L, 2L))).thenReturn(List.of(product1, product2));
+    when(productRepository.decrementStock(Map.of(1L, 2, 2L, 1))).thenReturn(List.of());
 
     // Act
     productService.validateAndUpdateStock(productIds);
 
     // Assert
-    assertEquals(3, product1.getStock()); // 5 - 2 = 3
-    assertEquals(2, product2.getStock()); // 3 - 1 = 2
-    verify(productRepository, times(2)).save(any(Product.class));
+    verify(productRepository).decrementStock(Map.of(1L, 2, 2L, 1));
+    verify(productRepository, never()).findAllByIdIn(anyList());
+    verify(eventPublisher).publishEvent(argThat(
+        (Object event) -> event instanceof CatalogChangedEvent changed && changed.isStockOnly()));
   }
 
   @Test
@@ -93,10 +117,73 @@ class ProductServiceTest {
   void givenInsufficientStock_whenValidatingAndUpdatingStock_thenThrowInsufficientStockException() {
     // Arrange
     List<Long> productIds = List.of(1L, 1L, 1L, 1L, 1L, 1L); // 6 of product1, but only 5 in stock
-    when(productRepository.findAllByIdIn(anyList())).thenReturn(List.of(product1));
+    when(productRepository.decrementStock(Map.of(1L, 6))).thenReturn(List.of(1L));
+    when(productRepository.findCurrentStock(List.of(1L))).thenReturn(Map.of(1L, 5));
+
+    // Act & Assert
+    InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+        () -> productService.validateAndUpdateStock(productIds));
+    assertEquals("Insufficient stock for product 1. Requested: 6, Available: 5",
+        exception.getMessage());
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  @Test
+  @DisplayName("Given several failed lines, when validating and updating stock, "
+      + "then report the lowest product ID")
+  void givenSeveralFailedLines_whenValidatingAndUpdatingStock_thenReportLowestProductId() {
+    // Arrange
+    List<Long> productIds = List.of(2L, 2L, 2L, 2L, 1L, 1L, 1L, 1L, 1L, 1L);
+    when(productRepository.decrementStock(Map.of(1L, 6, 2L, 4))).thenReturn(List.of(1L, 2L));
+    when(productRepository.findCurrentStock(List.of(1L, 2L))).thenReturn(Map.of(1L, 5, 2L, 3));
+
+    // Act & Assert
+    InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+        () -> productService.validateAndUpdateStock(productIds));
+    assertEquals("Insufficient stock for product 1. Requested: 6, Available: 5",
+        exception.getMessage());
+  }
+
+  @Test
+  @DisplayName("Given unknown product, when validating and updating stock, "
+      + "then throw ProductNotFoundException")
+  void givenUnknownProduct_whenValidatingAndUpdatingStock_thenThrowProductNotFoundException() {
+    // Arrange
+    List<Long> productIds = List.of(1L, 99L);
+    when(productRepository.decrementStock(Map.of(1L, 1, 99L, 1))).thenReturn(List.of(99L));
+    when(productRepository.findCurrentStock(List.of(99L))).thenReturn(Map.of());
 
     // Act & Assert
-    assertThrows(InsufficientStockException.class,
+    assertThrows(ProductNotFoundException.class,
         () -> productService.validateAndUpdateStock(productIds));
   }
+
+  @Test
+  @DisplayName("Given an oversized limit, when getting a page, then cap it at the maximum")
+  void givenOversizedLimit_whenGettingPage_thenCapAtMaximum() {
+    // Arrange
+    when(productRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(1000)))
+        .thenReturn(List.of());
+
+    // Act
+    List<Product> page = productService.getProductsPage(2L, 50_000);
+
+    // Assert
+    assertTrue(page.isEmpty());
+    verify(productRepository).findByIdGreaterThanOrderByIdAsc(2L, Limit.of(1000));
+  }
+
+  @Test
+  @DisplayName("Given no cursor, when getting a page, then start from the first product")
+  void givenNoCursor_whenGettingPage_thenStartFromFirstProduct() {
+    // Arrange
+    when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(100)))
+        .thenReturn(List.of(product1, product2));
+
+    // Act
+    List<Product> page = productService.getProductsPage(null, null);
+
+    // Assert
+    assertEquals(List.of(product1, product2), page);
+  }
 }
@@ -0,0 +1,181 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.digigoods.dto.ReservationResponse;
+import com.example.digigoods.exception.InsufficientStockException;
+import com.example.digigoods.exception.InvalidReservationException;
+import com.example.digigoods.model.StockHold;
+import com.example.digigoods.repository.StockHoldRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+  private static final String RESERVATION_ID = "reservation-1";
+
+  @Mock
+  private StockHoldRepository stockHoldRepository;
+
+  @Mock
+  private ProductService productService;
+
+  private StockReservationService stockReservationService;
+
+  @BeforeEach
+  void setUp() {
+    stockReservationService = new StockReservationService(
+        stockHoldRepository, productService, 15, 1000);
+  }
+
+  @Test
+  @DisplayName("Given stock available, when reserving, then take stock and store holds")
+  void givenStockAvailable_whenReserving_thenTakeStockAndStoreHolds() {
+    // Act
+    ReservationResponse response = stockReservationService.reserve(1L, List.of(1L, 1L, 2L));
+
+    // Assert
+    assertNotNull(response.getReservationId());
+    verify(productService).decrementStock(Map.of(1L, 2, 2L, 1));
+    verify(stockHoldRepository).saveAll(Mockito.<List<StockHold>>argThat(holds ->
+        holds.size() == 2
+            && holds.stream().allMatch(hold -> hold.getExpiresAt()
+                .equals(response.getExpiresAt()))));
+  }
+
+  @Test
+  @DisplayName("Given insufficient stock, when reserving, then fail without storing holds")
+  void givenInsufficientStock_whenReserving_thenFailWithoutStoringHolds() {
+    // Arrange
+    Mockito.doThrow(new InsufficientStockException(1L, 2, 1))
+        .when(productService).decrementStock(Map.of(1L, 2));
+
+    // Act & Assert
+    assertThrows(InsufficientStockException.class,
+        () -> stockReservationService.reserve(1L, List.of(1L, 1L)));
+    verify(stockHoldRepository, never()).saveAll(Mockito.anyList());
+  }
+
+  @Test
+  @DisplayName("Given matching reservation, when confirming, then delete holds only")
+  void givenMatchingReservation_whenConfirming_thenDeleteHoldsOnly() {
+    // Arrange
+    when(stockHoldRepository.findAllByReservationId(RESERVATION_ID))
+        .thenReturn(holds(1L, LocalDateTime.now().plusMinutes(5)));
+    when(stockHoldRepository.deleteAllByReservationId(RESERVATION_ID)).thenReturn(2);
+
+    // Act
+    stockReservationService.confirm(RESERVATION_ID, 1L, List.of(2L, 1L, 1L));
+
+    // Assert
+    verify(productService, never()).restoreStock(anyMap());
+  }
+
+  @Test
+  @DisplayName("Given different products, when confirming, then throw exception")
+  void givenDifferentProducts_whenConfirming_thenThrowException() {
+    // Arrange
+    when(stockHoldRepository.findAllByReservationId(RESERVATION_ID))
+        .thenReturn(holds(1L, LocalDateTime.now().plusMinutes(5)));
+
+    // Act & Assert
+    InvalidReservationException exception = assertThrows(InvalidReservationException.class,
+        () -> stockReservationService.confirm(RESERVATION_ID, 1L, List.of(1L, 2L)));
+    assertEquals("Invalid reservation 'reservation-1': ordered products do not match "
+        + "the reservation", exception.getMessage());
+    verify(stockHoldRepository, never()).deleteAllByReservationId(anyString());
+  }
+
+  @Test
+  @DisplayName("Given expired reservation, when confirming, then throw exception")
+  void givenExpiredReservation_whenConfirming_thenThrowException() {
+    // Arrange
+    when(stockHoldRepository.findAllByReservationId(RESERVATION_ID))
+        .thenReturn(holds(1L, LocalDateTime.now().minusSeconds(1)));
+
+    // Act & Assert
+    assertThrows(InvalidReservationException.class,
+        () -> stockReservationService.confirm(RESERVATION_ID, 1L, List.of(1L, 1L, 2L)));
+  }
+
+  @Test
+  @DisplayName("Given reservation of another user, when releasing, then throw exception")
+  void givenReservationOfAnotherUser_whenReleasing_thenThrowException() {
+    // Arrange
+    when(stockHoldRepository.findAllByReservationId(RESERVATION_ID))
+        .thenReturn(holds(2L, LocalDateTime.now().plusMinutes(5)));
+
+    // Act & Assert
+    assertThrows(InvalidReservationException.class,
+        () -> stockReservationService.release(RESERVATION_ID, 1L));
+    verify(productService, never()).restoreStock(anyMap());
+  }
+
+  @Test
+  @DisplayName("Given expired holds, when expiring, then restore stock")
+  void givenExpiredHolds_whenExpiring_thenRestoreStock() {
+    // Arrange
+    when(stockHoldRepository.findAllByReservationId(RESERVATION_ID))
+        .thenReturn(holds(1L, LocalDateTime.now().minusSeconds(1)));
+    when(stockHoldRepository.deleteAllByReservationId(RESERVATION_ID)).thenReturn(2);
+
+    // Act
+    stockReservationService.expire(RESERVATION_ID);
+
+    // Assert
+    verify(productService).restoreStock(Map.of(1L, 2, 2L, 1));
+  }
+
+  @Test
+  @DisplayName("Given holds deleted concurrently, when expiring, then do not restore stock")
+  void givenHoldsDeletedConcurrently_whenExpiring_thenDoNotRestoreStock() {
+    // Arrange
+    when(stockHoldRepository.findAllByReservationId(RESERVATION_ID))
+        .thenReturn(holds(1L, LocalDateTime.now().minusSeconds(1)));
+    when(stockHoldRepository.deleteAllByReservationId(RESERVATION_ID)).thenReturn(0);
+
+    // Act
+    stockReservationService.expire(RESERVATION_ID);
+
+    // Assert
+    verify(productService, never()).restoreStock(anyMap());
+  }
+
+  @Test
+  @DisplayName("Given stored expired holds, when starting up, then expire them on next poll")
+  void givenStoredExpiredHolds_whenStartingUp_thenExpireThemOnNextPoll() {
+    // Arrange
+    when(stockHoldRepository.findAll())
+        .thenReturn(holds(1L, LocalDateTime.now().minusMinutes(1)));
+
+    // Act
+    stockReservationService.scheduleStoredHolds();
+    List<String> expired = stockReservationService.pollExpired(
+        System.currentTimeMillis() + 2000);
+
+    // Assert
+    assertEquals(List.of(RESERVATION_ID), expired);
+  }
+
+  private List<StockHold> holds(Long userId, LocalDateTime expiresAt) {
+    return List.of(
+        new StockHold(RESERVATION_ID, 1L, userId, 2, expiresAt),
+        new StockHold(RESERVATION_ID, 2L, userId, 1, expiresAt));
+  }
+}
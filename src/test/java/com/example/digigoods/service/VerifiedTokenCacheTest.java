@@ -0,0 +1,63 @@
+package com.example.digigoods.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.example.digigoods.security.AuthenticatedUser;
+import java.time.Instant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class VerifiedTokenCacheTest {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  @Test
+  @DisplayName("Given an expired entry, when reading it, then miss and drop the entry")
+  void givenExpiredEntry_whenReading_thenMissAndDropEntry() {
+    // Arrange
+    VerifiedTokenCache cache = new VerifiedTokenCache(10);
+    cache.put("token", new AuthenticatedUser(1L, "user", NOW.plusSeconds(60)), NOW);
+
+    // Act
+    AuthenticatedUser user = cache.get("token", NOW.plusSeconds(60));
+
+    // Assert
+    assertNull(user);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  @DisplayName("Given a full cache, when adding an entry, then evict expired entries first")
+  void givenFullCache_whenAddingEntry_thenEvictExpiredEntriesFirst() {
+    // Arrange
+    VerifiedTokenCache cache = new VerifiedTokenCache(2);
+    AuthenticatedUser live = new AuthenticatedUser(1L, "live", NOW.plusSeconds(600));
+    cache.put("live", live, NOW);
+    cache.put("stale", new AuthenticatedUser(2L, "stale", NOW.plusSeconds(10)), NOW);
+
+    // Act
+    cache.put("new", new AuthenticatedUser(3L, "new", NOW.plusSeconds(600)), NOW.plusSeconds(20));
+
+    // Assert
+    assertEquals(2, cache.size());
+    assertSame(live, cache.get("live", NOW.plusSeconds(20)));
+    assertNull(cache.get("stale", NOW));
+  }
+
+  @Test
+  @DisplayName("Given a full cache of live entries, when adding an entry, then stay bounded")
+  void givenFullCacheOfLiveEntries_whenAddingEntry_thenStayBounded() {
+    // Arrange
+    VerifiedTokenCache cache = new VerifiedTokenCache(2);
+    cache.put("a", new AuthenticatedUser(1L, "a", NOW.plusSeconds(600)), NOW);
+    cache.put("b", new AuthenticatedUser(2L, "b", NOW.plusSeconds(600)), NOW);
+
+    // Act
+    cache.put("c", new AuthenticatedUser(3L, "c", NOW.plusSeconds(600)), NOW);
+
+    // Assert
+    assertEquals(2, cache.size());
+  }
+}